@@ -0,0 +1,708 @@
+package poo.demos.puzzle.model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import poo.demos.utils.SplitMix64;
+
+/**
+ * Base abstract class for packed representations of a puzzle's tiles.
+ *
+ * A board holds, for each grid position (identified by its index, as defined by
+ * {@link PositionTable}), the identifier of the tile placed there. Tiles are identified
+ * by their initial (i.e. correct) position index plus one, which means that the tile
+ * with identifier {@code t} belongs at the position with index {@code t - 1}.
+ * The empty space is represented by {@link #EMPTY}.
+ *
+ * The representation is chosen according to the number of grid positions: boards up to
+ * 4x4 are packed in a single {@code long} using 4 bits per tile, while larger boards use
+ * {@code byte}, {@code short} or {@code int} arrays, depending on the number of bits required
+ * to represent each tile. Copying a board therefore amounts to, at most, one array clone.
+ */
+public abstract class Board {
+
+	/**
+	 * The identifier used to represent the empty space.
+	 */
+	public static final int EMPTY = 0;
+
+	/**
+	 * The maximum number of positions of boards whose tiles can be packed in a single {@code long}.
+	 */
+	public static final int MAX_LONG_PACKED_CELLS = Long.SIZE / 4;
+
+	/**
+	 * The value that distinguishes Zobrist keys from other uses of the same mixing function.
+	 */
+	private static final long ZOBRIST_SEED = 0x5A0B2157L;
+
+	/**
+	 * Board whose tiles are packed in a single {@code long} (4 bits per tile).
+	 */
+	private static final class LongBoard extends Board
+	{
+		private long tiles;
+
+		public LongBoard(int size) { super(size); }
+
+		@Override
+		public boolean isPackedInLong() { return true; }
+
+		@Override
+		public long getPackedValue() { return tiles; }
+
+		@Override
+		public void setPackedValue(long value) { tiles = value; }
+
+		/**
+		 * Helper method that gets the offset of the bits of the tile at the given position.
+		 * Shifts are taken modulo 64, so indexes are checked as array indexes would be.
+		 *
+		 * @param index The position index
+		 * @return The offset, in bits
+		 * @throws ArrayIndexOutOfBoundsException if the index is not within
+		 * {@code [0, getCellCount()[}
+		 */
+		private int shiftOf(int index)
+		{
+			if(index < 0 || index >= getCellCount())
+				throw new ArrayIndexOutOfBoundsException(index);
+			return index << 2;
+		}
+
+		@Override
+		public int get(int index) { return (int) (tiles >>> shiftOf(index)) & 0xF; }
+
+		@Override
+		void put(int index, int tile)
+		{
+			final int shift = shiftOf(index);
+			tiles = (tiles & ~(0xFL << shift)) | ((long) tile << shift);
+		}
+
+		@Override
+		public void move(int from, int to)
+		{
+			final int fromShift = shiftOf(from);
+			final long tile = (tiles >>> fromShift) & 0xF;
+			tiles = (tiles & ~(0xFL << fromShift)) | (tile << shiftOf(to));
+		}
+
+		@Override
+		public Board copy()
+		{
+			LongBoard copy = new LongBoard(getSize());
+			copy.tiles = tiles;
+			return copy;
+		}
+
+		@Override
+		public void copyFrom(Board other)
+		{
+			checkCompatibility(other);
+			tiles = ((LongBoard) other).tiles;
+		}
+
+		@Override
+		public int hashCode() { return (int) (tiles ^ (tiles >>> 32)); }
+
+		@Override
+		boolean contentEquals(Board other) { return tiles == ((LongBoard) other).tiles; }
+
+		@Override
+		void writeTiles(ByteBuffer out)
+		{
+			// The packed value holds the tiles low nibble first, which is the encoding's order
+			for(int shift = 0; shift < getCellCount() << 2; shift += Byte.SIZE)
+				out.put((byte) (tiles >>> shift));
+		}
+
+		@Override
+		void readTiles(ByteBuffer in)
+		{
+			final int bits = getCellCount() << 2;
+			long value = 0;
+			for(int shift = 0; shift < bits; shift += Byte.SIZE)
+				value |= (in.get() & 0xFFL) << shift;
+			// The last nibble of boards with an odd number of positions is not used
+			tiles = value & (-1L >>> (Long.SIZE - bits));
+		}
+	}
+
+	/**
+	 * Board whose tiles are stored in a {@code byte} array.
+	 */
+	private static final class ByteBoard extends Board
+	{
+		/**
+		 * The maximum number of positions of boards with this representation.
+		 */
+		public static final int MAX_CELLS = 1 << Byte.SIZE;
+
+		private final byte[] tiles;
+
+		public ByteBoard(int size) { super(size); tiles = new byte[getCellCount()]; }
+
+		private ByteBoard(ByteBoard other) { super(other.getSize()); tiles = other.tiles.clone(); }
+
+		@Override
+		public int get(int index) { return tiles[index] & 0xFF; }
+
+		@Override
+		void put(int index, int tile) { tiles[index] = (byte) tile; }
+
+		@Override
+		public void move(int from, int to)
+		{
+			tiles[to] = tiles[from];
+			tiles[from] = EMPTY;
+		}
+
+		@Override
+		public Board copy() { return new ByteBoard(this); }
+
+		@Override
+		public void copyFrom(Board other)
+		{
+			checkCompatibility(other);
+			System.arraycopy(((ByteBoard) other).tiles, 0, tiles, 0, tiles.length);
+		}
+
+		@Override
+		public int hashCode() { return Arrays.hashCode(tiles); }
+
+		@Override
+		boolean contentEquals(Board other) { return Arrays.equals(tiles, ((ByteBoard) other).tiles); }
+
+		@Override
+		void writeTiles(ByteBuffer out) { out.put(tiles); }
+
+		@Override
+		void readTiles(ByteBuffer in) { in.get(tiles); }
+	}
+
+	/**
+	 * Board whose tiles are stored in a {@code short} array.
+	 */
+	private static final class ShortBoard extends Board
+	{
+		/**
+		 * The maximum number of positions of boards with this representation.
+		 */
+		public static final int MAX_CELLS = 1 << Short.SIZE;
+
+		private final short[] tiles;
+
+		public ShortBoard(int size) { super(size); tiles = new short[getCellCount()]; }
+
+		private ShortBoard(ShortBoard other) { super(other.getSize()); tiles = other.tiles.clone(); }
+
+		@Override
+		public int get(int index) { return tiles[index] & 0xFFFF; }
+
+		@Override
+		void put(int index, int tile) { tiles[index] = (short) tile; }
+
+		@Override
+		public void move(int from, int to)
+		{
+			tiles[to] = tiles[from];
+			tiles[from] = EMPTY;
+		}
+
+		@Override
+		public Board copy() { return new ShortBoard(this); }
+
+		@Override
+		public void copyFrom(Board other)
+		{
+			checkCompatibility(other);
+			System.arraycopy(((ShortBoard) other).tiles, 0, tiles, 0, tiles.length);
+		}
+
+		@Override
+		public int hashCode() { return Arrays.hashCode(tiles); }
+
+		@Override
+		boolean contentEquals(Board other) { return Arrays.equals(tiles, ((ShortBoard) other).tiles); }
+
+		@Override
+		void writeTiles(ByteBuffer out)
+		{
+			out.asShortBuffer().put(tiles);
+			out.position(out.position() + tiles.length * (Short.SIZE / Byte.SIZE));
+		}
+
+		@Override
+		void readTiles(ByteBuffer in)
+		{
+			in.asShortBuffer().get(tiles);
+			in.position(in.position() + tiles.length * (Short.SIZE / Byte.SIZE));
+		}
+	}
+
+	/**
+	 * Board whose tiles are stored in an {@code int} array.
+	 */
+	private static final class IntBoard extends Board
+	{
+		private final int[] tiles;
+
+		public IntBoard(int size) { super(size); tiles = new int[getCellCount()]; }
+
+		private IntBoard(IntBoard other) { super(other.getSize()); tiles = other.tiles.clone(); }
+
+		@Override
+		public int get(int index) { return tiles[index]; }
+
+		@Override
+		void put(int index, int tile) { tiles[index] = tile; }
+
+		@Override
+		public void move(int from, int to)
+		{
+			tiles[to] = tiles[from];
+			tiles[from] = EMPTY;
+		}
+
+		@Override
+		public Board copy() { return new IntBoard(this); }
+
+		@Override
+		public void copyFrom(Board other)
+		{
+			checkCompatibility(other);
+			System.arraycopy(((IntBoard) other).tiles, 0, tiles, 0, tiles.length);
+		}
+
+		@Override
+		public int hashCode() { return Arrays.hashCode(tiles); }
+
+		@Override
+		boolean contentEquals(Board other) { return Arrays.equals(tiles, ((IntBoard) other).tiles); }
+
+		@Override
+		void writeTiles(ByteBuffer out)
+		{
+			out.asIntBuffer().put(tiles);
+			out.position(out.position() + tiles.length * (Integer.SIZE / Byte.SIZE));
+		}
+
+		@Override
+		void readTiles(ByteBuffer in)
+		{
+			in.asIntBuffer().get(tiles);
+			in.position(in.position() + tiles.length * (Integer.SIZE / Byte.SIZE));
+		}
+	}
+
+	/**
+	 * The board's size (i.e. the number of positions in each side).
+	 */
+	private final int size;
+
+	/**
+	 * The board's total number of positions.
+	 */
+	private final int cellCount;
+
+	/**
+	 * Initiates an instance with the given size. All positions are initially empty.
+	 *
+	 * @param size The board's size
+	 */
+	private Board(int size)
+	{
+		this.size = size;
+		this.cellCount = size * size;
+	}
+
+	/**
+	 * Helper method that stores the given tile at the given position, without
+	 * performing any validation.
+	 *
+	 * @param index The position index
+	 * @param tile The tile identifier
+	 */
+	abstract void put(int index, int tile);
+
+	/**
+	 * Helper method that checks if the contents of the given board, which is known to
+	 * have the same representation, are the same as the ones of this instance.
+	 *
+	 * @param other The other board
+	 * @return {@code true} if both boards have the same contents, {@code false} otherwise
+	 */
+	abstract boolean contentEquals(Board other);
+
+	/**
+	 * Helper method that copies the board's tiles, in bulk, to the given buffer, using
+	 * the board's representation (see {@link PuzzleCodec}).
+	 *
+	 * @param out The destination buffer, whose position is advanced
+	 * @throws java.nio.BufferOverflowException if the buffer has not enough room
+	 */
+	abstract void writeTiles(ByteBuffer out);
+
+	/**
+	 * Helper method that copies tiles, in bulk, from the given buffer to the board, without
+	 * performing any validation.
+	 *
+	 * @param in The source buffer, whose position is advanced
+	 * @throws java.nio.BufferUnderflowException if the buffer holds less tiles than required
+	 */
+	abstract void readTiles(ByteBuffer in);
+
+	/**
+	 * Helper method that checks if the given board has the same size as this instance.
+	 *
+	 * @param other The board to be checked
+	 * @throws IllegalArgumentException if the board is {@code null} or if its size is
+	 * not the same as the size of this instance
+	 */
+	void checkCompatibility(Board other)
+	{
+		if(other == null || other.size != size)
+			throw new IllegalArgumentException();
+	}
+
+	/**
+	 * Factory method that produces a board with the given size, using the most compact
+	 * representation. All positions of the new board are empty.
+	 *
+	 * @param size The board's size (i.e. the number of positions in each side). The
+	 * size must be, at least, of two positions per side.
+	 * @return The new instance
+	 * @throws IllegalArgumentException if size is less or equal than {@code 1}
+	 */
+	public static Board create(int size)
+	{
+		if(size <= 1)
+			throw new IllegalArgumentException();
+
+		final int cellCount = size * size;
+		if(cellCount <= MAX_LONG_PACKED_CELLS)
+			return new LongBoard(size);
+		if(cellCount <= ByteBoard.MAX_CELLS)
+			return new ByteBoard(size);
+		if(cellCount <= ShortBoard.MAX_CELLS)
+			return new ShortBoard(size);
+
+		return new IntBoard(size);
+	}
+
+	/**
+	 * Factory method that produces a board with the given size, with all its tiles
+	 * at their correct positions. The empty space is placed at the last position.
+	 *
+	 * @param size The board's size. The size must be, at least, of two positions per side.
+	 * @return The new instance
+	 * @throws IllegalArgumentException if size is less or equal than {@code 1}
+	 */
+	public static Board createSolved(int size)
+	{
+		Board board = create(size);
+		for(int index = 0; index < board.cellCount - 1; ++index)
+			board.put(index, index + 1);
+		return board;
+	}
+
+	/**
+	 * Factory method that produces a board with the given size, with its tiles randomly
+	 * arranged by the given generator (see {@link #shuffle(SplitMix64)}).
+	 *
+	 * @param size The board's size. The size must be, at least, of two positions per side.
+	 * @param random The pseudo-random number generator
+	 * @return The new instance
+	 * @throws IllegalArgumentException if size is less or equal than {@code 1}, or if
+	 * the generator is {@code null}
+	 */
+	public static Board createRandom(int size, SplitMix64 random)
+	{
+		Board board = create(size);
+		board.shuffle(random);
+		return board;
+	}
+
+	/**
+	 * Replaces the board's contents with a random arrangement, produced by the given
+	 * generator. The arrangement is always solvable and the empty space is placed at
+	 * the last position.
+	 *
+	 * Implementation note: Because the empty space is at its correct position, the
+	 * arrangement is solvable if the tiles' permutation is even. The permutation's parity
+	 * is tracked while shuffling and, if odd, is fixed by swapping the first two tiles.
+	 *
+	 * @param random The pseudo-random number generator
+	 * @throws IllegalArgumentException if the generator is {@code null}
+	 */
+	public void shuffle(SplitMix64 random)
+	{
+		if(random == null)
+			throw new IllegalArgumentException();
+
+		final int tileCount = cellCount - 1;
+		for(int index = 0; index < tileCount; ++index)
+			put(index, index + 1);
+		put(tileCount, EMPTY);
+
+		boolean isOdd = false;
+		for(int index = tileCount - 1; index > 0; --index)
+		{
+			// Select a tile and swap it with the one at the current position
+			final int selected = random.nextInt(index + 1);
+			if(selected == index)
+				continue;
+
+			final int tile = get(selected);
+			put(selected, get(index));
+			put(index, tile);
+			isOdd = !isOdd;
+		}
+
+		if(isOdd)
+		{
+			final int tile = get(0);
+			put(0, get(1));
+			put(1, tile);
+		}
+	}
+
+	/**
+	 * Gets the board's size.
+	 *
+	 * @return The number of positions in each side of the board
+	 */
+	public int getSize()
+	{
+		return size;
+	}
+
+	/**
+	 * Gets the board's total number of positions.
+	 *
+	 * @return The number of positions
+	 */
+	public int getCellCount()
+	{
+		return cellCount;
+	}
+
+	/**
+	 * Gets the identifier of the tile at the given position.
+	 *
+	 * @param index The position index
+	 * @return The tile identifier, or {@link #EMPTY} if the position is empty
+	 * @throws ArrayIndexOutOfBoundsException if the index is not within
+	 * {@code [0, getCellCount()[}
+	 */
+	public abstract int get(int index);
+
+	/**
+	 * Places the given tile at the given position.
+	 *
+	 * @param index The position index
+	 * @param tile The tile identifier, or {@link #EMPTY}
+	 * @throws IllegalArgumentException if the tile identifier is not within
+	 * {@code [0, getCellCount()[}
+	 * @throws ArrayIndexOutOfBoundsException if the index is not within
+	 * {@code [0, getCellCount()[}
+	 */
+	public void set(int index, int tile)
+	{
+		if(tile < 0 || tile >= cellCount)
+			throw new IllegalArgumentException();
+
+		put(index, tile);
+	}
+
+	/**
+	 * Moves the tile at the given position to the given empty position, leaving the
+	 * origin position empty. No validation is performed: it is the responsibility of the
+	 * call site to ensure that the destination position is empty.
+	 *
+	 * @param from The index of the tile's current position
+	 * @param to The index of the (empty) destination position
+	 */
+	public abstract void move(int from, int to);
+
+	/**
+	 * Gets the index of the position that holds the given tile.
+	 *
+	 * @param tile The tile identifier, or {@link #EMPTY}
+	 * @return The position index, or {@link PositionTable#NONE} if the tile does not exist
+	 */
+	public int indexOf(int tile)
+	{
+		for(int index = 0; index < cellCount; ++index)
+			if(get(index) == tile)
+				return index;
+		return PositionTable.NONE;
+	}
+
+	/**
+	 * Gets the Zobrist key of the given tile at the given position. Keys are computed,
+	 * rather than stored in a table, which means that they are the same in every process
+	 * and that they are available for boards of any size.
+	 *
+	 * @param tile The tile identifier
+	 * @param index The position index
+	 * @return The key
+	 */
+	static long getZobristKey(int tile, int index)
+	{
+		return SplitMix64.mix64(((long) tile << Integer.SIZE | index) + ZOBRIST_SEED);
+	}
+
+	/**
+	 * Computes the board's Zobrist hash, that is, the exclusive or of the keys of each
+	 * tile at its position. Moving a tile changes the hash by the exclusive or of the
+	 * tile's keys at both positions, which allows the hash to be maintained incrementally
+	 * (see {@link Grid#getZobristHash()}).
+	 *
+	 * @return The 64-bit hash
+	 */
+	public long computeZobristHash()
+	{
+		long hash = 0;
+		for(int index = 0; index < cellCount; ++index)
+		{
+			final int tile = get(index);
+			if(tile != EMPTY)
+				hash ^= getZobristKey(tile, index);
+		}
+		return hash;
+	}
+
+	/**
+	 * Helper method that counts the inversions of the permutation described by the board,
+	 * that is, the number of pairs of tiles that are in reverse order. The empty space is
+	 * regarded as the highest tile, given that its correct position is the last one.
+	 *
+	 * The count uses a Fenwick tree over the tile identifiers, thus requiring
+	 * O(n log n) time for boards with n positions.
+	 *
+	 * @return The number of inversions
+	 */
+	private long countInversions()
+	{
+		// Tiles are visited from last to first: each one is in reverse order with the smaller ones already seen
+		final int[] tree = new int[cellCount + 1];
+		long inversions = 0;
+		for(int index = cellCount - 1; index >= 0; --index)
+		{
+			final int tile = get(index);
+			final int value = tile == EMPTY ? cellCount : tile;
+
+			for(int node = value - 1; node > 0; node -= node & -node)
+				inversions += tree[node];
+			for(int node = value; node <= cellCount; node += node & -node)
+				tree[node] += 1;
+		}
+		return inversions;
+	}
+
+	/**
+	 * Checks whether the board can be solved, that is, whether its tiles can be brought to
+	 * their correct positions by moving them to the empty space.
+	 *
+	 * Each move is a transposition with the empty space that moves it to an adjacent position.
+	 * The board is therefore solvable if, and only if, the parity of its permutation is
+	 * the parity of the distance between the empty space and its correct position.
+	 * The board is assumed to be a valid arrangement of the puzzle's tiles.
+	 *
+	 * @return {@code true} if the board is solvable, {@code false} otherwise
+	 */
+	public boolean isSolvable()
+	{
+		final int empty = indexOf(EMPTY);
+		final int distance = (size - 1 - empty / size) + (size - 1 - empty % size);
+		return (countInversions() & 1) == (distance & 1);
+	}
+
+	/**
+	 * Checks whether the board's tiles are packed in a single {@code long}, that is, whether
+	 * the board has no more than {@link #MAX_LONG_PACKED_CELLS} positions.
+	 *
+	 * @return {@code true} if the board is packed in a {@code long}, {@code false} otherwise
+	 */
+	public boolean isPackedInLong()
+	{
+		return false;
+	}
+
+	/**
+	 * Gets the {@code long} value where the board's tiles are packed. The tile at position
+	 * {@code i} is stored in bits {@code [4i, 4i + 3]}. The value is therefore a compact key
+	 * that uniquely identifies the board's arrangement.
+	 *
+	 * @return The packed value
+	 * @throws IllegalStateException if the board is not packed in a {@code long}
+	 */
+	public long getPackedValue()
+	{
+		throw new IllegalStateException();
+	}
+
+	/**
+	 * Replaces the board's tiles with the ones packed in the given value, as produced
+	 * by {@link #getPackedValue()}. No validation is performed.
+	 *
+	 * @param value The packed value
+	 * @throws IllegalStateException if the board is not packed in a {@code long}
+	 */
+	public void setPackedValue(long value)
+	{
+		throw new IllegalStateException();
+	}
+
+	/**
+	 * Produces a copy of this instance.
+	 *
+	 * @return The new instance
+	 */
+	public abstract Board copy();
+
+	/**
+	 * Replaces this instance's contents with the contents of the given board.
+	 *
+	 * @param other The board whose contents are to be copied
+	 * @throws IllegalArgumentException if the board is {@code null} or if its size is
+	 * not the same as the size of this instance
+	 */
+	public abstract void copyFrom(Board other);
+
+	/**
+	 * Checks if the instance is equivalent to the given one.
+	 * Two board instances are equivalent if they have the same size and the same tiles
+	 * at each position.
+	 *
+	 * @param other the other instance to use in the equivalence check
+	 * @return {@code true} if the current instance is equivalent to the given one,
+	 * {@code false} otherwise
+	 */
+	@Override
+	public boolean equals(Object other)
+	{
+		if(this == other)
+			return true;
+
+		if(!(other instanceof Board))
+			return false;
+
+		Board otherBoard = (Board) other;
+		return this.size == otherBoard.size && contentEquals(otherBoard);
+	}
+
+	@Override
+	public abstract int hashCode();
+
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder("[");
+		for(int index = 0; index < cellCount; ++index)
+			builder.append(index == 0 ? "" : (index % size == 0 ? " | " : " ")).append(get(index));
+		return builder.append(']').toString();
+	}
+}
@@ -4,98 +4,236 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 
+import poo.demos.utils.SplitMix64;
+
 /**
  * Class whose instances represent puzzle grids.
  * For the sake of simplification, grids always have a squared shape. 
+ *
+ * The grid's state is entirely held by a {@link Board} instance, that is, by a packed
+ * representation of the puzzle's tiles. Grid instances are views over that representation,
+ * complemented by the inverse index (i.e. the position of each tile), which makes moves and
+ * lookups constant time operations regardless of the grid's size.
+ *
+ * Grids larger than {@link #LARGE_GRID_CELLS} positions (e.g. the 1000x1000 ones used for
+ * stress testing) create their piece views on demand, which means that their memory usage
+ * is limited to a few arrays with one element per position.
  */
 public class Grid implements Iterable<Piece> {
 	
 	/**
-	 * Wrapper class used to increase the robustness of the solution.
-	 * MutablePiece instances which are used internally are never directly accessed
-	 * from the outside. Instead, the {@link Grid} implementation always produces
-	 * instances of {@link ImmutablePiece}, thus preventing direct access to the mutable state.
+	 * View class used to increase the robustness of the solution.
+	 * The grid's internal state is never directly accessed from the outside. Instead,
+	 * the {@link Grid} implementation always produces instances of {@link PieceView},
+	 * which provide read-only access to the state of one of the grid's pieces.
 	 * 
-	 * The solution is based in the Decorator Design Pattern, thereby not requiring 
-	 * defensive copying. 
+	 * Instances are live views, meaning that they reflect the piece's moves.
 	 */
-	private static class ImmutablePiece extends Piece
+	private class PieceView extends Piece
 	{
 		/**
-		 * The piece instance which actually holds the required information.
+		 * The identifier of the tile that corresponds to the piece.
 		 */
-		private final MutablePiece target;
+		private final int tile;
 		
 		/**
-		 * Initiates an instance with the piece instance to be decorated.
+		 * Initiates an instance for the given tile.
 		 * 
-		 * @param piece The instance that actually holds the piece information.
+		 * @param tile The identifier of the tile that corresponds to the piece.
 		 */
-		public ImmutablePiece(MutablePiece piece) { target = piece; }
+		public PieceView(int tile) { this.tile = tile; }
 		
 		@Override
-		public Position getInitialPosition() { return target.getInitialPosition(); }
+		public Position getInitialPosition() { return positions.getPosition(tile - 1); }
 
 		@Override
-		public Position getPosition() { return target.getPosition(); }
+		public Position getPosition() { return positions.getPosition(tileIndexes[tile]); }
+	}
+	
+	/**
+	 * Class whose instances hold the state of a grid at a given moment, which can later be
+	 * restored, in place, by {@link Grid#restoreFrom(Snapshot)}. The state is held by a copy
+	 * of the grid's board (a single {@code long} for grids up to 4x4, a single primitive array
+	 * otherwise) and by the grid's maintained statistics, which are therefore not recomputed.
+	 * 
+	 * Instances are immutable.
+	 */
+	public static final class Snapshot
+	{
+		/**
+		 * The copy of the grid's board.
+		 */
+		private final Board board;
+		
+		/**
+		 * The grid's maintained values.
+		 */
+		private final int emptySpaceIndex, misplacedCount;
+		private final long manhattanDistance, zobristHash;
+		
+		/**
+		 * Initiates an instance with the current state of the given grid.
+		 * 
+		 * @param grid The grid instance
+		 */
+		private Snapshot(Grid grid)
+		{
+			board = grid.board.copy();
+			emptySpaceIndex = grid.emptySpaceIndex;
+			misplacedCount = grid.misplacedCount;
+			manhattanDistance = grid.manhattanDistance;
+			zobristHash = grid.zobristHash;
+		}
+		
+		/**
+		 * Gets the size of the grid whose state is held.
+		 * 
+		 * @return the grid's size
+		 */
+		public int getSize()
+		{
+			return board.getSize();
+		}
+		
+		/**
+		 * Gets the Zobrist hash of the held arrangement.
+		 * 
+		 * @return the 64-bit hash
+		 * @see Grid#getZobristHash()
+		 */
+		public long getZobristHash()
+		{
+			return zobristHash;
+		}
+		
+		/**
+		 * Produces a copy of the packed representation of the held arrangement.
+		 *
+		 * @return the board instance, which does not share state with the snapshot
+		 */
+		public Board toBoard()
+		{
+			return board.copy();
+		}
 	}
 	
 	/**
-	 * Holds the two-dimensional array that holds the puzzle's pieces. 
+	 * The maximum number of positions of grids whose piece views are created upon construction.
 	 */
-	private final MutablePiece[][] grid;
+	public static final int LARGE_GRID_CELLS = 256 * 256;
 	
 	/**
-	 * Holds the current position of the grid's empty space. 
+	 * The number of existing directions, that is, the number of {@link Move.Delta} instances.
 	 */
-	private Position emptySpacePosition;
+	private static final int DIRECTIONS = Move.Delta.values().length;
 	
 	/**
-	 * The puzzle's size
+	 * Holds the packed representation of the puzzle's pieces.
 	 */
-	private int size;
+	private final Board board;
 	
 	/**
-	 * Helper method that produces an array of {@link MutablePiece} instances to be used
-	 * in the grid.
+	 * Holds the index of the current position of each tile, indexed by tile identifier.
+	 */
+	private final int[] tileIndexes;
+	
+	/**
+	 * Holds the grid's pieces, indexed by tile identifier (the empty space has no piece).
+	 * Views are created once, which means that piece identity is stable and that lookups
+	 * produce no instances. Views of large grids, and of copies, are created on demand.
+	 */
+	private final PieceView[] pieces;
+	
+	/**
+	 * Holds the index of the current position of the grid's empty space.
+	 */
+	private int emptySpaceIndex;
+	
+	/**
+	 * Holds the precomputed geometry of grids with the puzzle's size.
+	 */
+	private final PositionTable positions;
+	
+	/**
+	 * Holds the sum of the distances between each piece's current and initial positions.
+	 * The value is updated on each move.
+	 */
+	private long manhattanDistance;
+	
+	/**
+	 * Holds the number of pieces that are not at their initial positions.
+	 * The value is updated on each move.
+	 */
+	private int misplacedCount;
+	
+	/**
+	 * Holds the Zobrist hash of the grid's arrangement. The value is updated on each move.
+	 */
+	private long zobristHash;
+	
+	/**
+	 * Holds the grid's flyweight moves, indexed by {@code tile * 4 + delta.ordinal()}.
+	 * Both the table and its moves are created on demand.
+	 */
+	private Move[] moves;
+	
+	/**
+	 * Initializes a grid instance with the given board, in a single pass over its positions.
 	 * 
-	 * @param size the size of the puzzle's side. The size of the puzzle must be, at least,
-	 * of two elements per side. 
-	 * @return the instance
-	 * @throws IllegalArgumentException if size is less or equal than {@code 1} 
-	 * @return The array of {@link MutablePiece} instances to be used
-	 * to initialize the grid.
+	 * @param board the board that holds the grid's state
+	 * @throws IllegalArgumentException if the board's contents are not a valid arrangement 
+	 * of the puzzle's pieces, that is, if any tile is out of range or present more than once
 	 */
-	private static MutablePiece[] createMutablePieces(int size)
+	private Grid(Board board)
 	{
-		if(size <= 1)
-			throw new IllegalArgumentException();
+		this.board = board;
+		positions = PositionTable.forSize(board.getSize());
 		
-		// Initialize placeholder
-		MutablePiece[] pieces = new MutablePiece[size * size - 1];
-		
-		// Initialize pieces
-		for(int idx = 0; idx < pieces.length; ++idx)
+		final int cellCount = board.getCellCount();
+		final boolean eagerPieces = cellCount <= LARGE_GRID_CELLS;
+		tileIndexes = new int[cellCount];
+		pieces = new PieceView[cellCount];
+		for(int index = 0; index < cellCount; ++index)
 		{
-			int initialX = idx % size;
-			int initialY = idx / size;
-			pieces[idx] = new MutablePiece(initialX, initialY);
+			// Tiles not yet seen refer to the first position, which holds a different tile
+			final int tile = board.get(index);
+			// Boards decoded in bulk (see PuzzleCodec) may hold out of range tiles
+			if(tile < 0 || tile >= cellCount || (index != 0 && board.get(tileIndexes[tile]) == tile))
+				throw new IllegalArgumentException();
+			
+			tileIndexes[tile] = index;
+			if(tile == Board.EMPTY)
+				continue;
+			
+			if(eagerPieces)
+				pieces[tile] = new PieceView(tile);
+			zobristHash ^= Board.getZobristKey(tile, index);
+			manhattanDistance += positions.getDistance(index, tile - 1);
+			if(index != tile - 1)
+				misplacedCount += 1;
 		}
-
-		return pieces;
+		
+		// Every tile is present exactly once, and so is the empty space
+		emptySpaceIndex = tileIndexes[Board.EMPTY];
 	}
-	
+
 	/**
-	 * Initializes a grid instance with the given size.
-	 *  
-	 * @param size the size of the square
-	 * @throws IllegalArgumentException if size is less or equal than {@code 0} 
+	 * Initializes a grid instance with a copy of the given grid's state. No pass over the
+	 * positions is required: the state is copied as a whole, and piece views are created
+	 * on demand.
+	 * 
+	 * @param other the grid to be copied
 	 */
-	private Grid(int size)
+	private Grid(Grid other)
 	{
-		this.size = size;
-		grid = new MutablePiece[size][size];
-		emptySpacePosition = Position.fromCoordinates(size-1, size-1);
+		board = other.board.copy();
+		positions = other.positions;
+		tileIndexes = other.tileIndexes.clone();
+		pieces = new PieceView[tileIndexes.length];
+		emptySpaceIndex = other.emptySpaceIndex;
+		manhattanDistance = other.manhattanDistance;
+		misplacedCount = other.misplacedCount;
+		zobristHash = other.zobristHash;
 	}
 
 	/**
@@ -106,37 +244,58 @@ public class Grid implements Iterable<Piece> {
 	 */
 	private boolean isPositionWithinBounds(Position position)
 	{
-		return !(position.X < 0 || position.X >= size || position.Y < 0 || position.Y >= size);
+		return positions.isWithinBounds(position);
 	}
 	
 	/**
-	 * Helper method that moves the given piece to the specified position, if it is an adjacent one.
+	 * Helper method that moves the given piece to the empty space, if it is an adjacent one.
 	 *  
 	 * @param piece The piece to be moved
-	 * @param destination The position where the piece is to be moved to
 	 * @return {@code true} if the piece has been moved, {@code false} if the piece 
-	 * cannot be moved, that is, it is not adjacent to the specified position.
+	 * cannot be moved, that is, it is not adjacent to the empty space.
 	 */
-	private boolean doMoveInternal(Piece piece, Position destination)
+	private boolean doMoveInternal(Piece piece)
 	{
-		final int TOTAL_DELTA_TO_ADJACENT = 1; 
-		int totalDelta = Math.abs((piece.getPosition().X - destination.X)) + Math.abs(piece.getPosition().Y - destination.Y);
+		final Position origin = piece.getPosition();
 		
 		// Not moving to the adjacent position
-		if(totalDelta != TOTAL_DELTA_TO_ADJACENT)
+		if(!isPositionWithinBounds(origin))
 			return false;
 		
-		emptySpacePosition = piece.getPosition();
-		MutablePiece targetPiece = grid[piece.getPosition().Y][piece.getPosition().X];
-		grid[emptySpacePosition.Y][emptySpacePosition.X] = null;
-		targetPiece.moveTo(destination);
-		grid[piece.getPosition().Y][piece.getPosition().X] = targetPiece;
+		final int originIndex = positions.indexOf(origin);
+		if(!positions.areAdjacent(originIndex, emptySpaceIndex))
+			return false;
 
+		moveToEmptySpace(originIndex);
 		return true;
 	}
 	
 	/**
-	 * Factory method that produces a shuffled puzzle. 
+	 * Helper method that moves the tile at the given position to the empty space, 
+	 * without performing any validation.
+	 *  
+	 * @param originIndex The index of the position of the tile to be moved, which
+	 * must be adjacent to the empty space
+	 */
+	private void moveToEmptySpace(int originIndex)
+	{
+		// Only the moving piece's contribution to the statistics changes 
+		final int tile = board.get(originIndex), correctIndex = tile - 1;
+		zobristHash ^= Board.getZobristKey(tile, originIndex) ^ Board.getZobristKey(tile, emptySpaceIndex);
+		manhattanDistance += positions.getDistance(emptySpaceIndex, correctIndex) - positions.getDistance(originIndex, correctIndex);
+		if(originIndex == correctIndex)
+			misplacedCount += 1;
+		else if(emptySpaceIndex == correctIndex)
+			misplacedCount -= 1;
+		
+		board.move(originIndex, emptySpaceIndex);
+		tileIndexes[tile] = emptySpaceIndex;
+		tileIndexes[Board.EMPTY] = originIndex;
+		emptySpaceIndex = originIndex;
+	}
+	
+	/**
+	 * Factory method that produces a shuffled puzzle. The produced puzzle is always solvable.
 	 * 
 	 * Implementation note: The current algorithm always leaves an empty space
 	 * at the bottom rightmost position of the grid.
@@ -148,27 +307,25 @@ public class Grid implements Iterable<Piece> {
 	 */
 	public static Grid createRandomPuzzle(int size)
 	{
-		// Initialize placeholder
-		MutablePiece[] pieces = createMutablePieces(size);
-		
-		// Initialize grid 
-		Grid instance = new Grid(size);
-		
-		for(int idx = 0; idx < pieces.length; ++idx)
-		{
-			// Select a piece
-			int selectedIdx = (int) (Math.random() * (pieces.length - idx));
-			MutablePiece selectedPiece = pieces[selectedIdx];
-			pieces[selectedIdx] = pieces[pieces.length - idx - 1];
-			
-			// Place it
-			int currentX = idx % size;
-			int currentY = idx / size;
-			selectedPiece.moveTo(Position.fromCoordinates(currentX, currentY));
-			instance.grid[currentY][currentX] = selectedPiece;
-		}
-		
-		return instance;
+		return createRandomPuzzle(size, new SplitMix64());
+	}
+	
+	/**
+	 * Factory method that produces a puzzle shuffled by the given pseudo-random number 
+	 * generator, which means that the produced puzzle is determined by the generator's state. 
+	 * The produced puzzle is always solvable.
+	 * 
+	 * @param size the size of the puzzle's side. The size of the puzzle must be, at least,
+	 * of two elements per side. 
+	 * @param random the pseudo-random number generator
+	 * @return the shuffled instance
+	 * @throws IllegalArgumentException if size is less or equal than {@code 1}, or if
+	 * the generator is {@code null}
+	 * @see Board#shuffle(SplitMix64)
+	 */
+	public static Grid createRandomPuzzle(int size, SplitMix64 random)
+	{
+		return new Grid(Board.createRandom(size, random));
 	}
 	
 	/**
@@ -181,25 +338,18 @@ public class Grid implements Iterable<Piece> {
 	 */
 	public static Grid createPuzzle(int size)
 	{
-		// Initialize placeholder
-		MutablePiece[] pieces = createMutablePieces(size);
-		
-		// Initialize grid 
-		Grid instance = new Grid(size);
-		
-		for(int idx = 0; idx < pieces.length; ++idx)
-			instance.grid[idx / size][idx % size] = pieces[idx];
-		
-		return instance;
+		return new Grid(Board.createSolved(size));
 	}
 	
 	/**
 	 * Factory method that produces a puzzle initialized with the given pieces.
+	 * Each piece is placed at its current position and keeps its initial position.
 	 * 
 	 * @param pieces the pieces to add to the puzzle
 	 * @param emptyPosition the position of the puzzle that is empty
 	 * @return the new instance
-	 * @throws IllegalArgumentException if either argument is {@code null} 
+	 * @throws IllegalArgumentException if either argument is {@code null}, or if the
+	 * pieces do not fill the puzzle's positions other than the empty one
 	 */
 	public static Grid createPuzzle(List<Piece> pieces, Position emptyPosition)
 	{
@@ -208,16 +358,48 @@ public class Grid implements Iterable<Piece> {
 
 		int size = (int) Math.sqrt(pieces.size() + 1);
 		
-		Grid instance = new Grid(size);
+		Board board = Board.create(size);
+		PositionTable positions = PositionTable.forSize(size);
 		for(Piece piece : pieces)
-		{
-			Position pos = piece.getPosition();
-			instance.grid[pos.Y][pos.X] = new MutablePiece(pos);
-		}
-		
-		instance.emptySpacePosition = emptyPosition;
+			board.set(positions.indexOf(piece.getPosition()), positions.indexOf(piece.getInitialPosition()) + 1);
+
+		Grid grid = new Grid(board);
+		if(grid.emptySpaceIndex != positions.indexOf(emptyPosition))
+			throw new IllegalArgumentException();
 		
-		return instance;
+		return grid;
+	}
+
+	/**
+	 * Factory method that produces a puzzle whose state is held by the given board, which
+	 * is not copied and must therefore not be used elsewhere.
+	 *
+	 * @param board the board with the puzzle's pieces
+	 * @return the new instance
+	 * @throws IllegalArgumentException if the board's contents are not a valid arrangement 
+	 * of the puzzle's pieces
+	 */
+	static Grid wrap(Board board)
+	{
+		return new Grid(board);
+	}
+
+	/**
+	 * Factory method that produces a puzzle initialized with the contents of the given board.
+	 * The board is copied, which means that the new instance does not share state with it.
+	 *
+	 * @param board the board with the puzzle's pieces
+	 * @return the new instance
+	 * @throws IllegalArgumentException if the argument is {@code null}, or if the board's
+	 * contents are not a valid arrangement of the puzzle's pieces, that is, if not all
+	 * pieces, and a single empty space, are present
+	 */
+	public static Grid createPuzzle(Board board)
+	{
+		if(board == null)
+			throw new IllegalArgumentException();
+
+		return new Grid(board.copy());
 	}
 	
 	/**
@@ -235,15 +417,14 @@ public class Grid implements Iterable<Piece> {
 		if(!isPositionWithinBounds(position))
 			throw new IllegalArgumentException();
 		
-		MutablePiece originalPiece = grid[position.Y][position.X];
-		// Producing an immutable wrapper of the original piece to prevent 
+		// Producing the read-only view of the piece to prevent
 		// accidental modification from the outside.
-		return originalPiece != null ? new ImmutablePiece(originalPiece) : null; 
+		return getPiece(board.get(positions.indexOf(position)));
 	}
 
 	/**
 	 * Gets the piece at the given position. If the position is free,
-	 * the method returns {@code null}.
+	 * the method returns {@code null}. The lookup produces no instances.
 	 * 
 	 * @param x the horizontal coordinate value (0 < x < puzzleSize)
 	 * @param y the vertical coordinate value (0 < y < puzzleSize)
@@ -254,7 +435,94 @@ public class Grid implements Iterable<Piece> {
 	 */
 	public Piece getPieceAtPosition(int x, int y)
 	{
-		return getPieceAtPosition(Position.fromCoordinates(x, y));
+		return getPiece(board.get(positions.indexOf(x, y)));
+	}
+	
+	/**
+	 * Gets the move with the given delta whose target is the piece at the given position. 
+	 * Moves are flyweights: the same instance is produced for each piece and delta, and 
+	 * its target is the grid's live view of the piece (see {@link #getPieceAtPosition(Position)}).
+	 * Moves therefore keep their equality and hash code as the grid changes, and equivalent 
+	 * moves are produced with no allocation, once the grid's table holds them.
+	 * 
+	 * @param position the position of the move's target
+	 * @param delta the move's displacement
+	 * @return the move instance, or {@code null} if the given position is empty
+	 * @throws IllegalArgumentException if the position is not within the grid's bounds,
+	 * or if the delta is {@code null}
+	 */
+	public Move getMove(Position position, Move.Delta delta)
+	{
+		if(!isPositionWithinBounds(position) || delta == null)
+			throw new IllegalArgumentException();
+		
+		return getTileMove(board.get(positions.indexOf(position)), delta);
+	}
+	
+	/**
+	 * Gets the move with the given delta whose target is the piece with the given tile. 
+	 * Used by the grid's collaborators that operate on tiles.
+	 * 
+	 * @param tile the tile of the move's target
+	 * @param delta the move's displacement
+	 * @return the flyweight move, or {@code null} if the tile is the empty space
+	 * @see #getMove(Position, Move.Delta)
+	 */
+	Move getTileMove(int tile, Move.Delta delta)
+	{
+		if(tile == Board.EMPTY)
+			return null;
+		if(moves == null)
+			moves = new Move[positions.getCellCount() * DIRECTIONS];
+		
+		final int entry = tile * DIRECTIONS + delta.ordinal();
+		if(moves[entry] == null)
+			moves[entry] = new Move(delta, getPiece(tile));
+		return moves[entry];
+	}
+	
+	/**
+	 * Gets the piece that corresponds to the given tile.
+	 * 
+	 * @param tile the tile identifier
+	 * @return the piece, or {@code null} if the tile is {@link Board#EMPTY}
+	 */
+	Piece getPiece(int tile)
+	{
+		PieceView piece = pieces[tile];
+		if(piece == null && tile != Board.EMPTY)
+			pieces[tile] = piece = new PieceView(tile);
+		return piece;
+	}
+	
+	/**
+	 * Gets the packed representation of the grid's pieces, which is not copied.
+	 * 
+	 * @return the grid's board
+	 */
+	Board getBoard()
+	{
+		return board;
+	}
+	
+	/**
+	 * Gets the index of the current position of the grid's empty space.
+	 * 
+	 * @return the position index
+	 */
+	int getEmptySpaceIndex()
+	{
+		return emptySpaceIndex;
+	}
+	
+	/**
+	 * Gets the precomputed geometry of the grid.
+	 * 
+	 * @return the grid's position table
+	 */
+	PositionTable getPositionTable()
+	{
+		return positions;
 	}
 	
 	/**
@@ -264,7 +532,7 @@ public class Grid implements Iterable<Piece> {
 	 */
 	public Position getEmptySpacePosition()
 	{
-		return emptySpacePosition;
+		return positions.getPosition(emptySpaceIndex);
 	}
 
 	/**
@@ -274,7 +542,125 @@ public class Grid implements Iterable<Piece> {
 	 */
 	public int getSize()
 	{
-		return grid.length;
+		return positions.getSize();
+	}
+
+	/**
+	 * Gets the sum of the distances between each piece's current and initial positions,
+	 * that is, the Manhattan distance between the puzzle and its solved state. 
+	 * The value is maintained on each move, and its computation is therefore O(1).
+	 * 
+	 * @return the Manhattan distance
+	 */
+	public long getManhattanDistance()
+	{
+		return manhattanDistance;
+	}
+	
+	/**
+	 * Gets the number of pieces that are not at their initial positions.
+	 * The value is maintained on each move, and its computation is therefore O(1).
+	 * 
+	 * @return the number of misplaced pieces
+	 */
+	public int getMisplacedCount()
+	{
+		return misplacedCount;
+	}
+	
+	/**
+	 * Checks whether the puzzle is solved, that is, whether all pieces are at their
+	 * initial positions. The check is O(1).
+	 * 
+	 * @return {@code true} if the puzzle is solved, {@code false} otherwise
+	 */
+	public boolean isSolved()
+	{
+		return misplacedCount == 0;
+	}
+	
+	/**
+	 * Gets the Zobrist hash of the grid's arrangement, which is the same as the one computed
+	 * by {@link Board#computeZobristHash()} for the grid's board. The value is maintained 
+	 * on each move, and its computation is therefore O(1).
+	 * 
+	 * @return the 64-bit hash
+	 */
+	public long getZobristHash()
+	{
+		return zobristHash;
+	}
+	
+	/**
+	 * Checks whether the puzzle can be solved, that is, whether its pieces can be brought 
+	 * to their initial positions by means of moves.
+	 * 
+	 * @return {@code true} if the puzzle is solvable, {@code false} otherwise
+	 * @see Board#isSolvable()
+	 */
+	public boolean isSolvable()
+	{
+		return board.isSolvable();
+	}
+
+	/**
+	 * Produces a copy of the packed representation of the grid's pieces.
+	 *
+	 * @return the board instance, which does not share state with the grid
+	 */
+	public Board toBoard()
+	{
+		return board.copy();
+	}
+	
+	/**
+	 * Produces an independent copy of the grid, which can be moved without affecting the 
+	 * original one (e.g. for lookahead). The copy's state is produced by copying the
+	 * original's arrays as a whole, and its pieces are distinct from the original's ones.
+	 * 
+	 * @return the new instance
+	 */
+	public Grid copy()
+	{
+		return new Grid(this);
+	}
+	
+	/**
+	 * Captures the grid's current state, which can later be restored by 
+	 * {@link #restoreFrom(Snapshot)}. Capturing the state of grids up to 4x4 copies a
+	 * single {@code long} value.
+	 * 
+	 * @return the snapshot instance
+	 */
+	public Snapshot snapshot()
+	{
+		return new Snapshot(this);
+	}
+	
+	/**
+	 * Restores, in place, the state held by the given snapshot, which may have been 
+	 * captured from any grid with the same size. The grid's pieces remain valid and 
+	 * reflect the restored state. Moves recorded for the grid (e.g. in a 
+	 * {@link MovesStack}) are no longer meaningful once the state is restored.
+	 * 
+	 * @param snapshot the state to be restored
+	 * @throws IllegalArgumentException if the snapshot is {@code null}, or if it was 
+	 * captured from a grid with a different size
+	 */
+	public void restoreFrom(Snapshot snapshot)
+	{
+		if(snapshot == null || snapshot.getSize() != getSize())
+			throw new IllegalArgumentException();
+		
+		board.copyFrom(snapshot.board);
+		final int cellCount = tileIndexes.length;
+		for(int index = 0; index < cellCount; ++index)
+			tileIndexes[board.get(index)] = index;
+		
+		emptySpaceIndex = snapshot.emptySpaceIndex;
+		manhattanDistance = snapshot.manhattanDistance;
+		misplacedCount = snapshot.misplacedCount;
+		zobristHash = snapshot.zobristHash;
 	}
 	
 	/**
@@ -289,10 +675,10 @@ public class Grid implements Iterable<Piece> {
 	 */
 	public boolean doMove(Piece piece, Position destination)
 	{
-		if(!isPositionWithinBounds(destination) || !destination.equals(emptySpacePosition))
+		if(!isPositionWithinBounds(destination) || positions.indexOf(destination) != emptySpaceIndex)
 			return false;
 		
-		return doMoveInternal(piece, destination);
+		return doMoveInternal(piece);
 	}
 	
 	/**
@@ -305,9 +691,133 @@ public class Grid implements Iterable<Piece> {
 	 */
 	public boolean doMove(Piece piece)
 	{
-		return doMoveInternal(piece, emptySpacePosition);
+		return doMoveInternal(piece);
 	}
 
+	/**
+	 * Gets the moves that are legal in the grid's current state. The move with delta 
+	 * {@code d} is legal if bit {@code d.ordinal()} of the mask is set. The mask is 
+	 * obtained from a precomputed table.
+	 * 
+	 * @return the 4-bit mask of legal moves
+	 * @see PositionTable#getMoveMask(int)
+	 */
+	public int legalMoveMask()
+	{
+		return positions.getMoveMask(emptySpaceIndex);
+	}
+	
+	/**
+	 * Moves the piece that the given delta moves into the empty space, if any. 
+	 * 
+	 * @param delta the displacement of the piece to be moved
+	 * @return {@code true} if a piece has been moved, {@code false} if the move is not 
+	 * legal, that is, if no piece is adjacent to the empty space in the opposite direction
+	 * @throws IllegalArgumentException if the delta is {@code null}
+	 */
+	public boolean applyDelta(Move.Delta delta)
+	{
+		if(delta == null)
+			throw new IllegalArgumentException();
+		
+		final int origin = positions.getMoveOrigin(emptySpaceIndex, delta);
+		if(origin == PositionTable.NONE)
+			return false;
+		
+		moveToEmptySpace(origin);
+		return true;
+	}
+	
+	/**
+	 * Slides the pieces between the given position and the grid's empty space (inclusive) 
+	 * one step towards the empty space, which ends up at the given position. The position
+	 * must therefore be in the same row or column as the empty space. Pieces are moved 
+	 * in a single pass, starting with the one adjacent to the empty space.
+	 * 
+	 * @param position the position of the farthest piece to be moved
+	 * @return the description of the slide, or {@code null} if no piece has been moved, 
+	 * that is, if the position is not aligned with the empty space or is the empty space
+	 * @throws IllegalArgumentException if the position is not within the grid's bounds
+	 */
+	public Slide slideLine(Position position)
+	{
+		if(!isPositionWithinBounds(position))
+			throw new IllegalArgumentException();
+		
+		final int size = positions.getSize();
+		final int dX = emptySpaceIndex % size - position.X, dY = emptySpaceIndex / size - position.Y;
+		if((dX != 0) == (dY != 0))
+			return null;
+		
+		final int count = Math.abs(dX + dY);
+		final Move.Delta delta = Move.Delta.getInstanceFromCoordinates(Integer.signum(dX), Integer.signum(dY));
+		final Move.Delta reverse = delta.getReverse();
+		for(int idx = 0; idx < count; ++idx)
+			moveToEmptySpace(positions.getNeighbor(emptySpaceIndex, reverse));
+		
+		return new Slide(position, delta, count);
+	}
+	
+	/**
+	 * Checks if the instance is equivalent to the given one.
+	 * Two grid instances are equivalent if they have the same size and their pieces
+	 * are at the same positions. Grids are mutable: equivalence may change on each move.
+	 * 
+	 * @param other the other instance to use in the equivalence check
+	 * @return {@code true} if the current instance is equivalent to the given one,
+	 * {@code false} otherwise 
+	 */
+	@Override
+	public boolean equals(Object other)
+	{
+		if(this == other)
+			return true;
+		
+		if(!(other instanceof Grid))
+			return false;
+		
+		Grid otherGrid = (Grid) other;
+		return zobristHash == otherGrid.zobristHash && board.equals(otherGrid.board);
+	}
+	
+	/**
+	 * {@see java.lang.Object#hashCode}
+	 */
+	@Override
+	public int hashCode()
+	{
+		return (int) (zobristHash ^ (zobristHash >>> 32));
+	}
+	
+	/**
+	 * Delivers the grid's tiles to the given consumer, in position order. The empty space
+	 * is included, as {@link Board#EMPTY}. The traversal produces no piece instances.
+	 * 
+	 * @param action the consumer of the tiles
+	 * @throws IllegalArgumentException if the consumer is {@code null}
+	 */
+	public void forEachTile(IntTileConsumer action)
+	{
+		if(action == null)
+			throw new IllegalArgumentException();
+		
+		final int cellCount = board.getCellCount();
+		for(int index = 0; index < cellCount; ++index)
+			action.accept(index, board.get(index));
+	}
+	
+	/**
+	 * Gets a splittable traversal of the grid's tiles, which enables scanning large grids
+	 * in parallel. The grid must not be changed while the traversal is used.
+	 * 
+	 * @return the traversal of all of the grid's positions
+	 * @see #forEachTile(IntTileConsumer)
+	 */
+	public TileSpliterator tileSpliterator()
+	{
+		return new TileSpliterator(board, 0, board.getCellCount());
+	}
+	
 	/**
 	 * Gets an iterator for the grid's pieces. The empty space is not included
 	 * in the iterated sequence.
@@ -319,14 +829,13 @@ public class Grid implements Iterable<Piece> {
 	{
 		return new Iterator<Piece>() {
 
-			private final int emptyIndex = emptySpacePosition.X + size * emptySpacePosition.Y;
-			private final int SIZE = size * size;
-			private int current = emptyIndex == 0 ? 1 : 0;
+			private final int SIZE = board.getCellCount();
+			private int current = emptySpaceIndex == 0 ? 1 : 0;
 			
 			@Override
 			public boolean hasNext() 
 			{
-				return current != SIZE;
+				return current < SIZE;
 			}
 
 			@Override
@@ -336,10 +845,10 @@ public class Grid implements Iterable<Piece> {
 					throw new NoSuchElementException();
 				
 				int idx = current++;
-				if(current == emptyIndex)
+				if(current == emptySpaceIndex)
 					current += 1;
 				
-				return grid[idx / size][idx % size];
+				return getPiece(board.get(idx));
 			}
 
 			@Override
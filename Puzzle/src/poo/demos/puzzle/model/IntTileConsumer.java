@@ -0,0 +1,17 @@
+package poo.demos.puzzle.model;
+
+/**
+ * Contract to be supported by consumers of a puzzle's tiles. Each tile is received as a
+ * pair of primitive values, which means that traversals produce no piece instances.
+ */
+public interface IntTileConsumer {
+
+	/**
+	 * Consumes the tile at the given position.
+	 *
+	 * @param index The index of the position, that is, {@code y * size + x}
+	 * @param tile The identifier of the tile, which belongs at the position with index
+	 * {@code tile - 1}, or {@link Board#EMPTY} if the position is empty
+	 */
+	public void accept(int index, int tile);
+}
@@ -17,6 +17,34 @@ public class Move {
 		 */
 		STEP_DOWN(0,1), STEP_UP(0,-1), STEP_RIGHT(1,0), STEP_LEFT(-1,0); 
 		
+		/**
+		 * Holds the enumeration instances, thus preventing the array copy produced 
+		 * by each call to {@code values()}.
+		 */
+		private static final Delta[] VALUES = values();
+		
+		/**
+		 * Holds the reverse of each instance, indexed by ordinal.
+		 */
+		private static final Delta[] REVERSES = new Delta[VALUES.length];
+		
+		/**
+		 * Holds the instances indexed by their coordinates' variation, that is, 
+		 * by {@code (Y + 1) * 3 + (X + 1)}. Positions that correspond to no instance
+		 * hold {@code null}.
+		 */
+		private static final Delta[] FROM_COORDINATES = new Delta[3 * 3];
+		
+		static {
+			for(Delta delta : VALUES)
+			{
+				// A bit of arithmetic incantation which is compromised with the 
+				// order of the declaration of the enum's instances.
+				REVERSES[delta.ordinal()] = VALUES[(Math.abs(delta.X) * 2) + (delta.X + delta.Y + 1) / 2];
+				FROM_COORDINATES[(delta.Y + 1) * 3 + delta.X + 1] = delta;
+			}
+		}
+		
 		/**
 		 * The horizontal delta
 		 */
@@ -47,21 +75,15 @@ public class Move {
 		 */
 		public Delta getReverse()
 		{
-			Delta[] values = values();
-			// A bit of arithmetic incantation which is compromised with the 
-			// order of the declaration of the enum's instances.
-			int reverseIndex = (Math.abs(X) * 2) + (X + Y + 1) / 2;
-			return values[reverseIndex];
+			return REVERSES[ordinal()];
 		}
 		
 		/**
 		 * Gets the instance that represents the given coordinates' variation, 
 		 * or null if none exists.
 		 * 
-		 * Note that the implementation does not ensure that a {@code null} value 
-		 * is always returned for invalid coordinates (a best effort approach).
-		 * It is the responsibility of the call site to ensure that the coordinates 
-		 * are within the represented range.
+		 * The instance is obtained from a precomputed table: {@code null} is returned 
+		 * for any coordinates that do not represent a single step.
 		 * 
 		 * @param dX The horizontal variation
 		 * @param dY The vertical variation
@@ -69,9 +91,8 @@ public class Move {
 		 */
 		public static Delta getInstanceFromCoordinates(int dX, int dY)
 		{
-			if(Math.abs(dX + dY) != 1) return null;
-			int index = Math.abs(dX) * 2 + Math.abs((dX + dY) - 1) / 2;
-			return index < 0 || index >= values().length ? null : values()[index];
+			if(dX < -1 || dX > 1 || dY < -1 || dY > 1) return null;
+			return FROM_COORDINATES[(dY + 1) * 3 + dX + 1];
 		}
 	}
 	
@@ -112,16 +133,25 @@ public class Move {
 		return new Move(delta.getReverse(), this.target);
 	}
 
+	/**
+	 * Gets the instance's hash code, which depends only on the move's delta and on the 
+	 * target's initial position. Moves of live pieces (e.g. the grid's flyweight moves) 
+	 * therefore keep their hash code as the pieces are moved.
+	 * 
+	 * @return the hash code
+	 */
 	@Override
 	public int hashCode() 
 	{
-		return this.toString().hashCode();
+		return 31 * delta.ordinal() + target.getInitialPosition().hashCode();
 	}
 
 	/**
 	 * Checks if the instance is equivalent to the given one.
 	 * Two move instances are equivalent if their delta is equivalent and 
-	 * they refer to the same piece instance.  
+	 * they refer to the same piece instance or to equivalent pieces (see 
+	 * {@link Piece#equals(Object)}). Moves of the same live piece are therefore 
+	 * equivalent regardless of the piece's moves.
 	 * 
 	 * @param other the other instance to use in the equivalence check
 	 * @return {@code true} if the current instance is equivalent to the given one,
@@ -137,7 +167,8 @@ public class Move {
 		if(this == other)
 			return true;
 		
-		return this.delta.equals(otherPiece.delta) && this.target == otherPiece.target;
+		return this.delta.equals(otherPiece.delta) 
+				&& (this.target == otherPiece.target || this.target.equals(otherPiece.target));
 	}
 
 	@Override
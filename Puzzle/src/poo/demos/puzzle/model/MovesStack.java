@@ -1,77 +1,474 @@
 package poo.demos.puzzle.model;
 
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
 
 /**
  * Class whose instances represent the moves made so far in the game.
- * The stack is implemented as a linked list.
+ *
+ * Stacks created with no grid hold the pushed instances themselves, which are produced
+ * as they were pushed. Stacks may instead be bound to the grid whose moves are recorded.
+ * The moved piece is always the one next to the empty space, which means that each move
+ * is then entirely described by its {@link Move.Delta}. Those stacks are implemented as
+ * a growable array of 2-bit codes (i.e. the deltas' ordinals), packed in {@code long}
+ * values, and the moves' pieces are obtained from the grid. Consequently, bound stacks
+ * must reflect the grid's state: moves are pushed after being done, and popped moves are
+ * to be undone before the stack is used again.
+ *
+ * Bound stacks may also be bounded, in which case the array is used as a ring buffer and
+ * the oldest moves are discarded once the capacity is reached. Popped moves are kept in a
+ * redo stack until a different move is pushed. The moves produced by bound stacks are the
+ * grid's flyweight moves (see {@link Grid#getMove(Position, Move.Delta)}), whose targets
+ * are the actual pieces, which means that their production does not require allocation.
  */
-public class MovesStack {
+public class MovesStack implements Iterable<Move> {
 
-	private final LinkedList<Move> container = new LinkedList<Move>();
-	
 	/**
-	 * Pushes the given element to the top of the stack.
-	 * 
+	 * The number of move codes held by each element of the arrays.
+	 */
+	private static final int CODES_PER_WORD = Long.SIZE / 2;
+
+	/**
+	 * The initial length of the arrays.
+	 */
+	private static final int INITIAL_WORDS = 2;
+
+	/**
+	 * Holds the enumeration instances, indexed by their codes.
+	 */
+	private static final Move.Delta[] DELTAS = Move.Delta.values();
+
+	/**
+	 * The grid whose moves are recorded, or {@code null} if the stack holds the pushed
+	 * instances.
+	 */
+	private final Grid grid;
+
+	/**
+	 * The maximum number of recorded moves.
+	 */
+	private final int capacity;
+
+	/**
+	 * Holds the codes of the recorded moves, from {@link #first} onwards (wrapping around).
+	 */
+	private long[] codes = new long[INITIAL_WORDS];
+
+	/**
+	 * The slot of the oldest recorded move.
+	 */
+	private int first;
+
+	/**
+	 * The number of recorded moves.
+	 */
+	private int size;
+
+	/**
+	 * Holds the codes of the popped moves, the most recent one last.
+	 */
+	private long[] redoCodes = new long[INITIAL_WORDS];
+
+	/**
+	 * The number of popped moves that can be redone.
+	 */
+	private int redoSize;
+
+	/**
+	 * Holds the pushed instances, the most recent one last, if the stack is not bound to
+	 * a grid.
+	 */
+	private Move[] elements;
+
+	/**
+	 * Holds the popped instances, the most recent one last, if the stack is not bound to
+	 * a grid.
+	 */
+	private Move[] redoElements;
+
+	/**
+	 * The index of the empty space once the moves popped so far are undone, if the stack
+	 * is bound to a grid.
+	 */
+	private int emptySpaceIndex;
+
+	/**
+	 * Initiates an unbounded stack that holds the pushed instances, regardless of the
+	 * grid where the moves are done.
+	 */
+	public MovesStack()
+	{
+		grid = null;
+		capacity = Integer.MAX_VALUE;
+		elements = new Move[INITIAL_WORDS * CODES_PER_WORD];
+		redoElements = new Move[INITIAL_WORDS * CODES_PER_WORD];
+	}
+
+	/**
+	 * Initiates an unbounded stack for the moves of the given grid.
+	 *
+	 * @param grid The grid whose moves are to be recorded
+	 * @throws IllegalArgumentException if the {@code grid} argument is {@code null}
+	 */
+	public MovesStack(Grid grid)
+	{
+		this(grid, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Initiates a stack for the moves of the given grid, that keeps the given number of
+	 * moves, at most. Once the capacity is reached, each push discards the oldest move.
+	 *
+	 * @param grid The grid whose moves are to be recorded
+	 * @param capacity The maximum number of moves
+	 * @throws IllegalArgumentException if the {@code grid} argument is {@code null}, or if
+	 * the capacity is not positive
+	 */
+	public MovesStack(Grid grid, int capacity)
+	{
+		if(grid == null || capacity <= 0)
+			throw new IllegalArgumentException();
+
+		this.grid = grid;
+		this.capacity = capacity;
+		emptySpaceIndex = grid.getEmptySpaceIndex();
+	}
+
+	/**
+	 * Helper method that gets the code stored at the given slot.
+	 *
+	 * @param words The array that holds the codes
+	 * @param slot The slot index
+	 * @return The code
+	 */
+	private static int getCode(long[] words, int slot)
+	{
+		return (int) (words[slot / CODES_PER_WORD] >>> ((slot % CODES_PER_WORD) << 1)) & 0x3;
+	}
+
+	/**
+	 * Helper method that stores the given code at the given slot.
+	 *
+	 * @param words The array that holds the codes
+	 * @param slot The slot index
+	 * @param code The code
+	 */
+	private static void setCode(long[] words, int slot, int code)
+	{
+		final int word = slot / CODES_PER_WORD, shift = (slot % CODES_PER_WORD) << 1;
+		words[word] = (words[word] & ~(0x3L << shift)) | ((long) code << shift);
+	}
+
+	/**
+	 * Helper method that gets the slot of the recorded move with the given age.
+	 *
+	 * @param position The move's position, where {@code 0} is the oldest recorded move
+	 * @return The slot index
+	 */
+	private int slotOf(int position)
+	{
+		return (int) (((long) first + position) % ((long) codes.length * CODES_PER_WORD));
+	}
+
+	/**
+	 * Helper method that produces a larger copy of the given array, if it is full.
+	 *
+	 * @param words The array that holds the codes
+	 * @param count The number of stored codes
+	 * @return The array where the next code is to be stored
+	 */
+	private long[] ensureRoom(long[] words, int count)
+	{
+		if(count < (long) words.length * CODES_PER_WORD)
+			return words;
+
+		final int maxWords = (capacity - 1) / CODES_PER_WORD + 1;
+		return Arrays.copyOf(words, (int) Math.min((long) words.length * 2, maxWords));
+	}
+
+	/**
+	 * Helper method that checks if the stack's grid reflects the stack's state, i.e. if
+	 * the moves popped so far have been undone.
+	 *
+	 * @throws IllegalStateException if the grid does not reflect the stack's state
+	 */
+	private void checkGridState()
+	{
+		if(grid.getEmptySpaceIndex() != emptySpaceIndex)
+			throw new IllegalStateException();
+	}
+
+	/**
+	 * Helper method that produces the move with the given code, assuming that it has
+	 * already been done.
+	 *
+	 * @param code The move's code
+	 * @return The move instance
+	 */
+	private Move decodeDoneMove(int code)
+	{
+		final Move.Delta delta = DELTAS[code];
+		final int origin = grid.getPositionTable().getNeighbor(emptySpaceIndex, delta);
+		return grid.getTileMove(grid.getBoard().get(origin), delta);
+	}
+
+	/**
+	 * Helper method that produces a larger copy of the given array, if it is full.
+	 *
+	 * @param moves The array that holds the instances
+	 * @param count The number of stored instances
+	 * @return The array where the next instance is to be stored
+	 */
+	private static Move[] ensureRoom(Move[] moves, int count)
+	{
+		return count < moves.length ? moves : Arrays.copyOf(moves, moves.length * 2);
+	}
+
+	/**
+	 * Pushes the given element to the top of the stack. If the stack is bound to a grid,
+	 * the move is expected to have been done in the grid.
+	 *
 	 * @param move The element to add at the top of the stack
-	 * @throws IllegalArgumentException if the {@code move} argument is {@code null}
+	 * @throws IllegalArgumentException if the {@code move} argument is {@code null}, or if
+	 * its delta could not have produced the grid's current state
 	 */
 	public void push(Move move)
 	{
 		if(move == null)
 			throw new IllegalArgumentException();
 
-		container.addFirst(move);
+		if(grid == null)
+		{
+			// Redoing a move preserves the remaining ones; any other move discards them
+			if(redoSize != 0 && redoElements[redoSize - 1].equals(move))
+				redoElements[--redoSize] = null;
+			else
+				clearRedoElements();
+			elements = ensureRoom(elements, size);
+			elements[size++] = move;
+			return;
+		}
+
+		final PositionTable positions = grid.getPositionTable();
+		if(positions.getNeighbor(grid.getEmptySpaceIndex(), move.delta) == PositionTable.NONE)
+			throw new IllegalArgumentException();
+
+		final int code = move.delta.ordinal();
+		// Redoing a move preserves the remaining ones; any other move discards them
+		if(redoSize != 0 && getCode(redoCodes, redoSize - 1) == code)
+			redoSize -= 1;
+		else
+			redoSize = 0;
+
+		if(size == capacity)
+		{
+			first = slotOf(1);
+			size -= 1;
+		}
+		else
+			codes = ensureRoom(codes, size);
+
+		setCode(codes, slotOf(size), code);
+		size += 1;
+		emptySpaceIndex = grid.getEmptySpaceIndex();
+	}
+
+	/**
+	 * Helper method that discards the popped instances, if the stack is not bound to a grid.
+	 */
+	private void clearRedoElements()
+	{
+		Arrays.fill(redoElements, 0, redoSize, null);
+		redoSize = 0;
 	}
-	
+
 	/**
-	 * Removes the element currently at the top of the stack.
-	 * 
+	 * Removes the element currently at the top of the stack. The removed element can
+	 * be redone (see {@link #getRedoMove()}) once it has been undone in the stack's grid,
+	 * if any.
+	 *
 	 * @return The removed element
-	 * @throws IllegalStateException if the stack is empty
+	 * @throws IllegalStateException if the stack is empty, or if it is bound to a grid
+	 * where the previously popped move has not been undone
 	 */
 	public Move pop()
 	{
 		if(isEmpty())
 			throw new IllegalStateException();
 
-		return container.removeFirst();
+		if(grid == null)
+		{
+			final Move move = elements[--size];
+			elements[size] = null;
+			redoElements = ensureRoom(redoElements, redoSize);
+			redoElements[redoSize++] = move;
+			return move;
+		}
+
+		checkGridState();
+		final int code = getCode(codes, slotOf(size - 1));
+		final Move move = decodeDoneMove(code);
+		emptySpaceIndex = grid.getPositionTable().getNeighbor(emptySpaceIndex, move.delta);
+		size -= 1;
+		if(size == 0)
+			first = 0;
+
+		redoCodes = ensureRoom(redoCodes, redoSize);
+		setCode(redoCodes, redoSize++, code);
+		return move;
 	}
-	
+
 	/**
 	 * Gets the element currently at the top of the stack, or null if none exists.
-	 * 
-	 * @return The element at the top of the stack, or {@code null} if the stack 
+	 *
+	 * @return The element at the top of the stack, or {@code null} if the stack
 	 * is empty
+	 * @throws IllegalStateException if the stack is bound to a grid where the previously
+	 * popped move has not been undone
 	 */
 	public Move top()
 	{
-		return !container.isEmpty() ? container.getFirst() : null;
+		if(isEmpty())
+			return null;
+		if(grid == null)
+			return elements[size - 1];
+
+		checkGridState();
+		return decodeDoneMove(getCode(codes, slotOf(size - 1)));
+	}
+
+	/**
+	 * Gets the move that redoes the most recently popped element, or null if none exists.
+	 * Once done in the stack's grid, the move is to be pushed, as any other move. Stacks
+	 * that are not bound to a grid produce the popped instance.
+	 *
+	 * @return The move to be redone, or {@code null} if no popped moves remain
+	 * @throws IllegalStateException if the stack is bound to a grid where the previously
+	 * popped move has not been undone
+	 */
+	public Move getRedoMove()
+	{
+		if(redoSize == 0)
+			return null;
+		if(grid == null)
+			return redoElements[redoSize - 1];
+
+		checkGridState();
+		final Move.Delta delta = DELTAS[getCode(redoCodes, redoSize - 1)];
+		final int origin = grid.getPositionTable().getNeighbor(emptySpaceIndex, delta.getReverse());
+		return grid.getTileMove(grid.getBoard().get(origin), delta);
+	}
+
+	/**
+	 * Gets the number of popped moves that can be redone.
+	 *
+	 * @return the number of elements stored in the redo stack
+	 */
+	public int getRedoSize()
+	{
+		return redoSize;
 	}
 
 	/**
 	 * Gets a boolean value indicating whether the stack is empty.
-	 * 
-	 * @return {@code true} if the stack is empty, {@code false} otherwise 
+	 *
+	 * @return {@code true} if the stack is empty, {@code false} otherwise
 	 */
 	public boolean isEmpty()
 	{
-		return container.isEmpty();
+		return size == 0;
 	}
-	
+
 	/**
 	 * Gets the current number of elements.
-	 * 
+	 *
 	 * @return the number of elements stored in the stack
 	 */
 	public int getSize()
 	{
-		return container.size();
+		return size;
+	}
+
+	/**
+	 * Gets the maximum number of elements.
+	 *
+	 * @return the stack's capacity, which is {@link Integer#MAX_VALUE} for unbounded stacks
+	 */
+	public int getCapacity()
+	{
+		return capacity;
 	}
-	
+
+	/**
+	 * Gets an iterator for the stack's elements, from the top to the bottom of the stack.
+	 * If the stack is bound to a grid, the iterator works on a copy of the grid's state,
+	 * taken when the iterator is created.
+	 *
+	 * @return the iterator for the stack's elements
+	 * @throws IllegalStateException if the stack is bound to a grid where the previously
+	 * popped move has not been undone
+	 */
+	@Override
 	public Iterator<Move> iterator()
 	{
-		return container.iterator();
+		if(grid == null)
+		{
+			final List<Move> moves = Arrays.asList(elements).subList(0, size);
+			return new Iterator<Move>() {
+
+				private final ListIterator<Move> iterator = moves.listIterator(moves.size());
+
+				@Override
+				public boolean hasNext()
+				{
+					return iterator.hasPrevious();
+				}
+
+				@Override
+				public Move next()
+				{
+					return iterator.previous();
+				}
+
+				@Override
+				public void remove() { throw new UnsupportedOperationException(); }
+			};
+		}
+
+		checkGridState();
+		return new Iterator<Move>() {
+
+			private final Board board = grid.toBoard();
+			private final PositionTable positions = grid.getPositionTable();
+			private int emptySpaceIndex = grid.getEmptySpaceIndex();
+			private int remaining = size;
+
+			@Override
+			public boolean hasNext()
+			{
+				return remaining != 0;
+			}
+
+			@Override
+			public Move next()
+			{
+				if(!hasNext())
+					throw new NoSuchElementException();
+
+				// Undoes each move on the copy, to find the piece moved by the previous one
+				final Move.Delta delta = DELTAS[getCode(codes, slotOf(--remaining))];
+				final int origin = positions.getNeighbor(emptySpaceIndex, delta);
+				final Move move = grid.getTileMove(board.get(origin), delta);
+				board.move(origin, emptySpaceIndex);
+				emptySpaceIndex = origin;
+				return move;
+			}
+
+			@Override
+			public void remove() { throw new UnsupportedOperationException(); }
+		};
 	}
 }
@@ -60,7 +60,7 @@ public abstract class Piece {
 	@Override
 	public int hashCode() 
 	{
-		return this.toString().hashCode();
+		return 31 * getInitialPosition().hashCode() + getPosition().hashCode();
 	}
 
 	/**
@@ -4,10 +4,32 @@ package poo.demos.puzzle.model;
  * Class whose immutable instances represent puzzle's positions. Coordinates are
  * expressed as rectangular coordinates that must always have non-negative values.
  * 
- *	TODO: Consider the possibility of implementing a cache... 
+ * Instances are interned: {@link #fromCoordinates(int, int)} always produces the same 
+ * instance for the same coordinates (as long as they are below {@link #INTERNING_LIMIT}), 
+ * which means that identity comparison is valid and that no allocation takes place once 
+ * a position has been requested for the first time.
  */
 public class Position {
 	
+	/**
+	 * The upper bound (exclusive) of the coordinates of interned instances. 
+	 * Positions beyond this limit are produced on each request.
+	 */
+	public static final int INTERNING_LIMIT = 4096;
+	
+	/**
+	 * Holds the interned instances, indexed by their vertical and horizontal coordinates.
+	 * Rows are lazily created and grown, always while holding the {@link #cacheLock}. 
+	 * Readers access it without synchronization: because instances are immutable, 
+	 * a stale read only means that the slow path is taken.
+	 */
+	private static volatile Position[][] cache = new Position[0][];
+	
+	/**
+	 * The lock used to serialize updates to the cache.
+	 */
+	private static final Object cacheLock = new Object();
+	
 	/**
 	 * The horizontal coordinate.
 	 */
@@ -37,7 +59,7 @@ public class Position {
 	@Override
 	public int hashCode() 
 	{
-		return this.toString().hashCode();
+		return 31 * X + Y;
 	}
 
 	/**
@@ -51,13 +73,13 @@ public class Position {
 	@Override
 	public boolean equals(Object other) 
 	{
+		if(this == other)
+			return true;
+		
 		if(!(other instanceof Position))
 			return false;
 		
 		Position otherPosition = (Position) other;
-		if(this == other)
-			return true;
-		
 		return this.X == otherPosition.X && this.Y == otherPosition.Y;
 	}
 
@@ -68,7 +90,47 @@ public class Position {
 	}
 	
 	/**
-	 * Produces an instance with the given coordinates.
+	 * Helper method that produces the interned instance with the given coordinates, 
+	 * creating it if it does not yet exist. 
+	 * 
+	 * @param x The horizontal coordinate, which must be within {@code [0, INTERNING_LIMIT[}
+	 * @param y The vertical coordinate, which must be within {@code [0, INTERNING_LIMIT[}
+	 * @return The interned instance
+	 */
+	private static Position intern(int x, int y)
+	{
+		synchronized(cacheLock)
+		{
+			Position[][] rows = cache;
+			if(y >= rows.length)
+			{
+				Position[][] grownRows = new Position[Math.min(Math.max(y + 1, rows.length * 2), INTERNING_LIMIT)][];
+				System.arraycopy(rows, 0, grownRows, 0, rows.length);
+				rows = grownRows;
+			}
+			
+			Position[] row = rows[y];
+			if(row == null || x >= row.length)
+			{
+				int currentLength = row == null ? 0 : row.length;
+				Position[] grownRow = new Position[Math.min(Math.max(x + 1, currentLength * 2), INTERNING_LIMIT)];
+				if(row != null)
+					System.arraycopy(row, 0, grownRow, 0, row.length);
+				rows[y] = row = grownRow;
+			}
+			
+			if(row[x] == null)
+				row[x] = new Position(x, y);
+			
+			cache = rows;
+			return row[x];
+		}
+	}
+	
+	/**
+	 * Produces an instance with the given coordinates. Instances whose coordinates are 
+	 * below {@link #INTERNING_LIMIT} are interned, and therefore the same instance is 
+	 * returned for the same coordinates.
 	 * 
 	 * @param x The horizontal coordinate
 	 * @param y The vertical coordinate
@@ -76,6 +138,21 @@ public class Position {
 	 */
 	public static Position fromCoordinates(int x, int y)
 	{
-		return new Position(x, y);
+		if(x < 0 || y < 0)
+			throw new IllegalArgumentException();
+		
+		if(x >= INTERNING_LIMIT || y >= INTERNING_LIMIT)
+			return new Position(x, y);
+		
+		// Fast path: the instance has already been interned
+		Position[][] rows = cache;
+		if(y < rows.length)
+		{
+			Position[] row = rows[y];
+			if(row != null && x < row.length && row[x] != null)
+				return row[x];
+		}
+		
+		return intern(x, y);
 	}
 }
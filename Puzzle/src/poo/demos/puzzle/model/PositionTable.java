@@ -0,0 +1,328 @@
+package poo.demos.puzzle.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class whose instances hold the precomputed geometry of a square grid with a given size.
+ *
+ * Grid positions are identified by their index, that is, {@code y * size + x}. For each
+ * index, the table provides the corresponding (interned) {@link Position} instance, its
+ * adjacent positions and the Manhattan distance to any other position. Instances are
+ * immutable and shared by all grids of the same size: they are obtained through
+ * {@link #forSize(int)}.
+ *
+ * Implementation note: The adjacency and distance tables are only materialized for
+ * grids up to a given number of positions. For larger grids, the corresponding values
+ * are computed on each request, thereby keeping the memory footprint proportional to
+ * the number of grid positions.
+ */
+public final class PositionTable {
+
+	/**
+	 * Value used to signal the absence of a position index (e.g. a non existing neighbor).
+	 */
+	public static final int NONE = -1;
+
+	/**
+	 * The number of existing directions, that is, the number of {@link Move.Delta} instances.
+	 */
+	private static final int DIRECTIONS = Move.Delta.values().length;
+
+	/**
+	 * The maximum number of positions for which the adjacency table is materialized.
+	 */
+	private static final int NEIGHBORS_TABLE_LIMIT = 256 * 256;
+
+	/**
+	 * The maximum number of positions for which the distance table is materialized.
+	 */
+	private static final int DISTANCES_TABLE_LIMIT = 16 * 16;
+
+	/**
+	 * Holds the tables already produced, indexed by grid size.
+	 */
+	private static final Map<Integer, PositionTable> tables = new HashMap<Integer, PositionTable>();
+
+	/**
+	 * The grid's size (i.e. the number of positions in each side).
+	 */
+	private final int size;
+
+	/**
+	 * The total number of positions of the grid.
+	 */
+	private final int cellCount;
+
+	/**
+	 * Holds the index of each position's neighbors, or {@link #NONE} if the neighbor does
+	 * not exist. The neighbor of the position at index {@code i} in the direction {@code d}
+	 * is stored at {@code i * DIRECTIONS + d.ordinal()}. Holds {@code null} if the table
+	 * is not materialized.
+	 */
+	private final int[] neighbors;
+
+	/**
+	 * Holds the legal moves for each position of the empty space, as computed by
+	 * {@link #computeMoveMask(int)}. Holds {@code null} if the table is not materialized
+	 * (i.e. if the adjacency table is not materialized either).
+	 */
+	private final byte[] moveMasks;
+
+	/**
+	 * Holds the Manhattan distance between each pair of positions. The distance between
+	 * the positions at indexes {@code i} and {@code j} is stored at {@code i * cellCount + j}.
+	 * Holds {@code null} if the table is not materialized.
+	 */
+	private final byte[] distances;
+
+	/**
+	 * Helper method that computes the index of the neighbor of the given position, in the
+	 * given direction.
+	 *
+	 * @param index The position index
+	 * @param delta The direction
+	 * @return The neighbor's index, or {@link #NONE} if it does not exist
+	 */
+	private int computeNeighbor(int index, Move.Delta delta)
+	{
+		int x = index % size + delta.X, y = index / size + delta.Y;
+		return isWithinBounds(x, y) ? y * size + x : NONE;
+	}
+
+	/**
+	 * Helper method that computes the legal moves when the empty space is at the given position.
+	 *
+	 * @param emptyIndex The index of the empty space's position
+	 * @return The mask of legal moves
+	 * @see #getMoveMask(int)
+	 */
+	private int computeMoveMask(int emptyIndex)
+	{
+		int mask = 0;
+		for(Move.Delta delta : Move.Delta.values())
+			if(getNeighbor(emptyIndex, delta.getReverse()) != NONE)
+				mask |= 1 << delta.ordinal();
+		return mask;
+	}
+
+	/**
+	 * Helper method that computes the Manhattan distance between the two given positions.
+	 *
+	 * @param from The index of one of the positions
+	 * @param to The index of the other position
+	 * @return The distance between both positions
+	 */
+	private int computeDistance(int from, int to)
+	{
+		return Math.abs(from % size - to % size) + Math.abs(from / size - to / size);
+	}
+
+	/**
+	 * Initiates an instance for grids with the given size.
+	 *
+	 * @param size The grid's size
+	 */
+	private PositionTable(int size)
+	{
+		this.size = size;
+		this.cellCount = size * size;
+
+		if(cellCount <= NEIGHBORS_TABLE_LIMIT)
+		{
+			neighbors = new int[cellCount * DIRECTIONS];
+			for(int index = 0; index < cellCount; ++index)
+				for(Move.Delta delta : Move.Delta.values())
+					neighbors[index * DIRECTIONS + delta.ordinal()] = computeNeighbor(index, delta);
+
+			moveMasks = new byte[cellCount];
+			for(int index = 0; index < cellCount; ++index)
+				moveMasks[index] = (byte) computeMoveMask(index);
+		}
+		else
+		{
+			neighbors = null;
+			moveMasks = null;
+		}
+
+		if(cellCount <= DISTANCES_TABLE_LIMIT)
+		{
+			distances = new byte[cellCount * cellCount];
+			for(int from = 0; from < cellCount; ++from)
+				for(int to = 0; to < cellCount; ++to)
+					distances[from * cellCount + to] = (byte) computeDistance(from, to);
+		}
+		else distances = null;
+	}
+
+	/**
+	 * Gets the table for grids with the given size. Tables are produced once per size.
+	 *
+	 * @param size The grid's size
+	 * @return The corresponding table
+	 * @throws IllegalArgumentException if size is less or equal than {@code 0}
+	 */
+	public static PositionTable forSize(int size)
+	{
+		if(size <= 0)
+			throw new IllegalArgumentException();
+
+		synchronized(tables)
+		{
+			PositionTable table = tables.get(size);
+			if(table == null)
+				tables.put(size, table = new PositionTable(size));
+			return table;
+		}
+	}
+
+	/**
+	 * Gets the grid's size.
+	 *
+	 * @return The number of positions in each side of the grid
+	 */
+	public int getSize()
+	{
+		return size;
+	}
+
+	/**
+	 * Gets the total number of positions of the grid.
+	 *
+	 * @return The number of positions
+	 */
+	public int getCellCount()
+	{
+		return cellCount;
+	}
+
+	/**
+	 * Checks if the given coordinates are within the grid's bounds.
+	 *
+	 * @param x The horizontal coordinate
+	 * @param y The vertical coordinate
+	 * @return {@code true} if the coordinates are within bounds, {@code false} otherwise
+	 */
+	public boolean isWithinBounds(int x, int y)
+	{
+		return x >= 0 && x < size && y >= 0 && y < size;
+	}
+
+	/**
+	 * Checks if the given position is within the grid's bounds.
+	 *
+	 * @param position The position to be checked
+	 * @return {@code true} if the position is within bounds, {@code false} otherwise
+	 */
+	public boolean isWithinBounds(Position position)
+	{
+		return position.X < size && position.Y < size;
+	}
+
+	/**
+	 * Gets the index of the position with the given coordinates.
+	 *
+	 * @param x The horizontal coordinate
+	 * @param y The vertical coordinate
+	 * @return The position's index
+	 * @throws IllegalArgumentException if the coordinates are not within the grid's bounds
+	 */
+	public int indexOf(int x, int y)
+	{
+		if(!isWithinBounds(x, y))
+			throw new IllegalArgumentException();
+
+		return y * size + x;
+	}
+
+	/**
+	 * Gets the index of the given position.
+	 *
+	 * @param position The position instance
+	 * @return The position's index
+	 * @throws IllegalArgumentException if the position is not within the grid's bounds
+	 */
+	public int indexOf(Position position)
+	{
+		return indexOf(position.X, position.Y);
+	}
+
+	/**
+	 * Gets the (interned) position instance with the given index.
+	 *
+	 * @param index The position index
+	 * @return The corresponding position instance
+	 * @throws IllegalArgumentException if the index is not within the grid's bounds
+	 */
+	public Position getPosition(int index)
+	{
+		if(index < 0 || index >= cellCount)
+			throw new IllegalArgumentException();
+
+		return Position.fromCoordinates(index % size, index / size);
+	}
+
+	/**
+	 * Gets the index of the neighbor of the given position, in the given direction.
+	 *
+	 * @param index The position index
+	 * @param delta The direction
+	 * @return The neighbor's index, or {@link #NONE} if the position has no neighbor
+	 * in that direction (i.e. it is at the grid's border)
+	 */
+	public int getNeighbor(int index, Move.Delta delta)
+	{
+		return neighbors != null ? neighbors[index * DIRECTIONS + delta.ordinal()] : computeNeighbor(index, delta);
+	}
+
+	/**
+	 * Gets the legal moves when the empty space is at the given position. The move with
+	 * delta {@code d} is legal if bit {@code d.ordinal()} of the mask is set, that is, if
+	 * a piece can be moved into the empty space with that displacement.
+	 *
+	 * @param emptyIndex The index of the empty space's position
+	 * @return The 4-bit mask of legal moves
+	 */
+	public int getMoveMask(int emptyIndex)
+	{
+		return moveMasks != null ? moveMasks[emptyIndex] : computeMoveMask(emptyIndex);
+	}
+
+	/**
+	 * Gets the index of the position of the piece that is moved into the empty space by
+	 * the move with the given delta, that is, the successor of the empty space's position.
+	 *
+	 * @param emptyIndex The index of the empty space's position
+	 * @param delta The move's displacement
+	 * @return The moving piece's index, or {@link #NONE} if the move is not legal
+	 */
+	public int getMoveOrigin(int emptyIndex, Move.Delta delta)
+	{
+		return getNeighbor(emptyIndex, delta.getReverse());
+	}
+
+	/**
+	 * Gets the Manhattan distance between the two given positions, that is, the
+	 * number of single steps required to go from one to the other.
+	 *
+	 * @param from The index of one of the positions
+	 * @param to The index of the other position
+	 * @return The distance between both positions
+	 */
+	public int getDistance(int from, int to)
+	{
+		return distances != null ? distances[from * cellCount + to] : computeDistance(from, to);
+	}
+
+	/**
+	 * Checks if the two given positions are adjacent.
+	 *
+	 * @param index The index of one of the positions
+	 * @param other The index of the other position
+	 * @return {@code true} if the positions are adjacent, {@code false} otherwise
+	 */
+	public boolean areAdjacent(int index, int other)
+	{
+		return getDistance(index, other) == 1;
+	}
+}
@@ -34,6 +34,16 @@ public class Puzzle implements Iterable<Piece> {
 		grid = shuffled ? Grid.createRandomPuzzle(side) : Grid.createPuzzle(side);
 	}
 	
+	/**
+	 * Gets the puzzle's grid.
+	 * 
+	 * @return the grid instance
+	 */
+	Grid getGrid()
+	{
+		return grid;
+	}
+	
 	/**
 	 * Gets the piece at the given position. If the position is free,
 	 * the method returns {@code null}.
@@ -49,6 +59,22 @@ public class Puzzle implements Iterable<Piece> {
 		return grid.getPieceAtPosition(position);
 	}
 	
+	/**
+	 * Gets the piece at the given position. If the position is free,
+	 * the method returns {@code null}. The lookup produces no instances.
+	 * 
+	 * @param x the horizontal coordinate value
+	 * @param y the vertical coordinate value
+	 * @return the piece at the given position, or {@code null} if that position 
+	 * is empty
+	 * @throws IllegalArgumentException if the coordinates are not within the 
+	 * grid's bounds 
+	 */
+	public Piece getPieceAtPosition(int x, int y)
+	{
+		return grid.getPieceAtPosition(x, y);
+	}
+	
 	/**
 	 * Gets the position of the puzzle's empty space.
 	 * 
@@ -69,6 +95,95 @@ public class Puzzle implements Iterable<Piece> {
 		return grid.getSize();
 	}
 	
+	/**
+	 * Checks whether the puzzle is solved, that is, whether all pieces are at their
+	 * initial positions.
+	 * 
+	 * @return {@code true} if the puzzle is solved, {@code false} otherwise
+	 */
+	public boolean isSolved()
+	{
+		return grid.isSolved();
+	}
+	
+	/**
+	 * Gets the Manhattan distance between the puzzle and its solved state.
+	 * 
+	 * @return the sum of the distances between each piece's current and initial positions
+	 */
+	public long getManhattanDistance()
+	{
+		return grid.getManhattanDistance();
+	}
+	
+	/**
+	 * Gets the number of pieces that are not at their initial positions.
+	 * 
+	 * @return the number of misplaced pieces
+	 */
+	public int getMisplacedCount()
+	{
+		return grid.getMisplacedCount();
+	}
+	
+	/**
+	 * Gets the Zobrist hash of the puzzle's arrangement.
+	 * 
+	 * @return the 64-bit hash
+	 * @see Grid#getZobristHash()
+	 */
+	public long getZobristHash()
+	{
+		return grid.getZobristHash();
+	}
+	
+	/**
+	 * Produces a copy of the packed representation of the puzzle's pieces.
+	 * 
+	 * @return the board instance, which does not share state with the puzzle
+	 */
+	public Board toBoard()
+	{
+		return grid.toBoard();
+	}
+	
+	/**
+	 * Produces an independent copy of the puzzle, which can be moved without affecting
+	 * the original one.
+	 * 
+	 * @return the new instance
+	 * @see Grid#copy()
+	 */
+	public Puzzle copy()
+	{
+		return new Puzzle(grid.copy());
+	}
+	
+	/**
+	 * Captures the puzzle's current state, which can later be restored by 
+	 * {@link #restoreFrom(Grid.Snapshot)}.
+	 * 
+	 * @return the snapshot instance
+	 * @see Grid#snapshot()
+	 */
+	public Grid.Snapshot snapshot()
+	{
+		return grid.snapshot();
+	}
+	
+	/**
+	 * Restores, in place, the state held by the given snapshot.
+	 * 
+	 * @param snapshot the state to be restored
+	 * @throws IllegalArgumentException if the snapshot is {@code null}, or if it was 
+	 * captured from a puzzle with a different size
+	 * @see Grid#restoreFrom(Grid.Snapshot)
+	 */
+	public void restoreFrom(Grid.Snapshot snapshot)
+	{
+		grid.restoreFrom(snapshot);
+	}
+	
 	/**
 	 * Moves the given piece to the puzzle's empty space, assuming that the piece 
 	 * is adjacent to it.
@@ -82,6 +197,67 @@ public class Puzzle implements Iterable<Piece> {
 		return grid.doMove(piece);
 	}
 	
+	/**
+	 * Gets the moves that are legal in the puzzle's current state. The move with delta 
+	 * {@code d} is legal if bit {@code d.ordinal()} of the mask is set.
+	 * 
+	 * @return the 4-bit mask of legal moves
+	 */
+	public int legalMoveMask()
+	{
+		return grid.legalMoveMask();
+	}
+	
+	/**
+	 * Moves the piece that the given delta moves into the empty space, if any. 
+	 * 
+	 * @param delta the displacement of the piece to be moved
+	 * @return {@code true} if a piece has been moved, {@code false} if the move is not legal
+	 * @throws IllegalArgumentException if the delta is {@code null}
+	 */
+	public boolean applyDelta(Move.Delta delta)
+	{
+		return grid.applyDelta(delta);
+	}
+	
+	/**
+	 * Slides the pieces between the given position and the puzzle's empty space one step 
+	 * towards the empty space, in a single pass.
+	 * 
+	 * @param position the position of the farthest piece to be moved
+	 * @return the description of the slide, or {@code null} if the position is not 
+	 * aligned with the empty space or is the empty space
+	 * @throws IllegalArgumentException if the position is not within the puzzle's bounds
+	 * @see Grid#slideLine(Position)
+	 */
+	public Slide slideLine(Position position)
+	{
+		return grid.slideLine(position);
+	}
+	
+	/**
+	 * Delivers the puzzle's tiles to the given consumer, in position order. The empty space
+	 * is included, as {@link Board#EMPTY}. The traversal produces no piece instances.
+	 * 
+	 * @param action the consumer of the tiles
+	 * @throws IllegalArgumentException if the consumer is {@code null}
+	 */
+	public void forEachTile(IntTileConsumer action)
+	{
+		grid.forEachTile(action);
+	}
+	
+	/**
+	 * Gets a splittable traversal of the puzzle's tiles, which enables scanning large 
+	 * puzzles in parallel. The puzzle must not be changed while the traversal is used.
+	 * 
+	 * @return the traversal of all of the puzzle's positions
+	 */
+	public TileSpliterator tileSpliterator()
+	{
+		return grid.tileSpliterator();
+	}
+	
 	/**
 	 * Gets an iterator for the puzzle's pieces. The empty space is not included
 	 * in the iterated sequence.
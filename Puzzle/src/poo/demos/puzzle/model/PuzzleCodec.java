@@ -0,0 +1,349 @@
+package poo.demos.puzzle.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Class that encodes puzzles in a compact binary format, which depends on no platform
+ * specific serialization mechanism, and decodes them.
+ *
+ * An encoded puzzle holds its size, as an {@code int}, followed by its tiles, in position
+ * order, using the smallest of 4, 8, 16 or 32 bits per tile that fits the puzzle's number
+ * of positions. Multi-byte values are stored in big-endian order and 4-bit values are stored
+ * low nibble first. A 4x4 puzzle is therefore encoded in 12 bytes. The tiles' encoding is
+ * also the one of {@link poo.demos.puzzle.model.corpus.CorpusFile} records.
+ *
+ * The number of bits per tile is also the one used by the {@link Board} representation of
+ * the puzzle's tiles, which means that tiles are copied in bulk between buffers and boards.
+ * Decoded boards are adopted by the produced grids, rather than copied. Pieces are identified
+ * by their tiles, which means that decoded puzzles preserve the pieces' initial positions.
+ */
+public final class PuzzleCodec {
+
+	/**
+	 * The size of the encoded puzzles' header, in bytes.
+	 */
+	public static final int HEADER_SIZE = Integer.SIZE / Byte.SIZE;
+
+	/**
+	 * The maximum size of encoded puzzles, which is the largest size whose encoding, with
+	 * 32 bits per tile, fits an array (i.e. its length is an {@code int} value).
+	 */
+	public static final int MAX_SIZE = 23170;
+
+	/**
+	 * Prevents instantiation.
+	 */
+	private PuzzleCodec() { }
+
+	/**
+	 * Helper method that checks if the given size is a valid puzzle size.
+	 *
+	 * @param size The size to be checked
+	 * @throws IllegalArgumentException if the size is less or equal than {@code 1}, or
+	 * greater than {@link #MAX_SIZE}
+	 */
+	private static void checkSize(int size)
+	{
+		if(size <= 1 || size > MAX_SIZE)
+			throw new IllegalArgumentException();
+	}
+
+	/**
+	 * Gets the number of bytes used by the tiles of puzzles with the given size.
+	 *
+	 * @param size The puzzles' size
+	 * @return The size of the encoded tiles, in bytes
+	 * @throws IllegalArgumentException if the size is less or equal than {@code 1}, or
+	 * greater than {@link #MAX_SIZE}
+	 */
+	public static int getTilesSize(int size)
+	{
+		checkSize(size);
+		final int cellCount = size * size;
+		if(cellCount <= Board.MAX_LONG_PACKED_CELLS)
+			return (cellCount + 1) / 2;
+		if(cellCount <= 1 << Byte.SIZE)
+			return cellCount;
+		if(cellCount <= 1 << Short.SIZE)
+			return cellCount * (Short.SIZE / Byte.SIZE);
+		return cellCount * (Integer.SIZE / Byte.SIZE);
+	}
+
+	/**
+	 * Gets the number of bytes used by encoded puzzles with the given size.
+	 *
+	 * @param size The puzzles' size
+	 * @return The size of the encoded puzzles, in bytes
+	 * @throws IllegalArgumentException if the size is less or equal than {@code 1}, or
+	 * greater than {@link #MAX_SIZE}
+	 */
+	public static int getEncodedSize(int size)
+	{
+		return HEADER_SIZE + getTilesSize(size);
+	}
+
+	/**
+	 * Writes the given board's tiles to the given buffer. The buffer's byte order is
+	 * preserved, and no instances are produced for boards up to 16x16.
+	 *
+	 * @param board The board
+	 * @param out The destination buffer, whose position is advanced
+	 * @throws IllegalArgumentException if any argument is {@code null}
+	 * @throws java.nio.BufferOverflowException if the buffer has not enough room
+	 */
+	public static void writeTiles(Board board, ByteBuffer out)
+	{
+		if(board == null || out == null)
+			throw new IllegalArgumentException();
+
+		final ByteOrder order = out.order();
+		out.order(ByteOrder.BIG_ENDIAN);
+		try {
+			board.writeTiles(out);
+		}
+		finally {
+			out.order(order);
+		}
+	}
+
+	/**
+	 * Writes the given grid's tiles to the given buffer.
+	 *
+	 * @param grid The grid
+	 * @param out The destination buffer, whose position is advanced
+	 * @throws IllegalArgumentException if any argument is {@code null}
+	 * @throws java.nio.BufferOverflowException if the buffer has not enough room
+	 * @see #writeTiles(Board, ByteBuffer)
+	 */
+	public static void writeTiles(Grid grid, ByteBuffer out)
+	{
+		if(grid == null)
+			throw new IllegalArgumentException();
+
+		writeTiles(grid.getBoard(), out);
+	}
+
+	/**
+	 * Writes the given grid, encoded, to the given buffer.
+	 *
+	 * @param grid The grid
+	 * @param out The destination buffer, whose position is advanced
+	 * @throws IllegalArgumentException if any argument is {@code null}
+	 * @throws java.nio.BufferOverflowException if the buffer has not enough room
+	 */
+	public static void write(Grid grid, ByteBuffer out)
+	{
+		if(grid == null || out == null)
+			throw new IllegalArgumentException();
+
+		final ByteOrder order = out.order();
+		out.order(ByteOrder.BIG_ENDIAN);
+		try {
+			out.putInt(grid.getSize());
+			grid.getBoard().writeTiles(out);
+		}
+		finally {
+			out.order(order);
+		}
+	}
+
+	/**
+	 * Writes the given grid, encoded, to the given destination.
+	 *
+	 * @param grid The grid
+	 * @param out The destination
+	 * @throws IllegalArgumentException if any argument is {@code null}
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static void write(Grid grid, DataOutput out) throws IOException
+	{
+		if(out == null)
+			throw new IllegalArgumentException();
+
+		out.write(encode(grid));
+	}
+
+	/**
+	 * Produces the encoding of the given grid.
+	 *
+	 * @param grid The grid
+	 * @return The array that holds the encoded grid
+	 * @throws IllegalArgumentException if the grid is {@code null}
+	 */
+	public static byte[] encode(Grid grid)
+	{
+		if(grid == null)
+			throw new IllegalArgumentException();
+
+		final byte[] data = new byte[getEncodedSize(grid.getSize())];
+		write(grid, ByteBuffer.wrap(data));
+		return data;
+	}
+
+	/**
+	 * Produces the encoding of the given puzzle.
+	 *
+	 * @param puzzle The puzzle
+	 * @return The array that holds the encoded puzzle
+	 * @throws IllegalArgumentException if the puzzle is {@code null}
+	 */
+	public static byte[] encode(Puzzle puzzle)
+	{
+		if(puzzle == null)
+			throw new IllegalArgumentException();
+
+		return encode(puzzle.getGrid());
+	}
+
+	/**
+	 * Reads the tiles of a board with the given size from the given buffer.
+	 *
+	 * @param size The board's size
+	 * @param in The source buffer, whose position is advanced
+	 * @return The new board instance
+	 * @throws IllegalArgumentException if the buffer is {@code null}, if the size is not
+	 * valid, or if the buffer holds tiles out of range
+	 * @throws BufferUnderflowException if the buffer holds less tiles than required
+	 */
+	public static Board readBoard(int size, ByteBuffer in)
+	{
+		final Board board = readTiles(size, in);
+		final int cellCount = board.getCellCount();
+		for(int index = 0; index < cellCount; ++index)
+		{
+			final int tile = board.get(index);
+			if(tile < 0 || tile >= cellCount)
+				throw new IllegalArgumentException();
+		}
+		return board;
+	}
+
+	/**
+	 * Reads the tiles of a grid with the given size from the given buffer. The tiles are
+	 * copied in bulk to the new grid's board, which is validated by a single pass over
+	 * the grid's positions.
+	 *
+	 * @param size The grid's size
+	 * @param in The source buffer, whose position is advanced
+	 * @return The new grid instance
+	 * @throws IllegalArgumentException if the buffer is {@code null}, if the size is not
+	 * valid, or if the buffer's tiles are not a valid arrangement of the puzzle's pieces
+	 * @throws BufferUnderflowException if the buffer holds less tiles than required
+	 */
+	public static Grid readGrid(int size, ByteBuffer in)
+	{
+		return Grid.wrap(readTiles(size, in));
+	}
+
+	/**
+	 * Helper method that reads the tiles of a board with the given size from the given
+	 * buffer, without validating them.
+	 *
+	 * @param size The board's size
+	 * @param in The source buffer, whose position is advanced
+	 * @return The new board instance
+	 */
+	private static Board readTiles(int size, ByteBuffer in)
+	{
+		if(in == null)
+			throw new IllegalArgumentException();
+		checkSize(size);
+		if(in.remaining() < getTilesSize(size))
+			throw new BufferUnderflowException();
+
+		final Board board = Board.create(size);
+		final ByteOrder order = in.order();
+		in.order(ByteOrder.BIG_ENDIAN);
+		try {
+			board.readTiles(in);
+		}
+		finally {
+			in.order(order);
+		}
+		return board;
+	}
+
+	/**
+	 * Reads an encoded grid from the given buffer.
+	 *
+	 * @param in The source buffer, whose position is advanced
+	 * @return The new grid instance
+	 * @throws IllegalArgumentException if the buffer is {@code null}, or if its contents
+	 * are not a valid encoded grid
+	 * @throws BufferUnderflowException if the buffer holds less bytes than required
+	 */
+	public static Grid read(ByteBuffer in)
+	{
+		if(in == null)
+			throw new IllegalArgumentException();
+
+		final ByteOrder order = in.order();
+		in.order(ByteOrder.BIG_ENDIAN);
+		final int size;
+		try {
+			size = in.getInt();
+		}
+		finally {
+			in.order(order);
+		}
+		return readGrid(size, in);
+	}
+
+	/**
+	 * Reads an encoded grid from the given source.
+	 *
+	 * @param in The source
+	 * @return The new grid instance
+	 * @throws IllegalArgumentException if the source is {@code null}
+	 * @throws IOException if an I/O error occurs, or if the source's contents are not a
+	 * valid encoded grid
+	 */
+	public static Grid read(DataInput in) throws IOException
+	{
+		if(in == null)
+			throw new IllegalArgumentException();
+
+		final int size = in.readInt();
+		if(size <= 1 || size > MAX_SIZE)
+			throw new IOException("Invalid puzzle size");
+
+		final byte[] tiles = new byte[getTilesSize(size)];
+		in.readFully(tiles);
+		try {
+			return readGrid(size, ByteBuffer.wrap(tiles));
+		}
+		catch(IllegalArgumentException invalidTile)
+		{
+			// Convert exception to convey the correct semantics
+			throw new IOException("Invalid puzzle tiles", invalidTile);
+		}
+	}
+
+	/**
+	 * Produces the grid encoded in the given array.
+	 *
+	 * @param data The array that holds the encoded grid
+	 * @return The new grid instance
+	 * @throws IllegalArgumentException if the array is {@code null}, or if its contents
+	 * are not a valid encoded grid
+	 */
+	public static Grid decode(byte[] data)
+	{
+		if(data == null)
+			throw new IllegalArgumentException();
+
+		try {
+			return read(ByteBuffer.wrap(data));
+		}
+		catch(BufferUnderflowException truncated)
+		{
+			// Convert exception to convey the correct semantics
+			throw new IllegalArgumentException(truncated);
+		}
+	}
+}
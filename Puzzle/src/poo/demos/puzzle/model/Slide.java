@@ -0,0 +1,86 @@
+package poo.demos.puzzle.model;
+
+/**
+ * Class whose instances describe the outcome of sliding a line of pieces towards the 
+ * empty space (see {@link Grid#slideLine(Position)}). A slide of {@code count} pieces 
+ * displaces each of them one step in the same direction, which means that the positions
+ * of every displaced piece are derived from the slide's start, delta and count.
+ * Instances of this class are immutable.
+ */
+public final class Slide {
+	
+	/**
+	 * The position of the piece farthest from the empty space, which is where 
+	 * the empty space is placed by the slide.
+	 */
+	public final Position start;
+	
+	/**
+	 * The displacement of each piece.
+	 */
+	public final Move.Delta delta;
+	
+	/**
+	 * The number of displaced pieces.
+	 */
+	public final int count;
+	
+	/**
+	 * Initiates an instance with the given arguments.
+	 * 
+	 * @param start The position of the piece farthest from the empty space
+	 * @param delta The displacement of each piece
+	 * @param count The number of displaced pieces
+	 * @throws IllegalArgumentException if either reference is {@code null}, or if the 
+	 * number of pieces is not positive
+	 */
+	public Slide(Position start, Move.Delta delta, int count)
+	{
+		if(start == null || delta == null || count <= 0)
+			throw new IllegalArgumentException();
+		
+		this.start = start;
+		this.delta = delta;
+		this.count = count;
+	}
+	
+	/**
+	 * Gets the position of the given displaced piece, before the slide.
+	 * 
+	 * @param order The order in which the piece has been moved, where {@code 0} is the 
+	 * piece that was adjacent to the empty space
+	 * @return The piece's origin
+	 * @throws IllegalArgumentException if the order is not within {@code [0, count[}
+	 */
+	public Position getOrigin(int order)
+	{
+		if(order < 0 || order >= count)
+			throw new IllegalArgumentException();
+		
+		final int steps = count - 1 - order;
+		return Position.fromCoordinates(start.X + steps * delta.X, start.Y + steps * delta.Y);
+	}
+	
+	/**
+	 * Gets the position of the given displaced piece, after the slide.
+	 * 
+	 * @param order The order in which the piece has been moved, where {@code 0} is the 
+	 * piece that was adjacent to the empty space
+	 * @return The piece's destination
+	 * @throws IllegalArgumentException if the order is not within {@code [0, count[}
+	 */
+	public Position getDestination(int order)
+	{
+		if(order < 0 || order >= count)
+			throw new IllegalArgumentException();
+		
+		final int steps = count - order;
+		return Position.fromCoordinates(start.X + steps * delta.X, start.Y + steps * delta.Y);
+	}
+	
+	@Override
+	public String toString() 
+	{
+		return "Slide " + count + " from " + start + " " + delta;
+	}
+}
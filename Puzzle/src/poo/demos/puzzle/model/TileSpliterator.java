@@ -0,0 +1,105 @@
+package poo.demos.puzzle.model;
+
+/**
+ * Class whose instances traverse and partition a range of a puzzle's positions, delivering
+ * their tiles to {@link IntTileConsumer} instances. The contract mirrors the one of Java 8's
+ * {@code java.util.Spliterator.OfInt}, which is not available in the platform versions
+ * targeted by the project: ranges are split in halves by {@link #trySplit()}, and each
+ * half may then be traversed by a different thread (e.g. by fork/join tasks).
+ *
+ * Instances are not thread-safe, and the puzzle must not be changed while they are used.
+ */
+public final class TileSpliterator {
+
+	/**
+	 * The board that holds the traversed tiles.
+	 */
+	private final Board board;
+
+	/**
+	 * The index of the next position to be traversed.
+	 */
+	private int index;
+
+	/**
+	 * The index of the position that follows the range.
+	 */
+	private final int fence;
+
+	/**
+	 * Initiates an instance that traverses the given range of the given board's positions.
+	 *
+	 * @param board The board
+	 * @param origin The index of the first position
+	 * @param fence The index of the position that follows the range
+	 */
+	TileSpliterator(Board board, int origin, int fence)
+	{
+		this.board = board;
+		this.index = origin;
+		this.fence = fence;
+	}
+
+	/**
+	 * Delivers the next tile to the given consumer, if any tile remains.
+	 *
+	 * @param action The consumer
+	 * @return {@code true} if a tile has been delivered, {@code false} otherwise
+	 * @throws IllegalArgumentException if the consumer is {@code null}
+	 */
+	public boolean tryAdvance(IntTileConsumer action)
+	{
+		if(action == null)
+			throw new IllegalArgumentException();
+
+		if(index >= fence)
+			return false;
+
+		final int current = index++;
+		action.accept(current, board.get(current));
+		return true;
+	}
+
+	/**
+	 * Delivers all remaining tiles to the given consumer, in position order.
+	 *
+	 * @param action The consumer
+	 * @throws IllegalArgumentException if the consumer is {@code null}
+	 */
+	public void forEachRemaining(IntTileConsumer action)
+	{
+		if(action == null)
+			throw new IllegalArgumentException();
+
+		final int end = fence;
+		for(int current = index; current < end; ++current)
+			action.accept(current, board.get(current));
+		index = end;
+	}
+
+	/**
+	 * Splits the remaining range in halves. The instance keeps the second half.
+	 *
+	 * @return The instance that traverses the first half, or {@code null} if the
+	 * remaining range is too small to be split
+	 */
+	public TileSpliterator trySplit()
+	{
+		final int origin = index, middle = (origin + fence) >>> 1;
+		if(origin >= middle)
+			return null;
+
+		index = middle;
+		return new TileSpliterator(board, origin, middle);
+	}
+
+	/**
+	 * Gets the number of tiles that remain to be traversed.
+	 *
+	 * @return The number of remaining positions
+	 */
+	public long estimateSize()
+	{
+		return fence - index;
+	}
+}
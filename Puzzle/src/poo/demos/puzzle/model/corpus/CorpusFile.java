@@ -0,0 +1,238 @@
+package poo.demos.puzzle.model.corpus;
+
+import java.io.Closeable;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.PuzzleCodec;
+
+/**
+ * Class whose instances provide random access to the boards stored in corpus files,
+ * as produced by {@link CorpusGenerator#write(File, long)}.
+ *
+ * A corpus file starts with a fixed-size header, which identifies the format and its
+ * version and holds the board size, the size of each record, the number of records, the
+ * seed used to generate them and the offset of the first record. The header is followed
+ * by the records, one per board, all with the same size. The record with index {@code i}
+ * therefore starts at {@code dataOffset + i * recordSize}.
+ *
+ * Each record holds the board's tiles, in position order, using the smallest of 4, 8, 16
+ * or 32 bits per tile that fits the board's number of positions. Multi-byte values are
+ * stored in big-endian order and 4-bit values are stored low nibble first. Records are
+ * therefore encoded and decoded by {@link PuzzleCodec}.
+ */
+public final class CorpusFile implements Closeable {
+
+	/**
+	 * The value that identifies the format ("PCOR").
+	 */
+	private static final int MAGIC = 0x50434F52;
+
+	/**
+	 * The version of the format.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * The size of the header, in bytes, which is also the offset of the first record.
+	 */
+	public static final int HEADER_SIZE = 40;
+
+	/**
+	 * The file.
+	 */
+	private final RandomAccessFile file;
+
+	/**
+	 * The size of the stored boards.
+	 */
+	private final int size;
+
+	/**
+	 * The size of each record, in bytes.
+	 */
+	private final int recordSize;
+
+	/**
+	 * The number of records.
+	 */
+	private final long count;
+
+	/**
+	 * The seed used to generate the records.
+	 */
+	private final long seed;
+
+	/**
+	 * The offset of the first record.
+	 */
+	private final long dataOffset;
+
+	/**
+	 * Holds the bytes of the last read record.
+	 */
+	private final byte[] buffer;
+
+	/**
+	 * Gets the size of the records that hold boards with the given size.
+	 *
+	 * @param size The boards' size
+	 * @return The record size, in bytes
+	 */
+	public static int getRecordSize(int size)
+	{
+		return PuzzleCodec.getTilesSize(size);
+	}
+
+	/**
+	 * Writes the header of a corpus file.
+	 *
+	 * @param out The destination
+	 * @param size The size of the stored boards
+	 * @param count The number of records
+	 * @param seed The seed used to generate the records
+	 * @throws IOException if an I/O error occurs
+	 */
+	static void writeHeader(DataOutput out, int size, long count, long seed) throws IOException
+	{
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(size);
+		out.writeInt(getRecordSize(size));
+		out.writeLong(count);
+		out.writeLong(seed);
+		out.writeLong(HEADER_SIZE);
+	}
+
+	/**
+	 * Produces the board stored in the given buffer.
+	 *
+	 * @param size The board's size
+	 * @param buffer The source buffer
+	 * @param offset The offset of the record in the buffer
+	 * @return The new instance
+	 * @throws IllegalArgumentException if the record holds invalid tiles
+	 */
+	static Board decode(int size, byte[] buffer, int offset)
+	{
+		return PuzzleCodec.readBoard(size, ByteBuffer.wrap(buffer, offset, getRecordSize(size)));
+	}
+
+	/**
+	 * Factory method that opens the given corpus file.
+	 *
+	 * @param file The file
+	 * @return The new instance, which must be closed once no longer needed
+	 * @throws IOException if an I/O error occurs, or if the file's contents are not
+	 * a corpus in a supported format
+	 */
+	public static CorpusFile open(File file) throws IOException
+	{
+		RandomAccessFile source = new RandomAccessFile(file, "r");
+		try {
+			if(source.readInt() != MAGIC)
+				throw new IOException("Not a corpus file");
+			if(source.readInt() != VERSION)
+				throw new IOException("Unsupported corpus file version");
+
+			final int size = source.readInt(), recordSize = source.readInt();
+			final long count = source.readLong(), seed = source.readLong(), dataOffset = source.readLong();
+			if(size <= 1 || size > PuzzleCodec.MAX_SIZE || recordSize != getRecordSize(size) || count < 0 || dataOffset < HEADER_SIZE
+					|| dataOffset > source.length() || count > (source.length() - dataOffset) / recordSize)
+				throw new IOException("Corrupted corpus file");
+
+			return new CorpusFile(source, size, recordSize, count, seed, dataOffset);
+		}
+		catch(IOException error)
+		{
+			source.close();
+			throw error;
+		}
+	}
+
+	/**
+	 * Initiates an instance with the given arguments.
+	 *
+	 * @param file The file, positioned after the header
+	 * @param size The size of the stored boards
+	 * @param recordSize The size of each record, in bytes
+	 * @param count The number of records
+	 * @param seed The seed used to generate the records
+	 * @param dataOffset The offset of the first record
+	 */
+	private CorpusFile(RandomAccessFile file, int size, int recordSize, long count, long seed, long dataOffset)
+	{
+		this.file = file;
+		this.size = size;
+		this.recordSize = recordSize;
+		this.count = count;
+		this.seed = seed;
+		this.dataOffset = dataOffset;
+		buffer = new byte[recordSize];
+	}
+
+	/**
+	 * Gets the size of the stored boards.
+	 *
+	 * @return The boards' size
+	 */
+	public int getSize()
+	{
+		return size;
+	}
+
+	/**
+	 * Gets the number of stored boards.
+	 *
+	 * @return The number of records
+	 */
+	public long getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * Gets the seed used to generate the stored boards.
+	 *
+	 * @return The seed
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	/**
+	 * Reads the board with the given index.
+	 *
+	 * @param index The record index
+	 * @return The board
+	 * @throws IllegalArgumentException if the index is not within the file's bounds
+	 * @throws IOException if an I/O error occurs, or if the record is corrupted
+	 */
+	public synchronized Board read(long index) throws IOException
+	{
+		if(index < 0 || index >= count)
+			throw new IllegalArgumentException();
+
+		file.seek(dataOffset + index * recordSize);
+		file.readFully(buffer);
+		try {
+			return decode(size, buffer, 0);
+		}
+		catch(IllegalArgumentException invalidTile)
+		{
+			// Convert exception to convey the correct semantics
+			throw new IOException("Corrupted corpus record", invalidTile);
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		file.close();
+	}
+}
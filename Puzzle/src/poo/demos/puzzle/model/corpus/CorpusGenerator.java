@@ -0,0 +1,426 @@
+package poo.demos.puzzle.model.corpus;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.PuzzleCodec;
+import poo.demos.utils.Flow;
+import poo.demos.utils.SplitMix64;
+
+/**
+ * Class whose instances generate corpora of random (and solvable) boards, in parallel.
+ *
+ * Boards are generated in chunks of up to {@link #CHUNK_SIZE} boards, and of up to
+ * {@link #CHUNK_BYTES} bytes unless a single board is larger, each one by a generator
+ * split from the corpus' root generator. Chunks are generated by the threads of a
+ * {@link ForkJoinPool} and consumed in order, which means that a corpus is entirely
+ * determined by its seed, regardless of the number of threads. Only a bounded number of
+ * chunks is generated ahead of consumption, so memory usage does not depend on the
+ * corpus' size.
+ *
+ * Corpora are either written to a {@link CorpusFile} or delivered to in-process consumers
+ * through a back-pressured {@link Flow.Publisher}. Instances hold no generation state other
+ * than the pool and can therefore be shared. The pool's threads are owned by the instance,
+ * and are released when it is closed.
+ */
+public class CorpusGenerator implements Closeable {
+
+	/**
+	 * The maximum number of boards generated by each task.
+	 */
+	public static final int CHUNK_SIZE = 1024;
+
+	/**
+	 * The maximum number of bytes generated by each task, unless a single board is larger.
+	 */
+	public static final int CHUNK_BYTES = 1 << 20;
+
+	/**
+	 * The number of chunks generated ahead of consumption, per thread.
+	 */
+	private static final int CHUNKS_PER_THREAD = 2;
+
+	/**
+	 * Class whose instances are the tasks that generate chunks of boards. Each chunk is
+	 * produced already encoded as a sequence of corpus records.
+	 */
+	private static final class Chunk implements Callable<byte[]>
+	{
+		private final int size, count;
+		private final SplitMix64 random;
+
+		Chunk(int size, int count, SplitMix64 random)
+		{
+			this.size = size;
+			this.count = count;
+			this.random = random;
+		}
+
+		@Override
+		public byte[] call()
+		{
+			final long length = (long) count * CorpusFile.getRecordSize(size);
+			if(length > Integer.MAX_VALUE)
+				throw new IllegalStateException("Chunk too large");
+
+			final byte[] records = new byte[(int) length];
+			final ByteBuffer out = ByteBuffer.wrap(records);
+			final Board board = Board.create(size);
+			for(int idx = 0; idx < count; ++idx)
+			{
+				board.shuffle(random);
+				PuzzleCodec.writeTiles(board, out);
+			}
+			return records;
+		}
+	}
+
+	/**
+	 * Class whose instances deliver the chunks of one corpus, in order, keeping a bounded
+	 * number of chunks being generated ahead of consumption.
+	 */
+	private final class ChunkSequence
+	{
+		private final SplitMix64 random = new SplitMix64(seed);
+		private final Deque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+		private final long count;
+		private long scheduled;
+
+		ChunkSequence(long count)
+		{
+			this.count = count;
+		}
+
+		public boolean hasNext()
+		{
+			return scheduled < count || !pending.isEmpty();
+		}
+
+		public byte[] next() throws InterruptedException, ExecutionException
+		{
+			final int window = pool.getParallelism() * CHUNKS_PER_THREAD;
+			while(pending.size() < window && scheduled < count)
+			{
+				final int chunkSize = (int) Math.min(getChunkSize(), count - scheduled);
+				pending.add(pool.submit(new Chunk(size, chunkSize, random.split())));
+				scheduled += chunkSize;
+			}
+			return pending.poll().get();
+		}
+
+		public void cancel()
+		{
+			for(Future<byte[]> chunk : pending)
+				chunk.cancel(false);
+			pending.clear();
+		}
+	}
+
+	/**
+	 * Class whose instances are the subscriptions of the corpus' publisher.
+	 *
+	 * Items are delivered by the thread that requests them (or by the one that subscribed,
+	 * if no items remain), and never concurrently: requests made while items are being
+	 * delivered are served by the thread that is already delivering them.
+	 */
+	private final class CorpusSubscription implements Flow.Subscription
+	{
+		private final Flow.Subscriber<? super Board> subscriber;
+		private final ChunkSequence chunks;
+		private final int recordSize = CorpusFile.getRecordSize(size);
+		private final AtomicLong demand = new AtomicLong();
+		private final AtomicInteger pendingDrains = new AtomicInteger();
+		private volatile boolean cancelled, invalidRequest;
+		private byte[] chunk;
+		private int offset;
+		private boolean done;
+
+		CorpusSubscription(Flow.Subscriber<? super Board> subscriber, long count)
+		{
+			this.subscriber = subscriber;
+			this.chunks = new ChunkSequence(count);
+		}
+
+		@Override
+		public void request(long count)
+		{
+			if(count <= 0)
+				invalidRequest = true;
+
+			long current, next;
+			do {
+				current = demand.get();
+				next = current + count < 0 ? Long.MAX_VALUE : current + count;
+			} while(count > 0 && !demand.compareAndSet(current, next));
+
+			drain();
+		}
+
+		@Override
+		public void cancel()
+		{
+			cancelled = true;
+			drain();
+		}
+
+		/**
+		 * Delivers the requested items, unless another thread is already doing so.
+		 */
+		void drain()
+		{
+			if(pendingDrains.getAndIncrement() != 0)
+				return;
+
+			int missed = 1;
+			do {
+				deliver();
+				missed = pendingDrains.addAndGet(-missed);
+			} while(missed != 0);
+		}
+
+		/**
+		 * Helper method that delivers items while they are requested.
+		 */
+		private void deliver()
+		{
+			while(!done)
+			{
+				if(cancelled || invalidRequest)
+				{
+					done = true;
+					chunks.cancel();
+					if(!cancelled)
+						subscriber.onError(new IllegalArgumentException("Non-positive request"));
+					return;
+				}
+
+				if(chunk == null || offset == chunk.length)
+				{
+					if(!chunks.hasNext())
+					{
+						done = true;
+						subscriber.onComplete();
+						return;
+					}
+
+					if(demand.get() == 0)
+						return;
+
+					try {
+						chunk = chunks.next();
+						offset = 0;
+					}
+					catch(InterruptedException interrupted)
+					{
+						Thread.currentThread().interrupt();
+						fail(interrupted);
+						return;
+					}
+					catch(ExecutionException failure)
+					{
+						fail(failure.getCause());
+						return;
+					}
+					catch(RejectedExecutionException closed)
+					{
+						fail(closed);
+						return;
+					}
+				}
+
+				if(demand.get() == 0)
+					return;
+
+				final Board board = CorpusFile.decode(size, chunk, offset);
+				offset += recordSize;
+				demand.decrementAndGet();
+				subscriber.onNext(board);
+			}
+		}
+
+		/**
+		 * Helper method that terminates the subscription with the given error.
+		 *
+		 * @param error The cause of the failure
+		 */
+		private void fail(Throwable error)
+		{
+			done = true;
+			chunks.cancel();
+			subscriber.onError(error);
+		}
+	}
+
+	/**
+	 * The size of the generated boards.
+	 */
+	private final int size;
+
+	/**
+	 * The seed that determines the generated boards.
+	 */
+	private final long seed;
+
+	/**
+	 * The pool whose threads generate the boards.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Initiates a generator with the given arguments, that uses one thread per available
+	 * processor.
+	 *
+	 * @param size The size of the generated boards
+	 * @param seed The seed that determines the generated boards
+	 * @throws IllegalArgumentException if size is less or equal than {@code 1}
+	 */
+	public CorpusGenerator(int size, long seed)
+	{
+		this(size, seed, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Initiates a generator with the given arguments.
+	 *
+	 * @param size The size of the generated boards
+	 * @param seed The seed that determines the generated boards
+	 * @param parallelism The number of threads that generate the boards
+	 * @throws IllegalArgumentException if size is less or equal than {@code 1}, or if the
+	 * parallelism is not positive
+	 */
+	public CorpusGenerator(int size, long seed, int parallelism)
+	{
+		if(size <= 1 || parallelism <= 0)
+			throw new IllegalArgumentException();
+
+		this.size = size;
+		this.seed = seed;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	/**
+	 * Gets the number of boards generated by each task, which keeps each chunk within
+	 * {@link #CHUNK_BYTES} bytes.
+	 *
+	 * @return The number of boards of each chunk
+	 */
+	public int getChunkSize()
+	{
+		return Math.max(1, Math.min(CHUNK_SIZE, CHUNK_BYTES / CorpusFile.getRecordSize(size)));
+	}
+
+	/**
+	 * Gets the size of the generated boards.
+	 *
+	 * @return The boards' size
+	 */
+	public int getSize()
+	{
+		return size;
+	}
+
+	/**
+	 * Gets the seed that determines the generated boards.
+	 *
+	 * @return The seed
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	/**
+	 * Generates the given number of boards and writes them to the given file, in the
+	 * format described in {@link CorpusFile}. Boards are written as they are generated.
+	 *
+	 * @param file The destination file, which is replaced if it exists
+	 * @param count The number of boards
+	 * @throws IllegalArgumentException if the file is {@code null} or if the number of
+	 * boards is negative
+	 * @throws IOException if an I/O error occurs or if the generation is interrupted
+	 * @throws java.util.concurrent.RejectedExecutionException if the generator has been closed
+	 */
+	public void write(File file, long count) throws IOException
+	{
+		if(file == null || count < 0)
+			throw new IllegalArgumentException();
+
+		final ChunkSequence chunks = new ChunkSequence(count);
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		try {
+			CorpusFile.writeHeader(out, size, count, seed);
+			while(chunks.hasNext())
+				out.write(chunks.next());
+		}
+		catch(InterruptedException interrupted)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		catch(ExecutionException failure)
+		{
+			// Convert exception to convey the correct semantics
+			throw new IOException(failure.getCause());
+		}
+		finally {
+			chunks.cancel();
+			out.close();
+		}
+	}
+
+	/**
+	 * Produces a publisher of the given number of boards. Each subscriber receives the
+	 * same sequence of boards, which is the one written by {@link #write(File, long)}.
+	 * Boards are only generated ahead of the subscriber's requests up to a bounded amount.
+	 * Subscriptions made once the generator has been closed fail on their first request.
+	 *
+	 * @param count The number of boards
+	 * @return The publisher
+	 * @throws IllegalArgumentException if the number of boards is negative
+	 */
+	public Flow.Publisher<Board> publish(final long count)
+	{
+		if(count < 0)
+			throw new IllegalArgumentException();
+
+		return new Flow.Publisher<Board>() {
+			@Override
+			public void subscribe(Flow.Subscriber<? super Board> subscriber)
+			{
+				if(subscriber == null)
+					throw new NullPointerException();
+
+				CorpusSubscription subscription = new CorpusSubscription(subscriber, count);
+				subscriber.onSubscribe(subscription);
+				// Completes empty corpora, which require no requests
+				subscription.drain();
+			}
+		};
+	}
+
+	/**
+	 * Shuts down the generator's pool. Boards that are being generated are still delivered,
+	 * but no further boards are generated.
+	 */
+	@Override
+	public void close()
+	{
+		pool.shutdown();
+	}
+}
@@ -0,0 +1,491 @@
+package poo.demos.puzzle.model.journal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import poo.demos.puzzle.model.Grid;
+import poo.demos.puzzle.model.Move;
+import poo.demos.puzzle.model.PuzzleCodec;
+
+/**
+ * Class whose instances are append-only journals of the moves done in a grid, stored in
+ * memory-mapped files, from which the grid's state can be recovered.
+ *
+ * A journal file starts with a fixed-size header, which identifies the format and its
+ * version and holds the grid's size, the number of moves between snapshots, the size of
+ * the file's regions and the offset of the latest snapshot. The header is followed by a
+ * sequence of frames: each move is stored in a single byte (its delta's code), and every
+ * {@code snapshotInterval} moves the grid's state is stored in a snapshot frame, which
+ * holds the number of moves done so far, the grid's Zobrist hash and its tiles, encoded by
+ * {@link PuzzleCodec}. Recovery therefore reads the latest snapshot and replays the moves
+ * that follow it, only.
+ *
+ * The file is mapped one region at a time, and frames never cross region boundaries.
+ * Unwritten bytes are zero, which marks the end of the journal, and the first byte of each
+ * frame is written last. Appending a move produces no instances, except for mapping a new
+ * region and for the buffer views used to snapshot grids larger than 16x16. Written frames
+ * are forced to the storage device in batches, every {@code syncInterval} frames, or when
+ * {@link #sync()} is called. Snapshot frames are forced before the header refers to them.
+ * Instances are not thread-safe.
+ */
+public final class MoveJournal implements Closeable {
+
+	/**
+	 * The value that identifies the format ("PJRN").
+	 */
+	private static final int MAGIC = 0x504A524E;
+
+	/**
+	 * The version of the format.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * The size of the header, in bytes.
+	 */
+	public static final int HEADER_SIZE = 32;
+
+	/**
+	 * The minimum size of the file's regions, in bytes.
+	 */
+	private static final int MIN_REGION_SIZE = 1 << 20;
+
+	/**
+	 * The maximum size of the file's regions, in bytes.
+	 */
+	private static final int MAX_REGION_SIZE = 1 << 30;
+
+	/**
+	 * The offsets of the header's fields.
+	 */
+	private static final int SIZE_FIELD = 8, INTERVAL_FIELD = 12, REGION_FIELD = 16, SNAPSHOT_FIELD = 24;
+
+	/**
+	 * The frame tags. Move frames are tagged with {@code MOVE_TAG + delta.ordinal()}.
+	 */
+	private static final byte END_TAG = 0, MOVE_TAG = 1, PADDING_TAG = 0x50, SNAPSHOT_TAG = 0x53;
+
+	/**
+	 * The existing moves, indexed by their codes.
+	 */
+	private static final Move.Delta[] DELTAS = Move.Delta.values();
+
+	/**
+	 * The journal's file.
+	 */
+	private final RandomAccessFile file;
+
+	/**
+	 * The file's channel.
+	 */
+	private final FileChannel channel;
+
+	/**
+	 * The mapping of the file's header.
+	 */
+	private final MappedByteBuffer header;
+
+	/**
+	 * The mapping of the region where frames are currently appended.
+	 */
+	private MappedByteBuffer region;
+
+	/**
+	 * The offset of the current region.
+	 */
+	private long regionStart;
+
+	/**
+	 * The grid whose moves are recorded.
+	 */
+	private final Grid grid;
+
+	/**
+	 * The number of moves between snapshots.
+	 */
+	private final int snapshotInterval;
+
+	/**
+	 * The number of frames written between forced writes.
+	 */
+	private final int syncInterval;
+
+	/**
+	 * The size of the file's regions, in bytes.
+	 */
+	private final int regionSize;
+
+	/**
+	 * The number of moves recorded since the journal was created.
+	 */
+	private long moveCount;
+
+	/**
+	 * The number of frames written since the last forced write.
+	 */
+	private int unsynced;
+
+	/**
+	 * Indicates whether the journal has been closed.
+	 */
+	private boolean closed;
+
+	/**
+	 * Helper method that computes the size of the snapshot frames of grids with the given size.
+	 *
+	 * @param size The grids' size
+	 * @return The frame size, in bytes
+	 */
+	private static int getSnapshotFrameSize(int size)
+	{
+		return 1 + 2 * Long.SIZE / Byte.SIZE + PuzzleCodec.getTilesSize(size);
+	}
+
+	/**
+	 * Factory method that creates a journal for the given grid, whose current state is
+	 * stored as the journal's first snapshot.
+	 *
+	 * @param file The journal's file, which is replaced if it exists
+	 * @param grid The grid whose moves are to be recorded
+	 * @param snapshotInterval The number of moves between snapshots
+	 * @param syncInterval The number of frames written between forced writes
+	 * @return The new instance, which must be closed once no longer needed
+	 * @throws IllegalArgumentException if any argument is {@code null}, if any of the
+	 * intervals is not positive, or if the grid's snapshots do not fit a region
+	 * @throws IOException if an I/O error occurs
+	 */
+	public static MoveJournal create(File file, Grid grid, int snapshotInterval, int syncInterval) throws IOException
+	{
+		if(file == null || grid == null || snapshotInterval <= 0 || syncInterval <= 0)
+			throw new IllegalArgumentException();
+
+		// Regions hold, at least, the header and a snapshot frame followed by a move frame
+		if(HEADER_SIZE + getSnapshotFrameSize(grid.getSize()) + 1 > MAX_REGION_SIZE)
+			throw new IllegalArgumentException();
+		int regionSize = MIN_REGION_SIZE;
+		while(regionSize < HEADER_SIZE + getSnapshotFrameSize(grid.getSize()) + 1)
+			regionSize <<= 1;
+
+		final RandomAccessFile target = new RandomAccessFile(file, "rw");
+		try {
+			target.setLength(0);
+			final MoveJournal journal = new MoveJournal(target, grid, snapshotInterval, syncInterval, regionSize);
+			journal.header.putInt(0, MAGIC);
+			journal.header.putInt(4, VERSION);
+			journal.header.putInt(SIZE_FIELD, grid.getSize());
+			journal.header.putInt(INTERVAL_FIELD, snapshotInterval);
+			journal.header.putInt(REGION_FIELD, regionSize);
+			journal.mapRegion(0);
+			journal.region.position(HEADER_SIZE);
+			journal.writeSnapshot();
+			journal.sync();
+			return journal;
+		}
+		catch(IOException error)
+		{
+			target.close();
+			throw error;
+		}
+	}
+
+	/**
+	 * Factory method that recovers the grid whose moves are recorded in the given journal
+	 * file, and that opens the journal for recording further moves. The grid's state is read
+	 * from the latest snapshot, and the moves recorded after it are replayed.
+	 *
+	 * @param file The journal's file
+	 * @param syncInterval The number of frames written between forced writes
+	 * @return The new instance, whose grid is obtained by {@link #getGrid()}, and which
+	 * must be closed once no longer needed
+	 * @throws IllegalArgumentException if the file is {@code null}, or if the interval is
+	 * not positive
+	 * @throws IOException if an I/O error occurs, or if the file's contents are not a
+	 * journal in a supported format
+	 */
+	public static MoveJournal recover(File file, int syncInterval) throws IOException
+	{
+		if(file == null || syncInterval <= 0)
+			throw new IllegalArgumentException();
+
+		final RandomAccessFile source = new RandomAccessFile(file, "rw");
+		try {
+			if(source.length() < HEADER_SIZE || source.readInt() != MAGIC)
+				throw new IOException("Not a journal file");
+			if(source.readInt() != VERSION)
+				throw new IOException("Unsupported journal file version");
+
+			final int size = source.readInt(), snapshotInterval = source.readInt(), regionSize = source.readInt();
+			source.readInt();
+			final long snapshotOffset = source.readLong();
+			if(size <= 1 || size > PuzzleCodec.MAX_SIZE || snapshotInterval <= 0 || regionSize > MAX_REGION_SIZE
+					|| regionSize < HEADER_SIZE + getSnapshotFrameSize(size) + 1
+					|| snapshotOffset < HEADER_SIZE || snapshotOffset + getSnapshotFrameSize(size) > source.length())
+				throw new IOException("Corrupted journal file");
+
+			final long snapshotRegion = snapshotOffset - snapshotOffset % regionSize;
+			final ByteBuffer snapshot = source.getChannel().map(FileChannel.MapMode.READ_ONLY, snapshotOffset, getSnapshotFrameSize(size));
+			if(snapshot.get() != SNAPSHOT_TAG)
+				throw new IOException("Corrupted journal file");
+
+			final long moveCount = snapshot.getLong();
+			final Grid grid = readGrid(snapshot, size);
+			final MoveJournal journal = new MoveJournal(source, grid, snapshotInterval, syncInterval, regionSize);
+			journal.moveCount = moveCount;
+			journal.mapRegion(snapshotRegion);
+			journal.region.position((int) (snapshotOffset - snapshotRegion) + getSnapshotFrameSize(size));
+			journal.replay();
+			return journal;
+		}
+		catch(IOException error)
+		{
+			source.close();
+			throw error;
+		}
+	}
+
+	/**
+	 * Helper method that reads the grid stored in a snapshot frame.
+	 *
+	 * @param frame The buffer, positioned at the frame's hash
+	 * @param size The grid's size
+	 * @return The new grid instance
+	 * @throws IOException if the frame is corrupted
+	 */
+	private static Grid readGrid(ByteBuffer frame, int size) throws IOException
+	{
+		final long hash = frame.getLong();
+		try {
+			final Grid grid = PuzzleCodec.readGrid(size, frame);
+			if(grid.getZobristHash() != hash)
+				throw new IOException("Corrupted journal snapshot");
+			return grid;
+		}
+		catch(IllegalArgumentException invalidTile)
+		{
+			// Convert exception to convey the correct semantics
+			throw new IOException("Corrupted journal snapshot", invalidTile);
+		}
+	}
+
+	/**
+	 * Initiates an instance with the given arguments.
+	 *
+	 * @param file The journal's file
+	 * @param grid The grid whose moves are recorded
+	 * @param snapshotInterval The number of moves between snapshots
+	 * @param syncInterval The number of frames written between forced writes
+	 * @param regionSize The size of the file's regions, in bytes
+	 * @throws IOException if an I/O error occurs
+	 */
+	private MoveJournal(RandomAccessFile file, Grid grid, int snapshotInterval, int syncInterval, int regionSize) throws IOException
+	{
+		this.file = file;
+		this.channel = file.getChannel();
+		this.grid = grid;
+		this.snapshotInterval = snapshotInterval;
+		this.syncInterval = syncInterval;
+		this.regionSize = regionSize;
+		header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+	}
+
+	/**
+	 * Helper method that maps the region that starts at the given offset.
+	 *
+	 * @param start The region's offset
+	 * @throws IOException if an I/O error occurs
+	 */
+	private void mapRegion(long start) throws IOException
+	{
+		if(region != null)
+			region.force();
+		regionStart = start;
+		region = channel.map(FileChannel.MapMode.READ_WRITE, start, regionSize);
+	}
+
+	/**
+	 * Helper method that ensures that a frame with the given size fits the current region,
+	 * moving on to the next region if it does not.
+	 *
+	 * @param frameSize The frame's size, in bytes
+	 * @throws IOException if an I/O error occurs
+	 */
+	private void ensureRoom(int frameSize) throws IOException
+	{
+		if(region.remaining() >= frameSize)
+			return;
+
+		if(region.hasRemaining())
+			region.put(PADDING_TAG);
+		mapRegion(regionStart + regionSize);
+	}
+
+	/**
+	 * Helper method that replays the moves that follow the current position, stopping at
+	 * the end of the journal, which becomes the position where frames are appended.
+	 *
+	 * @throws IOException if an I/O error occurs, or if the journal is corrupted
+	 */
+	private void replay() throws IOException
+	{
+		final int snapshotFrameSize = getSnapshotFrameSize(grid.getSize());
+		while(true)
+		{
+			if(!region.hasRemaining())
+			{
+				if(regionStart + regionSize >= channel.size())
+					return;
+				mapRegion(regionStart + regionSize);
+			}
+
+			final int offset = region.position();
+			final byte tag = region.get();
+			if(tag == END_TAG)
+				break;
+
+			if(tag == PADDING_TAG)
+				region.position(region.limit());
+			else if(tag == SNAPSHOT_TAG)
+			{
+				// Snapshots after the latest known one are merely checked against the replayed state
+				if(region.remaining() < snapshotFrameSize - 1 || region.getLong() != moveCount
+						|| region.getLong() != grid.getZobristHash())
+					throw new IOException("Corrupted journal snapshot");
+				region.position(offset + snapshotFrameSize);
+				header.putLong(SNAPSHOT_FIELD, regionStart + offset);
+			}
+			else if(tag >= MOVE_TAG && tag < MOVE_TAG + DELTAS.length)
+			{
+				if(!grid.applyDelta(DELTAS[tag - MOVE_TAG]))
+					throw new IOException("Corrupted journal move");
+				moveCount += 1;
+			}
+			else
+				throw new IOException("Corrupted journal frame");
+		}
+
+		// Clears the remains of frames that were being written when the journal was interrupted
+		region.position(region.position() - 1);
+		for(int idx = region.position(); idx < region.limit(); ++idx)
+			region.put(idx, END_TAG);
+	}
+
+	/**
+	 * Helper method that writes a snapshot of the grid's current state. The frame's tag is
+	 * written last, and the frame is forced to the storage device before the header is
+	 * updated to refer to the new snapshot, which means that the header never refers to a
+	 * snapshot that was not entirely written, regardless of the order in which the mapped
+	 * pages are written.
+	 *
+	 * @throws IOException if an I/O error occurs
+	 */
+	private void writeSnapshot() throws IOException
+	{
+		ensureRoom(getSnapshotFrameSize(grid.getSize()));
+		final int offset = region.position();
+		region.position(offset + 1);
+		region.putLong(moveCount);
+		region.putLong(grid.getZobristHash());
+		PuzzleCodec.writeTiles(grid, region);
+
+		region.put(offset, SNAPSHOT_TAG);
+		region.force();
+		unsynced = 0;
+		header.putLong(SNAPSHOT_FIELD, regionStart + offset);
+	}
+
+	/**
+	 * Records the given move, which is expected to have been done in the journal's grid.
+	 * A snapshot of the grid's state is also recorded every {@code snapshotInterval} moves.
+	 *
+	 * @param delta The delta of the move
+	 * @throws IllegalStateException if the journal has been closed
+	 * @throws IllegalArgumentException if the delta is {@code null}, or if it could not
+	 * have produced the grid's current state
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void append(Move.Delta delta) throws IOException
+	{
+		if(closed)
+			throw new IllegalStateException();
+		if(delta == null || (grid.legalMoveMask() & (1 << delta.getReverse().ordinal())) == 0)
+			throw new IllegalArgumentException();
+
+		ensureRoom(1);
+		region.put((byte) (MOVE_TAG + delta.ordinal()));
+		moveCount += 1;
+		unsynced += 1;
+		if(moveCount % snapshotInterval == 0)
+			writeSnapshot();
+
+		if(unsynced >= syncInterval)
+			sync();
+	}
+
+	/**
+	 * Forces the recorded frames to be written to the storage device.
+	 *
+	 * @throws IllegalStateException if the journal has been closed
+	 */
+	public void sync()
+	{
+		if(closed)
+			throw new IllegalStateException();
+
+		region.force();
+		header.force();
+		unsynced = 0;
+	}
+
+	/**
+	 * Gets the grid whose moves are recorded.
+	 *
+	 * @return The grid instance
+	 */
+	public Grid getGrid()
+	{
+		return grid;
+	}
+
+	/**
+	 * Gets the number of moves recorded since the journal was created.
+	 *
+	 * @return The number of moves
+	 */
+	public long getMoveCount()
+	{
+		return moveCount;
+	}
+
+	/**
+	 * Gets the number of moves between snapshots.
+	 *
+	 * @return The snapshot interval
+	 */
+	public int getSnapshotInterval()
+	{
+		return snapshotInterval;
+	}
+
+	/**
+	 * Forces the recorded frames to be written and closes the journal's file.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if(closed)
+			return;
+
+		try {
+			sync();
+		}
+		finally {
+			closed = true;
+			file.close();
+		}
+	}
+}
@@ -0,0 +1,321 @@
+package poo.demos.puzzle.model.journal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import poo.demos.puzzle.model.Grid;
+import poo.demos.puzzle.model.Puzzle;
+import poo.demos.puzzle.model.PuzzleCodec;
+
+/**
+ * Class whose instances store puzzle snapshots in files of a local directory, so that
+ * puzzles too large to be kept elsewhere (e.g. in the state saved by user interfaces)
+ * can be recovered from a small key and checksum.
+ *
+ * Saving a puzzle encodes it by means of {@link PuzzleCodec}, which is a single array copy,
+ * and the file is written by a background thread. Each file is first written under a
+ * temporary name and then renamed, which means that a stored snapshot is never partially
+ * written. The checksum is the puzzle's Zobrist hash, which is maintained on each move and
+ * therefore available without reading the puzzle's tiles. Loading a snapshot waits for its
+ * pending write, if any, maps the file to memory and decodes the puzzle directly from the
+ * mapping.
+ */
+public final class SnapshotStore implements Closeable {
+
+	/**
+	 * The extension of snapshot files.
+	 */
+	private static final String EXTENSION = ".snapshot";
+
+	/**
+	 * The extension of snapshot files while they are being written.
+	 */
+	private static final String TEMPORARY_EXTENSION = ".tmp";
+
+	/**
+	 * The pattern of valid keys, which are used as file names.
+	 */
+	private static final Pattern KEY_PATTERN = Pattern.compile("[A-Za-z0-9_.-]{1,64}");
+
+	/**
+	 * The maximum time waited for pending writes when the store is closed, in seconds.
+	 */
+	private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+	/**
+	 * The directory that holds the snapshot files.
+	 */
+	private final File directory;
+
+	/**
+	 * The thread that writes the snapshot files.
+	 */
+	private final ExecutorService writer;
+
+	/**
+	 * Holds the pending writes, indexed by key.
+	 */
+	private final ConcurrentMap<String, Future<Void>> pending = new ConcurrentHashMap<String, Future<Void>>();
+
+	/**
+	 * Initiates a store whose snapshots are kept in the given directory, which is created
+	 * if it does not exist.
+	 *
+	 * @param directory The directory
+	 * @throws IllegalArgumentException if the directory is {@code null}
+	 * @throws IOException if the directory does not exist and cannot be created
+	 */
+	public SnapshotStore(File directory) throws IOException
+	{
+		if(directory == null)
+			throw new IllegalArgumentException();
+		if(!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Cannot create snapshot directory");
+
+		this.directory = directory;
+		writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable task)
+			{
+				Thread thread = new Thread(task, "SnapshotStore writer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Helper method that checks if the given key is valid.
+	 *
+	 * @param key The key to be checked
+	 * @throws IllegalArgumentException if the key is {@code null}, or if it is not a
+	 * sequence of up to 64 letters, digits, dots, dashes or underscores
+	 */
+	private static void checkKey(String key)
+	{
+		if(key == null || !KEY_PATTERN.matcher(key).matches())
+			throw new IllegalArgumentException();
+	}
+
+	/**
+	 * Helper method that gets the file of the snapshot with the given key.
+	 *
+	 * @param key The snapshot's key
+	 * @return The file
+	 */
+	private File getFile(String key)
+	{
+		return new File(directory, key + EXTENSION);
+	}
+
+	/**
+	 * Helper method that schedules the write of the given encoded puzzle.
+	 *
+	 * @param key The snapshot's key
+	 * @param data The encoded puzzle
+	 */
+	private void schedule(final String key, final byte[] data)
+	{
+		final FutureTask<Void> write = new FutureTask<Void>(new Callable<Void>() {
+			@Override
+			public Void call() throws IOException
+			{
+				final File temporary = new File(directory, key + TEMPORARY_EXTENSION);
+				final FileOutputStream out = new FileOutputStream(temporary);
+				try {
+					out.write(data);
+					out.getFD().sync();
+				}
+				finally {
+					out.close();
+				}
+				if(!temporary.renameTo(getFile(key)))
+					throw new IOException("Cannot replace snapshot file");
+				return null;
+			}
+		}) {
+			@Override
+			protected void done()
+			{
+				pending.remove(key, this);
+			}
+		};
+
+		pending.put(key, write);
+		writer.execute(write);
+	}
+
+	/**
+	 * Helper method that waits for the pending write of the snapshot with the given key.
+	 *
+	 * @param key The snapshot's key
+	 * @throws IOException if the write failed or if the wait is interrupted
+	 */
+	private void awaitWrite(String key) throws IOException
+	{
+		final Future<Void> write = pending.get(key);
+		if(write == null)
+			return;
+
+		try {
+			write.get();
+		}
+		catch(InterruptedException interrupted)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		catch(ExecutionException failure)
+		{
+			// Convert exception to convey the correct semantics
+			throw new IOException(failure.getCause());
+		}
+	}
+
+	/**
+	 * Stores the given grid's current state under the given key, replacing the snapshot
+	 * previously stored under it, if any. The snapshot's file is written asynchronously.
+	 *
+	 * @param key The snapshot's key
+	 * @param grid The grid
+	 * @return The checksum to be used when the snapshot is loaded
+	 * @throws IllegalArgumentException if any argument is {@code null}, or if the key is
+	 * not a sequence of up to 64 letters, digits, dots, dashes or underscores
+	 * @throws java.util.concurrent.RejectedExecutionException if the store has been closed
+	 */
+	public long save(String key, Grid grid)
+	{
+		checkKey(key);
+		if(grid == null)
+			throw new IllegalArgumentException();
+
+		schedule(key, PuzzleCodec.encode(grid));
+		return grid.getZobristHash();
+	}
+
+	/**
+	 * Stores the given puzzle's current state under the given key.
+	 *
+	 * @param key The snapshot's key
+	 * @param puzzle The puzzle
+	 * @return The checksum to be used when the snapshot is loaded
+	 * @throws IllegalArgumentException if any argument is {@code null}, or if the key is
+	 * not valid
+	 * @throws java.util.concurrent.RejectedExecutionException if the store has been closed
+	 * @see #save(String, Grid)
+	 */
+	public long save(String key, Puzzle puzzle)
+	{
+		checkKey(key);
+		if(puzzle == null)
+			throw new IllegalArgumentException();
+
+		schedule(key, PuzzleCodec.encode(puzzle));
+		return puzzle.getZobristHash();
+	}
+
+	/**
+	 * Loads the snapshot stored under the given key. The calling thread waits for the
+	 * snapshot's pending write, if any, and for the file to be read, which means that the
+	 * method is not to be called by threads that must remain responsive (e.g. user
+	 * interface threads).
+	 *
+	 * @param key The snapshot's key
+	 * @param checksum The checksum returned when the snapshot was saved
+	 * @return The grid instance
+	 * @throws IllegalArgumentException if the key is not valid
+	 * @throws IOException if the snapshot does not exist, if its write failed, if an I/O
+	 * error occurs, or if the stored snapshot does not match the checksum
+	 */
+	public Grid load(String key, long checksum) throws IOException
+	{
+		checkKey(key);
+		awaitWrite(key);
+
+		final RandomAccessFile file = new RandomAccessFile(getFile(key), "r");
+		try {
+			final Grid grid;
+			try {
+				grid = PuzzleCodec.read(file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length()));
+			}
+			catch(IllegalArgumentException invalidContents)
+			{
+				// Convert exception to convey the correct semantics
+				throw new IOException("Corrupted snapshot file", invalidContents);
+			}
+			catch(BufferUnderflowException truncated)
+			{
+				// Convert exception to convey the correct semantics
+				throw new IOException("Truncated snapshot file", truncated);
+			}
+
+			if(grid.getZobristHash() != checksum)
+				throw new IOException("Snapshot does not match its checksum");
+			return grid;
+		}
+		finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Removes the snapshot stored under the given key, if any, once its pending write,
+	 * if any, has finished.
+	 *
+	 * @param key The snapshot's key
+	 * @throws IllegalArgumentException if the key is not valid
+	 * @throws IOException if the wait is interrupted
+	 */
+	public void delete(String key) throws IOException
+	{
+		checkKey(key);
+		try {
+			awaitWrite(key);
+		}
+		catch(InterruptedIOException interrupted)
+		{
+			throw interrupted;
+		}
+		catch(IOException failedWrite)
+		{
+			// The snapshot is to be removed anyway
+		}
+		getFile(key).delete();
+	}
+
+	/**
+	 * Waits for the pending writes and stops the store's writer thread. Snapshots can
+	 * still be loaded once the store is closed.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		writer.shutdown();
+		try {
+			if(!writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+				throw new IOException("Pending snapshot writes did not finish");
+		}
+		catch(InterruptedException interrupted)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+	}
+}
@@ -0,0 +1,281 @@
+package poo.demos.puzzle.model.solvers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.Move;
+import poo.demos.puzzle.model.PositionTable;
+import poo.demos.utils.LongIntHashMap;
+
+/**
+ * Class whose instances compute optimal solutions by means of the A* algorithm.
+ *
+ * Search nodes are stored in parallel primitive arrays and identified by their index.
+ * Board arrangements are represented by their packed {@code long} value, which is used
+ * as the key of the map of known arrangements, and the open set is a bucket queue
+ * indexed by the nodes' estimated total cost. The solver therefore only supports boards
+ * that can be packed in a {@code long} (see {@link Board#MAX_LONG_PACKED_CELLS}), that is,
+ * boards up to 4x4.
+ *
+ * Because A* keeps every generated node, the number of nodes is bounded: if the bound
+ * is reached, the search is abandoned. Instances hold no search state and can therefore
+ * be shared.
+ */
+public class AStarSolver extends Solver {
+
+	/**
+	 * The default maximum number of nodes generated during a search.
+	 */
+	public static final int DEFAULT_MAX_NODES = 4 * 1024 * 1024;
+
+	/**
+	 * Value used to signal the absence of a node or of a move.
+	 */
+	private static final int NONE = -1;
+
+	/**
+	 * Class whose instances are growable stacks of {@code int} values.
+	 */
+	private static final class IntStack
+	{
+		private int[] values = new int[16];
+		private int size;
+
+		public void push(int value)
+		{
+			if(size == values.length)
+			{
+				int[] grown = new int[size * 2];
+				System.arraycopy(values, 0, grown, 0, size);
+				values = grown;
+			}
+			values[size++] = value;
+		}
+
+		public int pop() { return values[--size]; }
+
+		public boolean isEmpty() { return size == 0; }
+
+		public long getMemoryFootprint() { return (long) values.length * Integer.SIZE / Byte.SIZE; }
+	}
+
+	/**
+	 * Class whose instances hold the search nodes, in parallel arrays.
+	 * The estimates and costs of nodes are bounded by the solution's length, and
+	 * therefore fit in a byte for the supported board sizes.
+	 */
+	private static final class Nodes
+	{
+		/**
+		 * The number of bytes used by each node.
+		 */
+		private static final int NODE_SIZE = 16;
+
+		long[] states = new long[1024];
+		int[] parents = new int[1024];
+		byte[] moves = new byte[1024], costs = new byte[1024], estimates = new byte[1024], blanks = new byte[1024];
+		int count;
+
+		public int add(long state, int parent, int move, int cost, int estimate, int blank)
+		{
+			if(count == states.length)
+			{
+				final int capacity = count * 2;
+				states = Arrays.copyOf(states, capacity);
+				parents = Arrays.copyOf(parents, capacity);
+				moves = Arrays.copyOf(moves, capacity);
+				costs = Arrays.copyOf(costs, capacity);
+				estimates = Arrays.copyOf(estimates, capacity);
+				blanks = Arrays.copyOf(blanks, capacity);
+			}
+
+			states[count] = state;
+			parents[count] = parent;
+			moves[count] = (byte) move;
+			costs[count] = (byte) cost;
+			estimates[count] = (byte) estimate;
+			blanks[count] = (byte) blank;
+			return count++;
+		}
+
+		public long getMemoryFootprint() { return (long) states.length * NODE_SIZE; }
+	}
+
+	/**
+	 * Class whose instances are priority queues of nodes, implemented as an array of
+	 * stacks indexed by the nodes' estimated total cost. Nodes with the same cost are
+	 * retrieved in LIFO order, thus favoring the deepest ones.
+	 */
+	private static final class BucketQueue
+	{
+		private IntStack[] buckets = new IntStack[64];
+		private int minimum = Integer.MAX_VALUE;
+
+		public void push(int priority, int node)
+		{
+			if(priority >= buckets.length)
+			{
+				IntStack[] grown = new IntStack[Math.max(priority + 1, buckets.length * 2)];
+				System.arraycopy(buckets, 0, grown, 0, buckets.length);
+				buckets = grown;
+			}
+
+			if(buckets[priority] == null)
+				buckets[priority] = new IntStack();
+
+			buckets[priority].push(node);
+			minimum = Math.min(minimum, priority);
+		}
+
+		public int pop()
+		{
+			for(; minimum < buckets.length; ++minimum)
+				if(buckets[minimum] != null && !buckets[minimum].isEmpty())
+					return buckets[minimum].pop();
+			return NONE;
+		}
+
+		public long getMemoryFootprint()
+		{
+			long footprint = 0;
+			for(IntStack bucket : buckets)
+				if(bucket != null)
+					footprint += bucket.getMemoryFootprint();
+			return footprint;
+		}
+	}
+
+	/**
+	 * The heuristic used to estimate the distance to the solution.
+	 */
+	private final Heuristic heuristic;
+
+	/**
+	 * The maximum number of nodes generated during a search.
+	 */
+	private final int maxNodes;
+
+	/**
+	 * Helper method that produces the solution that ends at the given node.
+	 *
+	 * @param nodes The search nodes
+	 * @param goal The index of the goal node
+	 * @param expandedNodes The number of expanded nodes
+	 * @param peakMemory The maximum number of bytes held by the search's data structures
+	 * @param start The instant when the search started, as given by {@link System#nanoTime()}
+	 * @return The solution
+	 */
+	private static Solution buildSolution(Nodes nodes, int goal, long expandedNodes, long peakMemory, long start)
+	{
+		final Move.Delta[] deltas = Move.Delta.values();
+		List<Move.Delta> moves = new ArrayList<Move.Delta>(nodes.costs[goal] & 0xFF);
+		for(int node = goal; nodes.parents[node] != NONE; node = nodes.parents[node])
+			moves.add(deltas[nodes.moves[node]]);
+		Collections.reverse(moves);
+
+		return new Solution(moves, expandedNodes, peakMemory, System.nanoTime() - start);
+	}
+
+	/**
+	 * Initiates a solver that uses the Manhattan distance heuristic and the default
+	 * maximum number of nodes.
+	 */
+	public AStarSolver()
+	{
+		this(new ManhattanHeuristic(), DEFAULT_MAX_NODES);
+	}
+
+	/**
+	 * Initiates a solver with the given arguments.
+	 *
+	 * @param heuristic The heuristic used to estimate the distance to the solution. The
+	 * heuristic must be admissible, otherwise solutions are not guaranteed to be optimal.
+	 * @param maxNodes The maximum number of nodes generated during a search
+	 * @throws IllegalArgumentException if the heuristic is {@code null} or if the maximum
+	 * number of nodes is not positive
+	 */
+	public AStarSolver(Heuristic heuristic, int maxNodes)
+	{
+		if(heuristic == null || maxNodes <= 0)
+			throw new IllegalArgumentException();
+
+		this.heuristic = heuristic;
+		this.maxNodes = maxNodes;
+	}
+
+	@Override
+	protected Solution search(Board board)
+	{
+		if(!board.isPackedInLong())
+			throw new IllegalArgumentException();
+
+		final long start = System.nanoTime();
+		final PositionTable positions = PositionTable.forSize(board.getSize());
+		final Move.Delta[] deltas = Move.Delta.values();
+		final long goal = Board.createSolved(board.getSize()).getPackedValue();
+
+		final Nodes nodes = new Nodes();
+		final LongIntHashMap known = new LongIntHashMap();
+		final BucketQueue open = new BucketQueue();
+		long expandedNodes = 0;
+
+		final int rootEstimate = heuristic.estimate(board);
+		final int root = nodes.add(board.getPackedValue(), NONE, NONE, 0, rootEstimate, board.indexOf(Board.EMPTY));
+		known.put(nodes.states[root], root);
+		open.push(rootEstimate, root);
+
+		int node;
+		while((node = open.pop()) != NONE)
+		{
+			final long state = nodes.states[node];
+			// Skip nodes for which a shorter path has meanwhile been found
+			if(known.get(state, NONE) != node)
+				continue;
+
+			if(state == goal)
+			{
+				long peakMemory = nodes.getMemoryFootprint() + known.getMemoryFootprint() + open.getMemoryFootprint();
+				return buildSolution(nodes, node, expandedNodes, peakMemory, start);
+			}
+
+			expandedNodes += 1;
+			board.setPackedValue(state);
+			final int blank = nodes.blanks[node], cost = (nodes.costs[node] & 0xFF) + 1;
+			final int estimate = nodes.estimates[node] & 0xFF, parentMove = nodes.moves[node];
+
+			for(Move.Delta delta : deltas)
+			{
+				// Moving the piece back to where it was is pointless
+				if(parentMove != NONE && deltas[parentMove].getReverse() == delta)
+					continue;
+
+				// The moving piece is adjacent to the empty space, in the direction opposite to the move
+				final int origin = positions.getNeighbor(blank, delta.getReverse());
+				if(origin == PositionTable.NONE)
+					continue;
+
+				final int tile = board.get(origin);
+				board.move(origin, blank);
+				final long child = board.getPackedValue();
+				final int childEstimate = heuristic.update(board, estimate, tile, origin, blank);
+				board.move(blank, origin);
+
+				final int existing = known.get(child, NONE);
+				if(existing != NONE && (nodes.costs[existing] & 0xFF) <= cost)
+					continue;
+
+				if(nodes.count == maxNodes)
+					return null;
+
+				final int childNode = nodes.add(child, node, delta.ordinal(), cost, childEstimate, origin);
+				known.put(child, childNode);
+				open.push(cost + childEstimate, childNode);
+			}
+		}
+
+		return null;
+	}
+}
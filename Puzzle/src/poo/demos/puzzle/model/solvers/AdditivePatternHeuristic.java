@@ -0,0 +1,179 @@
+package poo.demos.puzzle.model.solvers;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import poo.demos.puzzle.model.Board;
+
+/**
+ * Class whose instances implement the additive disjoint pattern database heuristic.
+ *
+ * The board's tiles are partitioned into disjoint patterns, each with its own
+ * {@link PatternDatabase}. Because each database only counts moves of its own tiles,
+ * the sum of their values is admissible. If the patterns cover every tile, the sum is
+ * also at least the Manhattan distance, given that each database's value is at least the
+ * Manhattan distance of its tiles.
+ *
+ * Each move only affects the database that holds the moving tile, which means that
+ * incremental updates consist of locating that pattern's tiles and of two lookups in that
+ * database. Tiles of boards up to 4x4 are located by a few word operations each; larger
+ * boards require a pass over their positions. Instances are immutable and can therefore
+ * be shared between searches.
+ */
+public class AdditivePatternHeuristic implements Heuristic {
+
+	/**
+	 * The 5-5-5 partition of the 4x4 board's tiles.
+	 */
+	public static final int[][] PARTITION_4X4_555 = {
+		{ 1, 2, 5, 6, 9 },
+		{ 3, 4, 7, 8, 12 },
+		{ 10, 11, 13, 14, 15 }
+	};
+
+	/**
+	 * The 6-6-3 partition of the 4x4 board's tiles.
+	 */
+	public static final int[][] PARTITION_4X4_663 = {
+		{ 1, 2, 3, 5, 6, 7 },
+		{ 9, 10, 11, 13, 14, 15 },
+		{ 4, 8, 12 }
+	};
+
+	/**
+	 * The 6-6-6-6 partition of the 5x5 board's tiles.
+	 */
+	public static final int[][] PARTITION_5X5_6666 = {
+		{ 1, 2, 3, 6, 7, 8 },
+		{ 4, 5, 9, 10, 14, 15 },
+		{ 11, 12, 16, 17, 21, 22 },
+		{ 13, 18, 19, 20, 23, 24 }
+	};
+
+	/**
+	 * The pattern databases.
+	 */
+	private final PatternDatabase[] databases;
+
+	/**
+	 * Holds, for each tile identifier, the index of the database whose pattern holds
+	 * the tile, or {@code -1} if none does.
+	 */
+	private final int[] databaseIndexes;
+
+	/**
+	 * Factory method that builds the databases for the given partition.
+	 *
+	 * @param size The size of the boards to which the heuristic applies
+	 * @param partition The patterns, which must be disjoint
+	 * @return The new instance
+	 * @throws IllegalArgumentException if the arguments do not describe a supported partition
+	 * @see PatternDatabase#build(int, int[])
+	 */
+	public static AdditivePatternHeuristic build(int size, int[][] partition)
+	{
+		if(partition == null)
+			throw new IllegalArgumentException();
+
+		PatternDatabase[] databases = new PatternDatabase[partition.length];
+		for(int idx = 0; idx < partition.length; ++idx)
+			databases[idx] = PatternDatabase.build(size, partition[idx]);
+
+		return new AdditivePatternHeuristic(databases);
+	}
+
+	/**
+	 * Factory method that loads the databases from the given files.
+	 *
+	 * @param files The files, each holding one database
+	 * @return The new instance
+	 * @throws IOException if an I/O error occurs, or if a file's contents are not
+	 * a database in a supported format
+	 * @throws IllegalArgumentException if the databases' patterns are not disjoint or
+	 * their board sizes differ
+	 * @see PatternDatabase#load(File)
+	 */
+	public static AdditivePatternHeuristic load(File... files) throws IOException
+	{
+		if(files == null)
+			throw new IllegalArgumentException();
+
+		PatternDatabase[] databases = new PatternDatabase[files.length];
+		for(int idx = 0; idx < files.length; ++idx)
+			databases[idx] = PatternDatabase.load(files[idx]);
+
+		return new AdditivePatternHeuristic(databases);
+	}
+
+	/**
+	 * Initiates an instance with the given databases.
+	 *
+	 * @param databases The pattern databases
+	 * @throws IllegalArgumentException if no databases are given, if their board sizes differ
+	 * or if their patterns are not disjoint
+	 */
+	public AdditivePatternHeuristic(PatternDatabase... databases)
+	{
+		if(databases == null || databases.length == 0 || databases[0] == null)
+			throw new IllegalArgumentException();
+
+		final int size = databases[0].getSize();
+		this.databases = databases.clone();
+		databaseIndexes = new int[size * size];
+		Arrays.fill(databaseIndexes, -1);
+
+		for(int idx = 0; idx < this.databases.length; ++idx)
+		{
+			if(this.databases[idx] == null || this.databases[idx].getSize() != size)
+				throw new IllegalArgumentException();
+
+			for(int tile : this.databases[idx].getTiles())
+			{
+				if(databaseIndexes[tile] != -1)
+					throw new IllegalArgumentException();
+				databaseIndexes[tile] = idx;
+			}
+		}
+	}
+
+	/**
+	 * Gets the size of the boards to which the heuristic applies.
+	 *
+	 * @return The boards' size
+	 */
+	public int getSize()
+	{
+		return databases[0].getSize();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @throws IllegalArgumentException if the board's size is not the heuristic's size
+	 */
+	@Override
+	public int estimate(Board board)
+	{
+		int estimate = 0;
+		for(PatternDatabase database : databases)
+			estimate += database.lookup(board);
+		return estimate;
+	}
+
+	@Override
+	public int update(Board board, int estimate, int tile, int from, int to)
+	{
+		final int databaseIndex = databaseIndexes[tile];
+		if(databaseIndex == -1)
+			return estimate;
+
+		// Only the database that holds the tile is affected: its previous placement differs in one position
+		final PatternDatabase database = databases[databaseIndex];
+		final long placement = database.getPlacement(board);
+		final int shift = database.getPatternIndex(tile) * PatternDatabase.POSITION_BITS;
+		final long previous = (placement & ~(((1L << PatternDatabase.POSITION_BITS) - 1) << shift)) | ((long) from << shift);
+
+		return estimate - database.lookup(previous) + database.lookup(placement);
+	}
+}
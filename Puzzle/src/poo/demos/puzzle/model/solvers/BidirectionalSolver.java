@@ -0,0 +1,219 @@
+package poo.demos.puzzle.model.solvers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.Move;
+import poo.demos.puzzle.model.PositionTable;
+import poo.demos.utils.LongIntHashMap;
+
+/**
+ * Class whose instances compute optimal solutions by means of a bidirectional
+ * breadth-first search, that is, two searches that start at the board to be solved and
+ * at the solved board and that stop when they meet.
+ *
+ * Each search keeps its nodes in parallel primitive arrays, with board arrangements
+ * represented by their packed {@code long} value, and indexes them by means of a
+ * {@link LongIntHashMap}. Checking whether a node belongs to the other
+ * search's frontier is therefore a single lookup. On each step, the search with the smallest
+ * frontier expands one complete level, which guarantees that the best meeting found in that
+ * level yields an optimal solution.
+ *
+ * Because both searches keep every generated node, the solver is meant for instances with
+ * short solutions, and the number of nodes is bounded: if the bound is reached, the search
+ * is abandoned. Only boards that can be packed in a {@code long} (i.e. up to 4x4) are
+ * supported. Instances hold no search state and can therefore be shared.
+ */
+public class BidirectionalSolver extends Solver {
+
+	/**
+	 * The default maximum number of nodes generated during a search, by both directions.
+	 */
+	public static final int DEFAULT_MAX_NODES = 4 * 1024 * 1024;
+
+	/**
+	 * Value used to signal the absence of a node or of a move.
+	 */
+	private static final int NONE = -1;
+
+	/**
+	 * Class whose instances hold the nodes generated by one of the searches.
+	 */
+	private static final class Side
+	{
+		/**
+		 * The number of bytes used by each node, including its entry in the index.
+		 */
+		private static final int NODE_SIZE = 15 + 24;
+
+		long[] states = new long[1024];
+		int[] parents = new int[1024];
+		byte[] moves = new byte[1024], blanks = new byte[1024], depths = new byte[1024];
+		final LongIntHashMap index = new LongIntHashMap();
+		int count, levelStart;
+
+		Side(long root, int blank)
+		{
+			add(root, NONE, NONE, blank, 0);
+		}
+
+		public int add(long state, int parent, int move, int blank, int depth)
+		{
+			if(count == states.length)
+			{
+				final int capacity = count * 2;
+				states = Arrays.copyOf(states, capacity);
+				parents = Arrays.copyOf(parents, capacity);
+				moves = Arrays.copyOf(moves, capacity);
+				blanks = Arrays.copyOf(blanks, capacity);
+				depths = Arrays.copyOf(depths, capacity);
+			}
+
+			states[count] = state;
+			parents[count] = parent;
+			moves[count] = (byte) move;
+			blanks[count] = (byte) blank;
+			depths[count] = (byte) depth;
+			index.put(state, count);
+			return count++;
+		}
+
+		public int getFrontierSize() { return count - levelStart; }
+
+		public long getMemoryFootprint() { return (long) states.length * NODE_SIZE; }
+	}
+
+	/**
+	 * The maximum number of nodes generated during a search.
+	 */
+	private final int maxNodes;
+
+	/**
+	 * Initiates a solver with the default maximum number of nodes.
+	 */
+	public BidirectionalSolver()
+	{
+		this(DEFAULT_MAX_NODES);
+	}
+
+	/**
+	 * Initiates a solver with the given maximum number of nodes.
+	 *
+	 * @param maxNodes The maximum number of nodes generated during a search, by both directions
+	 * @throws IllegalArgumentException if the maximum number of nodes is not positive
+	 */
+	public BidirectionalSolver(int maxNodes)
+	{
+		if(maxNodes <= 0)
+			throw new IllegalArgumentException();
+
+		this.maxNodes = maxNodes;
+	}
+
+	/**
+	 * Helper method that produces the solution that passes through the given meeting point.
+	 *
+	 * @param forward The search that started at the board to be solved
+	 * @param forwardNode The meeting point's node in the forward search
+	 * @param backward The search that started at the solved board
+	 * @param backwardNode The meeting point's node in the backward search
+	 * @param expandedNodes The number of expanded nodes
+	 * @param start The instant when the search started, as given by {@link System#nanoTime()}
+	 * @return The solution
+	 */
+	private static Solution buildSolution(Side forward, int forwardNode, Side backward, int backwardNode, long expandedNodes, long start)
+	{
+		final Move.Delta[] deltas = Move.Delta.values();
+		List<Move.Delta> moves = new ArrayList<Move.Delta>(forward.depths[forwardNode] + backward.depths[backwardNode]);
+		for(int node = forwardNode; forward.parents[node] != NONE; node = forward.parents[node])
+			moves.add(deltas[forward.moves[node]]);
+		Collections.reverse(moves);
+
+		// The backward path is followed from the meeting point, undoing each of its moves
+		for(int node = backwardNode; backward.parents[node] != NONE; node = backward.parents[node])
+			moves.add(deltas[backward.moves[node]].getReverse());
+
+		final long peakMemory = forward.getMemoryFootprint() + backward.getMemoryFootprint();
+		return new Solution(moves, expandedNodes, peakMemory, System.nanoTime() - start);
+	}
+
+	@Override
+	protected Solution search(Board board)
+	{
+		if(!board.isPackedInLong())
+			throw new IllegalArgumentException();
+
+		final long start = System.nanoTime();
+		final PositionTable positions = PositionTable.forSize(board.getSize());
+		final Move.Delta[] deltas = Move.Delta.values();
+		final Board goal = Board.createSolved(board.getSize());
+
+		final Side forward = new Side(board.getPackedValue(), board.indexOf(Board.EMPTY));
+		final Side backward = new Side(goal.getPackedValue(), goal.getCellCount() - 1);
+		if(backward.index.containsKey(forward.states[0]))
+			return buildSolution(forward, 0, backward, 0, 0, start);
+
+		long expandedNodes = 0;
+		while(forward.getFrontierSize() > 0 && backward.getFrontierSize() > 0)
+		{
+			// Expand one complete level of the search with the smallest frontier
+			final boolean isForward = forward.getFrontierSize() <= backward.getFrontierSize();
+			final Side side = isForward ? forward : backward, other = isForward ? backward : forward;
+			final int levelEnd = side.count;
+			int bestNode = NONE, bestOther = NONE, bestLength = Integer.MAX_VALUE;
+
+			for(int node = side.levelStart; node < levelEnd; ++node)
+			{
+				expandedNodes += 1;
+				board.setPackedValue(side.states[node]);
+				final int blank = side.blanks[node], parentMove = side.moves[node];
+
+				for(Move.Delta delta : deltas)
+				{
+					// Moving the piece back to where it was is pointless
+					if(parentMove != NONE && deltas[parentMove].getReverse() == delta)
+						continue;
+
+					final int origin = positions.getNeighbor(blank, delta.getReverse());
+					if(origin == PositionTable.NONE)
+						continue;
+
+					board.move(origin, blank);
+					final long child = board.getPackedValue();
+					board.move(blank, origin);
+
+					if(side.index.containsKey(child))
+						continue;
+
+					if(forward.count + backward.count == maxNodes)
+						return null;
+
+					final int childNode = side.add(child, node, delta.ordinal(), origin, side.depths[node] + 1);
+					final int meeting = other.index.get(child, NONE);
+					if(meeting != NONE)
+					{
+						final int length = side.depths[childNode] + other.depths[meeting];
+						if(length < bestLength)
+						{
+							bestLength = length;
+							bestNode = childNode;
+							bestOther = meeting;
+						}
+					}
+				}
+			}
+
+			side.levelStart = levelEnd;
+
+			if(bestNode != NONE)
+				return isForward
+					? buildSolution(forward, bestNode, backward, bestOther, expandedNodes, start)
+					: buildSolution(forward, bestOther, backward, bestNode, expandedNodes, start);
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,259 @@
+package poo.demos.puzzle.model.solvers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.Move;
+import poo.demos.puzzle.model.PositionTable;
+
+/**
+ * Class whose instances perform cost-bounded depth-first searches, as required by 
+ * iterative-deepening solvers.
+ * 
+ * The search mutates a single board in place and undoes each move on backtrack. 
+ * The current path is kept in a preallocated array of move ordinals, and the 
+ * heuristic is updated incrementally: no allocation takes place per node. 
+ * Instances are not thread-safe.
+ */
+final class DepthFirstSearch {
+
+	/**
+	 * Value used to signal the absence of a move.
+	 */
+	static final int NO_MOVE = -1;
+	
+	/**
+	 * Value used as the next threshold while no node has exceeded the current one.
+	 */
+	static final int NO_THRESHOLD = Integer.MAX_VALUE;
+	
+	/**
+	 * The existing moves.
+	 */
+	private static final Move.Delta[] DELTAS = Move.Delta.values();
+	
+	/**
+	 * Holds the ordinal of each move's reverse.
+	 */
+	private static final int[] REVERSE = new int[DELTAS.length];
+	
+	static {
+		for(Move.Delta delta : DELTAS)
+			REVERSE[delta.ordinal()] = delta.getReverse().ordinal();
+	}
+	
+	/**
+	 * The board being searched, which is mutated in place.
+	 */
+	private final Board board;
+	
+	/**
+	 * The solved board, used to recognize the goal.
+	 */
+	private final Board goal;
+	
+	/**
+	 * The geometry of the board's size.
+	 */
+	private final PositionTable positions;
+	
+	/**
+	 * The heuristic used to estimate the distance to the solution.
+	 */
+	private final Heuristic heuristic;
+	
+	/**
+	 * Holds the ordinals of the moves on the current path.
+	 */
+	private byte[] path = new byte[128];
+	
+	/**
+	 * Holds the length of the path that reached the goal, if it has been found.
+	 */
+	private int solutionLength = NO_MOVE;
+	
+	/**
+	 * The index of the position of the board's empty space.
+	 */
+	private int blank;
+	
+	/**
+	 * The maximum cost of the nodes to be expanded in the current iteration.
+	 */
+	private int threshold;
+	
+	/**
+	 * The smallest cost that exceeded the current threshold.
+	 */
+	private int nextThreshold;
+	
+	/**
+	 * The number of nodes expanded so far.
+	 */
+	private long expandedNodes;
+	
+	/**
+	 * The maximum number of nodes to expand.
+	 */
+	private final long maxNodes;
+	
+	/**
+	 * Holds a boolean value indicating whether the search must stop as soon as possible.
+	 */
+	private volatile boolean stopped;
+	
+	/**
+	 * Helper method that performs the search from the current board.
+	 * 
+	 * @param cost The cost of the path to the current board 
+	 * @param estimate The heuristic's estimate for the current board
+	 * @param parentMove The ordinal of the move that produced the current board, 
+	 * or {@link #NO_MOVE}
+	 * @return {@code true} if the goal has been found, {@code false} otherwise
+	 */
+	private boolean search(int cost, int estimate, int parentMove)
+	{
+		final int totalCost = cost + estimate;
+		if(totalCost > threshold)
+		{
+			if(totalCost < nextThreshold)
+				nextThreshold = totalCost;
+			return false;
+		}
+		
+		if(estimate == 0 && board.equals(goal))
+		{
+			solutionLength = cost;
+			return true;
+		}
+		
+		if(stopped || expandedNodes == maxNodes)
+			return false;
+		
+		expandedNodes += 1;
+		if(cost == path.length)
+			path = Arrays.copyOf(path, path.length * 2);
+		
+		final int origin = blank;
+		// Moving the piece back to where it was is pointless
+		int moves = positions.getMoveMask(origin);
+		if(parentMove != NO_MOVE)
+			moves &= ~(1 << REVERSE[parentMove]);
+		
+		for(; moves != 0; moves &= moves - 1)
+		{
+			final int move = Integer.numberOfTrailingZeros(moves);
+			// The moving piece is adjacent to the empty space, in the direction opposite to the move
+			final int piece = positions.getMoveOrigin(origin, DELTAS[move]);
+			final int tile = board.get(piece);
+			board.move(piece, origin);
+			blank = piece;
+			path[cost] = (byte) move;
+			
+			if(search(cost + 1, heuristic.update(board, estimate, tile, piece, origin), move))
+				return true;
+			
+			board.move(origin, piece);
+			blank = origin;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Initiates an instance that searches the given board.
+	 * 
+	 * @param board The board to be searched, which is owned by the instance from now on
+	 * @param heuristic The heuristic used to estimate the distance to the solution
+	 * @param maxNodes The maximum number of nodes to expand
+	 */
+	DepthFirstSearch(Board board, Heuristic heuristic, long maxNodes)
+	{
+		this.board = board;
+		this.heuristic = heuristic;
+		this.maxNodes = maxNodes;
+		goal = Board.createSolved(board.getSize());
+		positions = PositionTable.forSize(board.getSize());
+		blank = board.indexOf(Board.EMPTY);
+	}
+	
+	/**
+	 * Performs one iteration, that is, a search bounded by the given threshold.
+	 * 
+	 * @param threshold The maximum cost of the nodes to be expanded
+	 * @param cost The cost of the path to the board
+	 * @param parentMove The ordinal of the move that produced the board, or {@link #NO_MOVE}
+	 * @return {@code true} if the goal has been found, {@code false} otherwise
+	 */
+	boolean iterate(int threshold, int cost, int parentMove)
+	{
+		this.threshold = threshold;
+		nextThreshold = NO_THRESHOLD;
+		return search(cost, heuristic.estimate(board), parentMove);
+	}
+	
+	/**
+	 * Requests the search to stop as soon as possible. May be called from any thread.
+	 */
+	void stop()
+	{
+		stopped = true;
+	}
+	
+	/**
+	 * Checks whether the search has been interrupted, either because it has been 
+	 * stopped or because the maximum number of nodes has been reached.
+	 * 
+	 * @return {@code true} if the search has been interrupted, {@code false} otherwise
+	 */
+	boolean isInterrupted()
+	{
+		return stopped || expandedNodes == maxNodes;
+	}
+	
+	/**
+	 * Gets the smallest cost that exceeded the threshold in the last iteration. 
+	 * 
+	 * @return The next threshold, or {@link #NO_THRESHOLD} if no node exceeded it
+	 */
+	int getNextThreshold()
+	{
+		return nextThreshold;
+	}
+	
+	/**
+	 * Gets the number of nodes expanded so far.
+	 * 
+	 * @return The number of expanded nodes
+	 */
+	long getExpandedNodes()
+	{
+		return expandedNodes;
+	}
+	
+	/**
+	 * Gets the number of bytes held by the search's data structures.
+	 * 
+	 * @return The memory footprint, in bytes
+	 */
+	long getMemoryFootprint()
+	{
+		return path.length;
+	}
+	
+	/**
+	 * Gets the moves of the path that reached the goal, starting with the given prefix.
+	 * 
+	 * @param prefix The moves that precede the searched board
+	 * @return The solution's moves
+	 */
+	List<Move.Delta> getSolutionMoves(List<Move.Delta> prefix)
+	{
+		List<Move.Delta> moves = new ArrayList<Move.Delta>(prefix);
+		for(int idx = prefix.size(); idx < solutionLength; ++idx)
+			moves.add(DELTAS[path[idx]]);
+		return moves;
+	}
+}
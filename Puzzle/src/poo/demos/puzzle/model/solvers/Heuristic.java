@@ -0,0 +1,35 @@
+package poo.demos.puzzle.model.solvers;
+
+import poo.demos.puzzle.model.Board;
+
+/**
+ * Contract to be supported by admissible heuristics, that is, by functions that 
+ * estimate, without ever overestimating, the number of moves required to solve a board.
+ * 
+ * Heuristics are evaluated in full once per search and then updated incrementally
+ * on each move, which allows implementations to perform constant time updates.
+ */
+public interface Heuristic {
+
+	/**
+	 * Computes the estimate for the given board.
+	 * 
+	 * @param board The board to be evaluated
+	 * @return The estimated number of moves required to solve the board
+	 * @throws IllegalArgumentException if the heuristic does not support the board's size
+	 */
+	public int estimate(Board board);
+	
+	/**
+	 * Computes the estimate for the given board, which results from moving the given
+	 * tile from one position to the adjacent (previously empty) one.
+	 *  
+	 * @param board The board, which already reflects the move
+	 * @param estimate The estimate of the board before the move
+	 * @param tile The identifier of the moved tile
+	 * @param from The index of the position where the tile was before the move
+	 * @param to The index of the position where the tile is after the move
+	 * @return The estimated number of moves required to solve the board
+	 */
+	public int update(Board board, int estimate, int tile, int from, int to);
+}
@@ -0,0 +1,80 @@
+package poo.demos.puzzle.model.solvers;
+
+import java.util.Collections;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.Move;
+
+/**
+ * Class whose instances compute optimal solutions by means of the iterative-deepening
+ * A* (IDA*) algorithm.
+ * 
+ * Each iteration is a depth-first search bounded by a cost threshold, which starts at 
+ * the heuristic's estimate and is raised, on each iteration, to the smallest cost that 
+ * exceeded it. The search mutates a single board in place, undoing moves on backtrack, 
+ * and never moves a piece back to where it came from. Memory usage is therefore 
+ * proportional to the solution's length, and no allocation takes place per node.
+ * 
+ * Instances hold no search state and can therefore be shared.
+ */
+public class IdaStarSolver extends Solver {
+
+	/**
+	 * The heuristic used to estimate the distance to the solution.
+	 */
+	private final Heuristic heuristic;
+	
+	/**
+	 * The maximum number of nodes expanded during a search.
+	 */
+	private final long maxNodes;
+	
+	/**
+	 * Initiates a solver that uses the Manhattan distance with linear conflicts heuristic,
+	 * with no bound on the number of expanded nodes.
+	 */
+	public IdaStarSolver()
+	{
+		this(new LinearConflictHeuristic(), Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Initiates a solver with the given arguments.
+	 * 
+	 * @param heuristic The heuristic used to estimate the distance to the solution. The
+	 * heuristic must be admissible, otherwise solutions are not guaranteed to be optimal.
+	 * @param maxNodes The maximum number of nodes expanded during a search
+	 * @throws IllegalArgumentException if the heuristic is {@code null} or if the maximum
+	 * number of nodes is not positive
+	 */
+	public IdaStarSolver(Heuristic heuristic, long maxNodes)
+	{
+		if(heuristic == null || maxNodes <= 0)
+			throw new IllegalArgumentException();
+		
+		this.heuristic = heuristic;
+		this.maxNodes = maxNodes;
+	}
+	
+	@Override
+	protected Solution search(Board board) 
+	{
+		final long start = System.nanoTime();
+		final DepthFirstSearch search = new DepthFirstSearch(board, heuristic, maxNodes);
+		
+		int threshold = heuristic.estimate(board);
+		while(!search.iterate(threshold, 0, DepthFirstSearch.NO_MOVE))
+		{
+			if(search.isInterrupted() || search.getNextThreshold() == DepthFirstSearch.NO_THRESHOLD)
+				return null;
+			threshold = search.getNextThreshold();
+		}
+		
+		return new Solution(
+				search.getSolutionMoves(Collections.<Move.Delta>emptyList()), 
+				search.getExpandedNodes(), 
+				search.getMemoryFootprint(), 
+				System.nanoTime() - start
+		);
+	}
+}
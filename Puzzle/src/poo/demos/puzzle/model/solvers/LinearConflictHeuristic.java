@@ -0,0 +1,101 @@
+package poo.demos.puzzle.model.solvers;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.PositionTable;
+
+/**
+ * Class whose instances implement the Manhattan distance heuristic enhanced with
+ * linear conflicts.
+ *
+ * Two tiles are in linear conflict if they are both in their correct row (or column),
+ * but in reverse order. For each line, the minimum number of tiles that must leave
+ * the line so that the remaining ones are in order (i.e. the number of tiles in the line
+ * minus the length of its longest increasing subsequence) is computed, and each of those
+ * tiles adds two moves to the Manhattan distance.
+ *
+ * Line evaluations keep the longest increasing subsequence's tails packed in a {@code long},
+ * which means that no allocation takes place. The heuristic therefore supports boards up
+ * to 16x16.
+ */
+public class LinearConflictHeuristic extends ManhattanHeuristic {
+
+	/**
+	 * The maximum supported board size.
+	 */
+	public static final int MAX_SIZE = 16;
+
+	/**
+	 * Helper method that computes the number of tiles that must leave the given line
+	 * so that the remaining tiles that belong to it are in order.
+	 *
+	 * @param board The board
+	 * @param line The line index (i.e. the row or the column)
+	 * @param isRow {@code true} if the line is a row, {@code false} if it is a column
+	 * @return The number of tiles in conflict
+	 */
+	private static int countConflicts(Board board, int line, boolean isRow)
+	{
+		final int size = board.getSize();
+		long tails = 0;
+		int members = 0, ordered = 0;
+
+		for(int offset = 0; offset < size; ++offset)
+		{
+			final int tile = board.get(isRow ? line * size + offset : offset * size + line);
+			if(tile == Board.EMPTY)
+				continue;
+
+			final int correctIndex = tile - 1;
+			if((isRow ? correctIndex / size : correctIndex % size) != line)
+				continue;
+
+			// Patience sorting: place the tile's correct offset on the first tail that is not smaller
+			final long key = isRow ? correctIndex % size : correctIndex / size;
+			int tail = 0;
+			while(tail < ordered && ((tails >>> (tail << 2)) & 0xF) < key)
+				tail += 1;
+			tails = (tails & ~(0xFL << (tail << 2))) | (key << (tail << 2));
+			if(tail == ordered)
+				ordered += 1;
+			members += 1;
+		}
+
+		return members - ordered;
+	}
+
+	@Override
+	public int estimate(Board board)
+	{
+		if(board.getSize() > MAX_SIZE)
+			throw new IllegalArgumentException();
+
+		int conflicts = 0;
+		for(int line = 0; line < board.getSize(); ++line)
+			conflicts += countConflicts(board, line, true) + countConflicts(board, line, false);
+
+		return super.estimate(board) + 2 * conflicts;
+	}
+
+	@Override
+	public int update(Board board, int estimate, int tile, int from, int to)
+	{
+		estimate = super.update(board, estimate, tile, from, to);
+
+		// Only the line where the tile belongs, if it is the one the tile left or entered, is affected
+		final PositionTable positions = getPositions(board);
+		final int size = positions.getSize(), correctIndex = tile - 1;
+		final boolean isVerticalMove = from / size != to / size;
+		final int line = isVerticalMove ? correctIndex / size : correctIndex % size;
+		final int fromLine = isVerticalMove ? from / size : from % size;
+		final int toLine = isVerticalMove ? to / size : to % size;
+		if(line != fromLine && line != toLine)
+			return estimate;
+
+		final int conflictsAfter = countConflicts(board, line, isVerticalMove);
+		board.move(to, from);
+		final int conflictsBefore = countConflicts(board, line, isVerticalMove);
+		board.move(from, to);
+
+		return estimate + 2 * (conflictsAfter - conflictsBefore);
+	}
+}
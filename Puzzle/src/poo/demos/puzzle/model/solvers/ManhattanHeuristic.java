@@ -0,0 +1,52 @@
+package poo.demos.puzzle.model.solvers;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.PositionTable;
+
+/**
+ * Class whose instances implement the Manhattan distance heuristic, that is, the 
+ * sum of the distances between each tile's current and correct positions.
+ */
+public class ManhattanHeuristic implements Heuristic {
+
+	/**
+	 * Holds the geometry of the last evaluated board's size. 
+	 * Tables are immutable, so racy updates are benign.
+	 */
+	private PositionTable positions;
+	
+	/**
+	 * Helper method that gets the geometry of grids with the given board's size.
+	 * 
+	 * @param board The board
+	 * @return The corresponding table
+	 */
+	protected PositionTable getPositions(Board board)
+	{
+		PositionTable table = positions;
+		if(table == null || table.getSize() != board.getSize())
+			positions = table = PositionTable.forSize(board.getSize());
+		return table;
+	}
+	
+	@Override
+	public int estimate(Board board) 
+	{
+		final PositionTable table = getPositions(board);
+		int estimate = 0;
+		for(int index = 0; index < board.getCellCount(); ++index)
+		{
+			int tile = board.get(index);
+			if(tile != Board.EMPTY)
+				estimate += table.getDistance(tile - 1, index);
+		}
+		return estimate;
+	}
+
+	@Override
+	public int update(Board board, int estimate, int tile, int from, int to) 
+	{
+		final PositionTable table = getPositions(board);
+		return estimate - table.getDistance(tile - 1, from) + table.getDistance(tile - 1, to);
+	}
+}
@@ -0,0 +1,345 @@
+package poo.demos.puzzle.model.solvers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.Move;
+import poo.demos.puzzle.model.PositionTable;
+
+/**
+ * Class whose instances compute optimal solutions by means of a multi-threaded version
+ * of the iterative-deepening A* (IDA*) algorithm.
+ *
+ * The search tree is first expanded breadth-first until it reaches a frontier of (at least)
+ * the configured number of subtrees. On each iteration, the subtrees are then searched by
+ * the threads of a {@link ForkJoinPool}, which balances the load by means of work stealing.
+ * All threads share the iteration's threshold and the next one is the smallest cost that
+ * exceeded it in any subtree. As soon as one subtree reaches the goal, the remaining
+ * searches are stopped: because no solution exists below the current threshold, the solution
+ * found is optimal.
+ *
+ * The heuristic is shared by all threads and must therefore be thread-safe. Instances
+ * hold no search state other than the pool and can therefore be shared. Solvers either
+ * use a pool supplied by the caller, which remains the caller's responsibility, or create
+ * their own pool, whose threads are released by {@link #shutdown()}.
+ */
+public class ParallelIdaStarSolver extends Solver {
+
+	/**
+	 * The default minimum number of subtrees searched in parallel.
+	 */
+	public static final int DEFAULT_FRONTIER_SIZE = 4096;
+
+	/**
+	 * Class whose instances are the subtrees that compose the frontier.
+	 */
+	private static final class Subtree
+	{
+		final Board board;
+		final int blank, parentMove;
+		final List<Move.Delta> prefix;
+		DepthFirstSearch search;
+
+		Subtree(Board board, int blank, List<Move.Delta> prefix, int parentMove)
+		{
+			this.board = board;
+			this.blank = blank;
+			this.prefix = prefix;
+			this.parentMove = parentMove;
+		}
+	}
+
+	/**
+	 * Class whose instances hold the number of nodes expanded by each thread.
+	 * Each thread only updates its own counter, which is read once the search ends.
+	 */
+	private static final class WorkerCounters extends ThreadLocal<long[]>
+	{
+		private final List<long[]> counters = new ArrayList<long[]>();
+
+		@Override
+		protected long[] initialValue()
+		{
+			long[] counter = new long[1];
+			synchronized(counters) { counters.add(counter); }
+			return counter;
+		}
+
+		public long[] toArray()
+		{
+			synchronized(counters)
+			{
+				long[] values = new long[counters.size()];
+				for(int idx = 0; idx < values.length; ++idx)
+					values[idx] = counters.get(idx)[0];
+				return values;
+			}
+		}
+	}
+
+	/**
+	 * Class whose instances hold the state shared by the threads during one iteration.
+	 */
+	private static final class Iteration
+	{
+		final List<Subtree> frontier;
+		final int threshold;
+		final WorkerCounters counters;
+		final AtomicLong memoryFootprint;
+		final AtomicInteger nextThreshold = new AtomicInteger(DepthFirstSearch.NO_THRESHOLD);
+		final AtomicReference<Subtree> solved = new AtomicReference<Subtree>();
+
+		Iteration(List<Subtree> frontier, int threshold, WorkerCounters counters, AtomicLong memoryFootprint)
+		{
+			this.frontier = frontier;
+			this.threshold = threshold;
+			this.counters = counters;
+			this.memoryFootprint = memoryFootprint;
+		}
+
+		/**
+		 * Searches the given subtree, bounded by the iteration's threshold.
+		 */
+		void search(Subtree subtree)
+		{
+			if(solved.get() != null)
+				return;
+
+			final DepthFirstSearch search = subtree.search;
+			final long expandedNodes = search.getExpandedNodes(), footprint = search.getMemoryFootprint();
+			final boolean found = search.iterate(threshold, subtree.prefix.size(), subtree.parentMove);
+			counters.get()[0] += search.getExpandedNodes() - expandedNodes;
+			// Searches keep their data structures, which only grow, so the total is the peak
+			memoryFootprint.addAndGet(search.getMemoryFootprint() - footprint);
+
+			if(found)
+			{
+				if(solved.compareAndSet(null, subtree))
+					for(Subtree other : frontier)
+						other.search.stop();
+				return;
+			}
+
+			// Keep the smallest cost that exceeded the threshold
+			final int candidate = search.getNextThreshold();
+			int current = nextThreshold.get();
+			while(candidate < current && !nextThreshold.compareAndSet(current, candidate))
+				current = nextThreshold.get();
+		}
+	}
+
+	/**
+	 * Class whose instances are the tasks that search a range of the frontier's subtrees.
+	 * Ranges are split in halves, so that idle threads can steal them.
+	 */
+	@SuppressWarnings("serial")
+	private static final class SearchTask extends RecursiveAction
+	{
+		private final Iteration iteration;
+		private final int from, to;
+
+		SearchTask(Iteration iteration, int from, int to)
+		{
+			this.iteration = iteration;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(to - from == 1)
+			{
+				iteration.search(iteration.frontier.get(from));
+				return;
+			}
+
+			final int middle = (from + to) >>> 1;
+			invokeAll(new SearchTask(iteration, from, middle), new SearchTask(iteration, middle, to));
+		}
+	}
+
+	/**
+	 * The heuristic used to estimate the distance to the solution.
+	 */
+	private final Heuristic heuristic;
+
+	/**
+	 * The minimum number of subtrees searched in parallel.
+	 */
+	private final int frontierSize;
+
+	/**
+	 * The pool whose threads perform the searches.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Holds a boolean value indicating whether the pool was created by the instance.
+	 */
+	private final boolean ownsPool;
+
+	/**
+	 * Initiates a solver that uses the Manhattan distance with linear conflicts heuristic,
+	 * the default frontier size and one thread per available processor.
+	 */
+	public ParallelIdaStarSolver()
+	{
+		this(new LinearConflictHeuristic(), Runtime.getRuntime().availableProcessors(), DEFAULT_FRONTIER_SIZE);
+	}
+
+	/**
+	 * Initiates a solver with the given arguments.
+	 *
+	 * @param heuristic The heuristic used to estimate the distance to the solution. The
+	 * heuristic must be admissible, otherwise solutions are not guaranteed to be optimal, and
+	 * thread-safe.
+	 * @param parallelism The number of threads that perform the searches
+	 * @param frontierSize The minimum number of subtrees searched in parallel
+	 * @throws IllegalArgumentException if the heuristic is {@code null} or if the
+	 * parallelism or the frontier size are not positive
+	 */
+	public ParallelIdaStarSolver(Heuristic heuristic, int parallelism, int frontierSize)
+	{
+		if(heuristic == null || parallelism <= 0 || frontierSize <= 0)
+			throw new IllegalArgumentException();
+
+		this.heuristic = heuristic;
+		this.frontierSize = frontierSize;
+		this.pool = new ForkJoinPool(parallelism);
+		this.ownsPool = true;
+	}
+
+	/**
+	 * Initiates a solver whose searches are performed by the threads of the given pool,
+	 * which is not shut down by the solver.
+	 *
+	 * @param heuristic The heuristic used to estimate the distance to the solution. The
+	 * heuristic must be admissible, otherwise solutions are not guaranteed to be optimal, and
+	 * thread-safe.
+	 * @param pool The pool whose threads perform the searches
+	 * @param frontierSize The minimum number of subtrees searched in parallel
+	 * @throws IllegalArgumentException if the heuristic or the pool are {@code null} or if
+	 * the frontier size is not positive
+	 */
+	public ParallelIdaStarSolver(Heuristic heuristic, ForkJoinPool pool, int frontierSize)
+	{
+		if(heuristic == null || pool == null || frontierSize <= 0)
+			throw new IllegalArgumentException();
+
+		this.heuristic = heuristic;
+		this.frontierSize = frontierSize;
+		this.pool = pool;
+		this.ownsPool = false;
+	}
+
+	/**
+	 * Shuts down the pool created by the solver, if any. Searches in progress are completed,
+	 * but further searches are rejected. Pools supplied by the caller are not affected.
+	 */
+	public void shutdown()
+	{
+		if(ownsPool)
+			pool.shutdown();
+	}
+
+	/**
+	 * Gets the number of threads that perform the searches.
+	 *
+	 * @return The parallelism
+	 */
+	public int getParallelism()
+	{
+		return pool.getParallelism();
+	}
+
+	@Override
+	protected Solution search(Board board)
+	{
+		final long start = System.nanoTime();
+		final PositionTable positions = PositionTable.forSize(board.getSize());
+		final Move.Delta[] deltas = Move.Delta.values();
+		final Board goal = Board.createSolved(board.getSize());
+		final WorkerCounters counters = new WorkerCounters();
+
+		if(board.equals(goal))
+			return new Solution(Collections.<Move.Delta>emptyList(), 0, 0, System.nanoTime() - start);
+
+		// Expand the tree breadth-first, level by level, until the frontier is large enough
+		final int rootEstimate = heuristic.estimate(board);
+		List<Subtree> frontier = new ArrayList<Subtree>(1);
+		frontier.add(new Subtree(board, board.indexOf(Board.EMPTY), Collections.<Move.Delta>emptyList(), DepthFirstSearch.NO_MOVE));
+		while(frontier.size() < frontierSize)
+		{
+			List<Subtree> next = new ArrayList<Subtree>(frontier.size() * 3);
+			for(Subtree node : frontier)
+			{
+				counters.get()[0] += 1;
+				for(Move.Delta delta : deltas)
+				{
+					// Moving the piece back to where it was is pointless
+					if(node.parentMove != DepthFirstSearch.NO_MOVE && deltas[node.parentMove].getReverse() == delta)
+						continue;
+
+					final int origin = positions.getNeighbor(node.blank, delta.getReverse());
+					if(origin == PositionTable.NONE)
+						continue;
+
+					Board child = node.board.copy();
+					child.move(origin, node.blank);
+					List<Move.Delta> prefix = new ArrayList<Move.Delta>(node.prefix.size() + 1);
+					prefix.addAll(node.prefix);
+					prefix.add(delta);
+
+					// Levels are complete, which means that a goal found here is at minimum depth
+					if(child.equals(goal))
+						return new Solution(prefix, counters.toArray(), 0, System.nanoTime() - start);
+
+					next.add(new Subtree(child, origin, prefix, delta.ordinal()));
+				}
+			}
+
+			// Stop if the tree no longer widens (e.g. on the smallest boards)
+			final boolean widened = next.size() > frontier.size();
+			frontier = next;
+			if(!widened)
+				break;
+		}
+
+		final AtomicLong peakMemory = new AtomicLong();
+		for(Subtree subtree : frontier)
+		{
+			subtree.search = new DepthFirstSearch(subtree.board, heuristic, Long.MAX_VALUE);
+			peakMemory.addAndGet(subtree.search.getMemoryFootprint());
+		}
+
+		int threshold = rootEstimate;
+		while(true)
+		{
+			Iteration iteration = new Iteration(frontier, threshold, counters, peakMemory);
+			pool.invoke(new SearchTask(iteration, 0, frontier.size()));
+
+			final Subtree solved = iteration.solved.get();
+			if(solved != null)
+			{
+				return new Solution(
+						solved.search.getSolutionMoves(solved.prefix),
+						counters.toArray(),
+						peakMemory.get(),
+						System.nanoTime() - start
+				);
+			}
+
+			if(iteration.nextThreshold.get() == DepthFirstSearch.NO_THRESHOLD)
+				return null;
+			threshold = iteration.nextThreshold.get();
+		}
+	}
+}
@@ -0,0 +1,499 @@
+package poo.demos.puzzle.model.solvers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.Move;
+import poo.demos.puzzle.model.PositionTable;
+
+/**
+ * Class whose immutable instances are pattern databases, that is, tables that hold,
+ * for each placement of a given set of tiles (the pattern), the minimum number of moves
+ * of those tiles required to bring them to their correct positions. Moves of tiles that
+ * do not belong to the pattern are not counted, which means that the values of databases
+ * whose patterns are disjoint can be added (see {@link AdditivePatternHeuristic}).
+ *
+ * Placements are identified by their rank, computed from the positions of the pattern's
+ * tiles, which means that a lookup amounts to a rank computation plus one array read.
+ * Positions are handled packed in a {@code long}, using {@link #POSITION_BITS} bits per tile.
+ *
+ * Databases are produced by {@link #build(int, int[])}, which performs a breadth-first
+ * search backwards from the solved board, and can be persisted in a versioned binary format.
+ */
+public final class PatternDatabase {
+
+	/**
+	 * The number of bits used to represent each position.
+	 */
+	static final int POSITION_BITS = 6;
+
+	/**
+	 * The maximum number of positions of supported boards (i.e. up to 8x8).
+	 */
+	public static final int MAX_CELLS = 1 << POSITION_BITS;
+
+	/**
+	 * The maximum number of tiles of a pattern. The positions of the pattern's tiles and
+	 * of the empty space must fit in a {@code long}.
+	 */
+	public static final int MAX_PATTERN_SIZE = Long.SIZE / POSITION_BITS - 1;
+
+	/**
+	 * The value that identifies the persisted format ("PPDB").
+	 */
+	private static final int MAGIC = 0x50504442;
+
+	/**
+	 * The version of the persisted format.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * The value that marks placements whose distance has not yet been computed.
+	 */
+	private static final byte UNKNOWN = -1;
+
+	/**
+	 * The mask used to extract a single position.
+	 */
+	private static final long POSITION_MASK = (1L << POSITION_BITS) - 1;
+
+	/**
+	 * The masks used to locate tiles in boards packed in a {@code long}: the value {@code 1},
+	 * the three low bits and the high bit of each 4-bit value, respectively.
+	 */
+	private static final long NIBBLE_ONES = 0x1111111111111111L, NIBBLE_LOW_BITS = 0x7777777777777777L,
+			NIBBLE_HIGH_BITS = 0x8888888888888888L;
+
+	/**
+	 * Class whose instances are growable FIFO queues of {@code long} values, used while
+	 * building databases.
+	 */
+	private static final class LongQueue
+	{
+		private long[] values = new long[1024];
+		private int head, tail;
+
+		public void add(long value)
+		{
+			if(tail == values.length)
+			{
+				// Reclaim consumed space before growing
+				final int count = tail - head;
+				long[] target = count * 2 > values.length ? new long[values.length * 2] : values;
+				System.arraycopy(values, head, target, 0, count);
+				values = target;
+				head = 0;
+				tail = count;
+			}
+			values[tail++] = value;
+		}
+
+		public long poll() { return values[head++]; }
+
+		public boolean isEmpty() { return head == tail; }
+	}
+
+	/**
+	 * The size of the boards to which the database applies.
+	 */
+	private final int size;
+
+	/**
+	 * The identifiers of the pattern's tiles.
+	 */
+	private final int[] tiles;
+
+	/**
+	 * Holds, for each tile identifier, its index in the pattern, or {@code -1} if the
+	 * tile does not belong to the pattern.
+	 */
+	private final int[] patternIndexes;
+
+	/**
+	 * Holds the distances, indexed by placement rank.
+	 */
+	private final byte[] distances;
+
+	/**
+	 * Helper method that computes the number of placements of the given number of tiles.
+	 *
+	 * @param cellCount The number of board positions
+	 * @param tileCount The number of tiles
+	 * @return The number of placements, that is, {@code cellCount! / (cellCount - tileCount)!}
+	 */
+	private static long countPlacements(int cellCount, int tileCount)
+	{
+		long count = 1;
+		for(int idx = 0; idx < tileCount; ++idx)
+			count *= cellCount - idx;
+		return count;
+	}
+
+	/**
+	 * Helper method that checks the given arguments and produces a copy of the pattern.
+	 *
+	 * @param size The boards' size
+	 * @param tiles The identifiers of the pattern's tiles
+	 * @return A copy of the pattern
+	 * @throws IllegalArgumentException if the arguments do not describe a supported pattern
+	 */
+	private static int[] checkPattern(int size, int[] tiles)
+	{
+		if(size <= 1 || size > MAX_CELLS || size * size > MAX_CELLS || tiles == null || tiles.length == 0 || tiles.length > MAX_PATTERN_SIZE)
+			throw new IllegalArgumentException();
+
+		final int[] pattern = tiles.clone();
+		final boolean[] seen = new boolean[size * size];
+		for(int tile : pattern)
+		{
+			if(tile <= Board.EMPTY || tile >= seen.length || seen[tile])
+				throw new IllegalArgumentException();
+			seen[tile] = true;
+		}
+
+		if(countPlacements(size * size, pattern.length) > Integer.MAX_VALUE)
+			throw new IllegalArgumentException();
+
+		return pattern;
+	}
+
+	/**
+	 * Initiates an instance with the given arguments.
+	 *
+	 * @param size The size of the boards to which the database applies
+	 * @param tiles The identifiers of the pattern's tiles
+	 * @param distances The distances, indexed by placement rank
+	 */
+	private PatternDatabase(int size, int[] tiles, byte[] distances)
+	{
+		this.size = size;
+		this.tiles = tiles;
+		this.distances = distances;
+
+		patternIndexes = new int[size * size];
+		Arrays.fill(patternIndexes, -1);
+		for(int idx = 0; idx < tiles.length; ++idx)
+			patternIndexes[tiles[idx]] = idx;
+	}
+
+	/**
+	 * Factory method that builds the database for the given pattern.
+	 *
+	 * The build is a breadth-first search over the placements of the pattern's tiles and of
+	 * the empty space, starting at the solved board. Moving a tile that does not belong to the
+	 * pattern has no cost, which is why those moves are expanded within the current layer.
+	 * Memory and time are proportional to the number of placements times the number of
+	 * board positions: 6-tile patterns for 5x5 boards are meant to be built offline and
+	 * then {@link #load(File) loaded}.
+	 *
+	 * @param size The size of the boards to which the database applies
+	 * @param tiles The identifiers of the pattern's tiles
+	 * @return The new instance
+	 * @throws IllegalArgumentException if the arguments do not describe a supported pattern
+	 */
+	public static PatternDatabase build(int size, int[] tiles)
+	{
+		final int[] pattern = checkPattern(size, tiles);
+		final PositionTable positions = PositionTable.forSize(size);
+		final int cellCount = positions.getCellCount(), tileCount = pattern.length;
+		final int blankShift = tileCount * POSITION_BITS;
+		final long placementsMask = (1L << blankShift) - 1;
+		final Move.Delta[] deltas = Move.Delta.values();
+
+		final PatternDatabase database = new PatternDatabase(size, pattern, new byte[(int) countPlacements(cellCount, tileCount)]);
+		Arrays.fill(database.distances, UNKNOWN);
+		final long[] visited = new long[(int) ((database.distances.length * (long) cellCount + Long.SIZE - 1) / Long.SIZE)];
+
+		long start = (long) (cellCount - 1) << blankShift;
+		for(int idx = 0; idx < tileCount; ++idx)
+			start |= (long) (pattern[idx] - 1) << (idx * POSITION_BITS);
+
+		LongQueue current = new LongQueue(), next = new LongQueue();
+		current.add(start);
+		for(int distance = 0; !current.isEmpty(); ++distance)
+		{
+			while(!current.isEmpty())
+			{
+				final long state = current.poll();
+				final long placement = state & placementsMask;
+				final int blank = (int) (state >>> blankShift);
+				final int rank = database.rank(placement);
+
+				final long visitedIndex = (long) rank * cellCount + blank;
+				final int word = (int) (visitedIndex >>> 6);
+				final long bit = 1L << visitedIndex;
+				if((visited[word] & bit) != 0)
+					continue;
+				visited[word] |= bit;
+
+				if(database.distances[rank] == UNKNOWN)
+					database.distances[rank] = (byte) distance;
+
+				for(Move.Delta delta : deltas)
+				{
+					final int neighbor = positions.getNeighbor(blank, delta);
+					if(neighbor == PositionTable.NONE)
+						continue;
+
+					int tileIndex = 0;
+					while(tileIndex < tileCount && ((placement >>> (tileIndex * POSITION_BITS)) & POSITION_MASK) != neighbor)
+						tileIndex += 1;
+
+					if(tileIndex == tileCount)
+					{
+						// The empty space swaps with a tile outside the pattern: no cost
+						current.add(placement | ((long) neighbor << blankShift));
+					}
+					else
+					{
+						// A pattern tile moves to the empty space
+						final int shift = tileIndex * POSITION_BITS;
+						final long moved = (placement & ~(POSITION_MASK << shift)) | ((long) blank << shift);
+						next.add(moved | ((long) neighbor << blankShift));
+					}
+				}
+			}
+
+			LongQueue exhausted = current;
+			current = next;
+			next = exhausted;
+		}
+
+		return database;
+	}
+
+	/**
+	 * Factory method that reads a database from the given stream, in the format
+	 * produced by {@link #write(OutputStream)}.
+	 *
+	 * @param in The stream
+	 * @return The new instance
+	 * @throws IOException if an I/O error occurs, or if the stream's contents are not
+	 * a database in a supported format
+	 */
+	public static PatternDatabase read(InputStream in) throws IOException
+	{
+		DataInputStream data = new DataInputStream(in);
+		if(data.readInt() != MAGIC)
+			throw new IOException("Not a pattern database");
+		if(data.readInt() != VERSION)
+			throw new IOException("Unsupported pattern database version");
+
+		final int size = data.readInt(), tileCount = data.readInt();
+		if(tileCount <= 0 || tileCount > MAX_PATTERN_SIZE)
+			throw new IOException("Unsupported pattern");
+		final int[] tiles = new int[tileCount];
+		for(int idx = 0; idx < tiles.length; ++idx)
+			tiles[idx] = data.readInt();
+
+		final int[] pattern;
+		try {
+			pattern = checkPattern(size, tiles);
+		}
+		catch(IllegalArgumentException invalidPattern)
+		{
+			// Convert exception to convey the correct semantics
+			throw new IOException("Unsupported pattern", invalidPattern);
+		}
+
+		final int placementCount = data.readInt();
+		if(placementCount != countPlacements(size * size, pattern.length))
+			throw new IOException("Corrupted pattern database");
+		final byte[] distances = new byte[placementCount];
+		data.readFully(distances);
+
+		return new PatternDatabase(size, pattern, distances);
+	}
+
+	/**
+	 * Factory method that reads a database from the given file.
+	 *
+	 * @param file The file
+	 * @return The new instance
+	 * @throws IOException if an I/O error occurs, or if the file's contents are not
+	 * a database in a supported format
+	 */
+	public static PatternDatabase load(File file) throws IOException
+	{
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			return read(in);
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Writes the database to the given stream. The format starts with a header that
+	 * identifies it and its version, followed by the board size, the pattern's tiles and
+	 * the distances.
+	 *
+	 * @param out The stream
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void write(OutputStream out) throws IOException
+	{
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(size);
+		data.writeInt(tiles.length);
+		for(int tile : tiles)
+			data.writeInt(tile);
+		data.writeInt(distances.length);
+		data.write(distances);
+		data.flush();
+	}
+
+	/**
+	 * Writes the database to the given file.
+	 *
+	 * @param file The file
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void save(File file) throws IOException
+	{
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+		try {
+			write(out);
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Gets the size of the boards to which the database applies.
+	 *
+	 * @return The boards' size
+	 */
+	public int getSize()
+	{
+		return size;
+	}
+
+	/**
+	 * Gets the identifiers of the pattern's tiles.
+	 *
+	 * @return A copy of the pattern
+	 */
+	public int[] getTiles()
+	{
+		return tiles.clone();
+	}
+
+	/**
+	 * Gets the index of the given tile in the pattern.
+	 *
+	 * @param tile The tile identifier
+	 * @return The tile's index in the pattern, or {@code -1} if it does not belong to it
+	 */
+	int getPatternIndex(int tile)
+	{
+		return patternIndexes[tile];
+	}
+
+	/**
+	 * Gets the positions of the pattern's tiles in the given board. Tiles of boards packed
+	 * in a {@code long} are located by a few word operations each, rather than by a pass
+	 * over the board's positions.
+	 *
+	 * @param board The board
+	 * @return The positions, packed in a {@code long} in the pattern's order
+	 */
+	long getPlacement(Board board)
+	{
+		if(board.isPackedInLong())
+			return getPlacement(board.getPackedValue());
+
+		long placement = 0;
+		for(int index = 0; index < board.getCellCount(); ++index)
+		{
+			final int patternIndex = patternIndexes[board.get(index)];
+			if(patternIndex >= 0)
+				placement |= (long) index << (patternIndex * POSITION_BITS);
+		}
+		return placement;
+	}
+
+	/**
+	 * Helper method that gets the positions of the pattern's tiles in the given packed board,
+	 * whose 4-bit values are compared with each tile all at once.
+	 *
+	 * @param packedTiles The board's tiles, packed in a {@code long}
+	 * @return The positions, packed in a {@code long} in the pattern's order
+	 */
+	private long getPlacement(long packedTiles)
+	{
+		long placement = 0;
+		for(int idx = 0; idx < tiles.length; ++idx)
+		{
+			// Only the value that holds the tile becomes zero, which leaves its high bit clear
+			final long match = packedTiles ^ (tiles[idx] * NIBBLE_ONES);
+			final long zeros = ~(((match & NIBBLE_LOW_BITS) + NIBBLE_LOW_BITS) | match) & NIBBLE_HIGH_BITS;
+			placement |= (long) (Long.numberOfTrailingZeros(zeros) >>> 2) << (idx * POSITION_BITS);
+		}
+		return placement;
+	}
+
+	/**
+	 * Computes the rank of the given placement, that is, its index in the database.
+	 *
+	 * @param placement The positions of the pattern's tiles, packed in a {@code long}
+	 * @return The placement's rank
+	 */
+	int rank(long placement)
+	{
+		final int cellCount = size * size;
+		long occupied = 0;
+		int rank = 0;
+		for(int idx = 0; idx < tiles.length; ++idx)
+		{
+			final int position = (int) (placement >>> (idx * POSITION_BITS)) & (int) POSITION_MASK;
+			// Positions already taken by preceding tiles are not available
+			rank = rank * (cellCount - idx) + position - Long.bitCount(occupied & ((1L << position) - 1));
+			occupied |= 1L << position;
+		}
+		return rank;
+	}
+
+	/**
+	 * Gets the distance of the given placement.
+	 *
+	 * @param placement The positions of the pattern's tiles, packed in a {@code long}
+	 * @return The minimum number of moves of the pattern's tiles required to bring them
+	 * to their correct positions
+	 */
+	int lookup(long placement)
+	{
+		return distances[rank(placement)];
+	}
+
+	/**
+	 * Gets the minimum number of moves of the pattern's tiles required to bring them to
+	 * their correct positions in the given board.
+	 *
+	 * @param board The board
+	 * @return The distance
+	 * @throws IllegalArgumentException if the board's size is not the database's size
+	 */
+	public int lookup(Board board)
+	{
+		if(board.getSize() != size)
+			throw new IllegalArgumentException();
+
+		return lookup(getPlacement(board));
+	}
+}
@@ -0,0 +1,152 @@
+package poo.demos.puzzle.model.solvers;
+
+import java.util.Collections;
+import java.util.List;
+
+import poo.demos.puzzle.model.Move;
+
+/**
+ * Class whose immutable instances represent the outcome of a solver's execution: 
+ * the moves that solve the puzzle, along with the search's statistics.
+ * 
+ * Each move is expressed as the {@link Move.Delta} applied to the piece that is moved
+ * to the empty space, that is, the piece adjacent to the empty space in the direction 
+ * opposite to the delta.
+ */
+public final class Solution {
+
+	/**
+	 * The solution's moves.
+	 */
+	private final List<Move.Delta> moves;
+	
+	/**
+	 * The number of nodes expanded during the search.
+	 */
+	private final long expandedNodes;
+	
+	/**
+	 * The maximum number of bytes held by the search's data structures.
+	 */
+	private final long peakMemory;
+	
+	/**
+	 * The search's duration, in nanoseconds.
+	 */
+	private final long elapsedNanos;
+	
+	/**
+	 * The number of nodes expanded by each of the threads that performed the search.
+	 */
+	private final long[] workerExpandedNodes;
+	
+	/**
+	 * Initiates an instance that describes the outcome of a single-threaded search.
+	 * 
+	 * @param moves The solution's moves
+	 * @param expandedNodes The number of nodes expanded during the search
+	 * @param peakMemory The maximum number of bytes held by the search's data structures
+	 * @param elapsedNanos The search's duration, in nanoseconds
+	 */
+	Solution(List<Move.Delta> moves, long expandedNodes, long peakMemory, long elapsedNanos)
+	{
+		this(moves, new long[] { expandedNodes }, peakMemory, elapsedNanos);
+	}
+	
+	/**
+	 * Initiates an instance that describes the outcome of a multi-threaded search.
+	 * 
+	 * @param moves The solution's moves
+	 * @param workerExpandedNodes The number of nodes expanded by each thread
+	 * @param peakMemory The maximum number of bytes held by the search's data structures
+	 * @param elapsedNanos The search's duration, in nanoseconds
+	 */
+	Solution(List<Move.Delta> moves, long[] workerExpandedNodes, long peakMemory, long elapsedNanos)
+	{
+		long expandedNodes = 0;
+		for(long workerNodes : workerExpandedNodes)
+			expandedNodes += workerNodes;
+		
+		this.moves = Collections.unmodifiableList(moves);
+		this.workerExpandedNodes = workerExpandedNodes;
+		this.expandedNodes = expandedNodes;
+		this.peakMemory = peakMemory;
+		this.elapsedNanos = elapsedNanos;
+	}
+	
+	/**
+	 * Gets the moves that solve the puzzle, in the order by which they must be applied.
+	 * 
+	 * @return The (read-only) list of moves
+	 */
+	public List<Move.Delta> getMoves()
+	{
+		return moves;
+	}
+	
+	/**
+	 * Gets the solution's length, that is, its number of moves.
+	 * 
+	 * @return The number of moves
+	 */
+	public int getLength()
+	{
+		return moves.size();
+	}
+	
+	/**
+	 * Gets the number of nodes expanded during the search.
+	 * 
+	 * @return The number of expanded nodes
+	 */
+	public long getExpandedNodes()
+	{
+		return expandedNodes;
+	}
+	
+	/**
+	 * Gets the number of nodes expanded by each of the threads that performed the search.
+	 * Single-threaded searches report one thread.
+	 * 
+	 * @return A new array with one node count per thread
+	 */
+	public long[] getWorkerExpandedNodes()
+	{
+		return workerExpandedNodes.clone();
+	}
+	
+	/**
+	 * Gets the maximum number of bytes held by the search's data structures.
+	 * 
+	 * @return The peak memory, in bytes
+	 */
+	public long getPeakMemory()
+	{
+		return peakMemory;
+	}
+	
+	/**
+	 * Gets the search's duration.
+	 * 
+	 * @return The elapsed time, in nanoseconds
+	 */
+	public long getElapsedNanos()
+	{
+		return elapsedNanos;
+	}
+	
+	@Override
+	public String toString() 
+	{
+		return new StringBuilder("{ length=")
+			.append(getLength())
+			.append("; expanded=")
+			.append(expandedNodes)
+			.append("; peakMemory=")
+			.append(peakMemory)
+			.append("; elapsedNanos=")
+			.append(elapsedNanos)
+			.append(" }")
+			.toString();
+	}
+}
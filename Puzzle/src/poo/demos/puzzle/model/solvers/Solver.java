@@ -0,0 +1,86 @@
+package poo.demos.puzzle.model.solvers;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.Grid;
+import poo.demos.puzzle.model.Puzzle;
+
+/**
+ * Base abstract class for puzzle solvers, that is, for algorithms that compute
+ * the sequence of moves that brings a puzzle to its solved state.
+ * 
+ * Solvers operate on a copy of the puzzle's packed representation: the puzzle 
+ * instance itself is never modified. Unsolvable puzzles are rejected before any 
+ * search takes place.
+ */
+public abstract class Solver {
+
+	/**
+	 * Computes the solution of the given grid.
+	 * 
+	 * @param grid The grid to be solved
+	 * @return The solution, or {@code null} if none has been found or if the puzzle is unsolvable
+	 * @throws IllegalArgumentException if the grid is {@code null} or if the solver
+	 * does not support the grid's size
+	 */
+	public Solution solve(Grid grid)
+	{
+		if(grid == null)
+			throw new IllegalArgumentException();
+		
+		return searchIfSolvable(grid.toBoard());
+	}
+	
+	/**
+	 * Computes the solution of the given puzzle.
+	 * 
+	 * @param puzzle The puzzle to be solved
+	 * @return The solution, or {@code null} if none has been found or if the puzzle is unsolvable
+	 * @throws IllegalArgumentException if the puzzle is {@code null} or if the solver
+	 * does not support the puzzle's size
+	 */
+	public Solution solve(Puzzle puzzle)
+	{
+		if(puzzle == null)
+			throw new IllegalArgumentException();
+		
+		return searchIfSolvable(puzzle.toBoard());
+	}
+	
+	/**
+	 * Computes the solution of the given board. The board instance is not modified.
+	 * 
+	 * @param board The board to be solved
+	 * @return The solution, or {@code null} if none has been found or if the puzzle is unsolvable
+	 * @throws IllegalArgumentException if the board is {@code null} or if the solver
+	 * does not support the board's size
+	 */
+	public Solution solve(Board board)
+	{
+		if(board == null)
+			throw new IllegalArgumentException();
+		
+		return searchIfSolvable(board.copy());
+	}
+	
+	/**
+	 * Helper method that performs the search for the solution of the given board,
+	 * if it is solvable.
+	 * 
+	 * @param board The board to be solved
+	 * @return The solution, or {@code null} if none has been found or if the board is unsolvable
+	 */
+	private Solution searchIfSolvable(Board board)
+	{
+		return board.isSolvable() ? search(board) : null;
+	}
+	
+	/**
+	 * Performs the search for the solution of the given board, which is owned by the
+	 * solver and may therefore be modified.
+	 * 
+	 * @param board The board to be solved
+	 * @return The solution, or {@code null} if none has been found
+	 * @throws IllegalArgumentException if the solver does not support the board's size
+	 */
+	protected abstract Solution search(Board board);
+}
@@ -0,0 +1,402 @@
+package poo.demos.puzzle.model.solvers;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import poo.demos.puzzle.model.Move;
+import poo.demos.utils.SplitMix64;
+
+/**
+ * Class whose instances are fixed-size tables that associate puzzle states with search
+ * information (the best known cost to reach the state, its estimated distance to the
+ * solution, the depth of the search that produced the information and the best next move),
+ * and that can be shared by any number of threads without locking.
+ *
+ * States are identified by 64-bit keys: the packed value of boards up to 4x4 (see
+ * {@link poo.demos.puzzle.model.Board#getPackedValue()}) or the Zobrist hash of larger ones
+ * (see {@link poo.demos.puzzle.model.Grid#getZobristHash()}). Entries are stored in a single
+ * {@code long} array, two words per slot: the entry's data, packed in a {@code long}, and
+ * the exclusive or of the data with the key. Entries are therefore verified on each probe,
+ * and an entry whose words were written by different threads is simply regarded as absent.
+ * Entries are replaced by means of compare-and-set operations on their data word, and the
+ * verification word is written afterwards. Threads that concurrently store the same key may
+ * therefore claim different slots, so each store checks the bucket once its entry is complete
+ * and merges any duplicate into the first of both slots, which is the one found by probes.
+ *
+ * Each key can be stored in one of {@link #BUCKET_SIZE} consecutive slots. When all of them
+ * hold other keys, the replacement policy determines whether an existing entry is evicted.
+ * Probes return the entry's data packed in a {@code long}, which is decoded by the class'
+ * static methods: no allocation takes place.
+ */
+public final class TranspositionTable {
+
+	/**
+	 * Enumeration of the policies that determine whether new entries replace existing ones.
+	 */
+	public static enum ReplacementPolicy
+	{
+		/**
+		 * Entries are only replaced by entries produced by searches at least as deep.
+		 */
+		DEPTH_PREFERRED,
+
+		/**
+		 * Entries are always replaced.
+		 */
+		ALWAYS_REPLACE
+	}
+
+	/**
+	 * The value returned by {@link #probe(long)} when the key is not found.
+	 */
+	public static final long MISS = 0;
+
+	/**
+	 * The maximum value of costs, estimates and depths.
+	 */
+	public static final int MAX_VALUE = 0xFFFF;
+
+	/**
+	 * The maximum memory budget, in megabytes.
+	 */
+	public static final int MAX_BUDGET_MEGABYTES = 8 * 1024;
+
+	/**
+	 * The number of consecutive slots where each key can be stored.
+	 */
+	static final int BUCKET_SIZE = 4;
+
+	/**
+	 * The number of bytes used by each slot.
+	 */
+	private static final int SLOT_SIZE = 2 * Long.SIZE / Byte.SIZE;
+
+	/**
+	 * The bit that marks entries as occupied, which means that no entry is ever zero.
+	 */
+	private static final long OCCUPIED = 1L << 63;
+
+	/**
+	 * The data word of slots released when merging duplicate entries. It is not an entry (its
+	 * occupied bit is clear), but, unlike {@link #MISS}, it does not end the bucket's probes.
+	 */
+	private static final long RELEASED = 1;
+
+	/**
+	 * The value that represents the absence of a next move.
+	 */
+	private static final int NO_MOVE = 7;
+
+	/**
+	 * The bit offsets of the entry's fields.
+	 */
+	private static final int COST_SHIFT = 0, ESTIMATE_SHIFT = 16, DEPTH_SHIFT = 32, MOVE_SHIFT = 48;
+
+	/**
+	 * The existing moves.
+	 */
+	private static final Move.Delta[] DELTAS = Move.Delta.values();
+
+	/**
+	 * Holds the slots: the verification word of slot {@code i} is at {@code 2i} and its
+	 * data word is at {@code 2i + 1}.
+	 */
+	private final AtomicLongArray slots;
+
+	/**
+	 * The mask used to map hash values to slots (i.e. capacity - 1).
+	 */
+	private final int mask;
+
+	/**
+	 * The replacement policy.
+	 */
+	private final ReplacementPolicy policy;
+
+	/**
+	 * Initiates an empty table that uses, at most, the given amount of memory.
+	 *
+	 * @param budgetMegabytes The memory budget, in megabytes. The number of slots is the
+	 * largest power of two that fits the budget.
+	 * @param policy The replacement policy
+	 * @throws IllegalArgumentException if the budget is not positive or is greater than
+	 * {@link #MAX_BUDGET_MEGABYTES}, or if the policy is {@code null}
+	 */
+	public TranspositionTable(int budgetMegabytes, ReplacementPolicy policy)
+	{
+		if(budgetMegabytes <= 0 || budgetMegabytes > MAX_BUDGET_MEGABYTES || policy == null)
+			throw new IllegalArgumentException();
+
+		final long capacity = Long.highestOneBit(((long) budgetMegabytes << 20) / SLOT_SIZE);
+		slots = new AtomicLongArray((int) (capacity * 2));
+		mask = (int) capacity - 1;
+		this.policy = policy;
+	}
+
+	/**
+	 * Helper method that packs the given entry fields.
+	 *
+	 * @param cost The best known cost
+	 * @param estimate The estimated distance to the solution
+	 * @param depth The depth of the search that produced the entry
+	 * @param nextMove The best next move, or {@code null}
+	 * @return The packed entry
+	 */
+	private static long pack(int cost, int estimate, int depth, Move.Delta nextMove)
+	{
+		return OCCUPIED
+			| (long) cost << COST_SHIFT
+			| (long) estimate << ESTIMATE_SHIFT
+			| (long) depth << DEPTH_SHIFT
+			| (long) (nextMove == null ? NO_MOVE : nextMove.ordinal()) << MOVE_SHIFT;
+	}
+
+	/**
+	 * Helper method that checks whether the given data word holds an entry.
+	 *
+	 * @param data The data word
+	 * @return {@code true} if the word is neither {@link #MISS} nor {@link #RELEASED}
+	 */
+	private static boolean isEntry(long data)
+	{
+		return (data & OCCUPIED) != 0;
+	}
+
+	/**
+	 * Helper method that computes the first slot of the given key's bucket.
+	 *
+	 * @param key The key
+	 * @return The slot index
+	 */
+	private int slotOf(long key)
+	{
+		return (int) SplitMix64.mix64(key) & mask;
+	}
+
+	/**
+	 * Gets the best known cost of the given entry.
+	 *
+	 * @param entry The entry, as returned by {@link #probe(long)}
+	 * @return The cost
+	 */
+	public static int getCost(long entry)
+	{
+		return (int) (entry >>> COST_SHIFT) & MAX_VALUE;
+	}
+
+	/**
+	 * Gets the estimated distance to the solution of the given entry.
+	 *
+	 * @param entry The entry, as returned by {@link #probe(long)}
+	 * @return The estimate
+	 */
+	public static int getEstimate(long entry)
+	{
+		return (int) (entry >>> ESTIMATE_SHIFT) & MAX_VALUE;
+	}
+
+	/**
+	 * Gets the depth of the search that produced the given entry.
+	 *
+	 * @param entry The entry, as returned by {@link #probe(long)}
+	 * @return The depth
+	 */
+	public static int getDepth(long entry)
+	{
+		return (int) (entry >>> DEPTH_SHIFT) & MAX_VALUE;
+	}
+
+	/**
+	 * Gets the best next move of the given entry.
+	 *
+	 * @param entry The entry, as returned by {@link #probe(long)}
+	 * @return The move, or {@code null} if the entry holds none
+	 */
+	public static Move.Delta getNextMove(long entry)
+	{
+		final int move = (int) (entry >>> MOVE_SHIFT) & 0x7;
+		return move == NO_MOVE ? null : DELTAS[move];
+	}
+
+	/**
+	 * Gets the entry associated to the given key.
+	 *
+	 * @param key The key
+	 * @return The entry, to be decoded by the class' static methods, or {@link #MISS}
+	 * if the key is not found
+	 */
+	public long probe(long key)
+	{
+		final int home = slotOf(key);
+		for(int idx = 0; idx < BUCKET_SIZE; ++idx)
+		{
+			final int slot = (home + idx) & mask;
+			final long data = slots.get(2 * slot + 1);
+			if(data == MISS)
+				return MISS;
+			if(isEntry(data) && (slots.get(2 * slot) ^ data) == key)
+				return data;
+		}
+		return MISS;
+	}
+
+	/**
+	 * Associates the given information to the given key, if the replacement policy allows it.
+	 *
+	 * @param key The key
+	 * @param cost The best known cost
+	 * @param estimate The estimated distance to the solution
+	 * @param depth The depth of the search that produced the information
+	 * @param nextMove The best next move, or {@code null}
+	 * @return {@code true} if the information has been stored, {@code false} if the
+	 * replacement policy prevented it, or if it gave way to a deeper entry of the same key
+	 * stored concurrently
+	 * @throws IllegalArgumentException if any of the values is negative or greater
+	 * than {@link #MAX_VALUE}
+	 */
+	public boolean store(long key, int cost, int estimate, int depth, Move.Delta nextMove)
+	{
+		if(((cost | estimate | depth) & ~MAX_VALUE) != 0)
+			throw new IllegalArgumentException();
+
+		final long entry = pack(cost, estimate, depth, nextMove);
+		final int home = slotOf(key);
+		while(true)
+		{
+			// Find the key's slot, or else the first released or free slot, or else the replacement candidate
+			int target = -1, free = -1;
+			long expected = MISS, freeData = MISS;
+			for(int idx = 0; idx < BUCKET_SIZE; ++idx)
+			{
+				final int slot = (home + idx) & mask;
+				final long data = slots.get(2 * slot + 1);
+				if(!isEntry(data))
+				{
+					if(free == -1)
+					{
+						free = slot;
+						freeData = data;
+					}
+					if(data == MISS)
+						break;
+					continue;
+				}
+
+				if((slots.get(2 * slot) ^ data) == key)
+				{
+					if(policy == ReplacementPolicy.DEPTH_PREFERRED && getDepth(data) > depth)
+						return false;
+					target = slot;
+					expected = data;
+					free = -1;
+					break;
+				}
+
+				if(target == -1 || getDepth(data) < getDepth(expected))
+				{
+					target = slot;
+					expected = data;
+				}
+			}
+
+			if(free != -1)
+			{
+				target = free;
+				expected = freeData;
+			}
+			else if(policy == ReplacementPolicy.DEPTH_PREFERRED && getDepth(expected) > depth)
+				return false;
+
+			if(slots.compareAndSet(2 * target + 1, expected, entry))
+			{
+				slots.set(2 * target, key ^ entry);
+				return mergeDuplicates(key, home, target, entry);
+			}
+			// Another thread changed the slot meanwhile: reevaluate the bucket
+		}
+	}
+
+	/**
+	 * Helper method that merges the entries of the given key held by other slots of its bucket
+	 * with the entry just stored. Each thread checks the bucket after writing its verification
+	 * word, so when two threads store the key in different slots, at least one of them finds
+	 * the other's entry. The prevailing entry (the deepest one, unless the policy is
+	 * {@link ReplacementPolicy#ALWAYS_REPLACE}, in which case it is the one just stored) is
+	 * kept in the first of both slots and the other slot is released.
+	 *
+	 * @param key The key
+	 * @param home The first slot of the key's bucket
+	 * @param slot The slot where the entry has been stored
+	 * @param entry The stored entry
+	 * @return {@code true} if the stored entry prevails over its duplicates
+	 */
+	private boolean mergeDuplicates(long key, int home, int slot, long entry)
+	{
+		boolean prevails = true;
+		int idx = 0;
+		while(idx < BUCKET_SIZE)
+		{
+			final int other = (home + idx++) & mask;
+			if(other == slot)
+				continue;
+			final long data = slots.get(2 * other + 1);
+			if(data == MISS)
+				break;
+			if(!isEntry(data) || (slots.get(2 * other) ^ data) != key)
+				continue;
+
+			// If the stored entry has been replaced meanwhile, merging is up to its replacer
+			if(slots.get(2 * slot + 1) != entry || (slots.get(2 * slot) ^ entry) != key)
+				break;
+
+			final long kept = policy == ReplacementPolicy.DEPTH_PREFERRED && getDepth(data) > getDepth(entry) ? data : entry;
+			final boolean otherFirst = ((other - home) & mask) < ((slot - home) & mask);
+			final int keptSlot = otherFirst ? other : slot, releasedSlot = otherFirst ? slot : other;
+			final long keptData = otherFirst ? data : entry, releasedData = otherFirst ? entry : data;
+			if(keptData != kept && !slots.compareAndSet(2 * keptSlot + 1, keptData, kept))
+			{
+				// Another thread changed the slot meanwhile: reevaluate the bucket
+				idx = 0;
+				continue;
+			}
+			if(keptData != kept)
+				slots.set(2 * keptSlot, key ^ kept);
+			slots.compareAndSet(2 * releasedSlot + 1, releasedData, RELEASED);
+
+			// Look for further duplicates, even if the released slot changed meanwhile
+			prevails &= kept == entry;
+			slot = keptSlot;
+			entry = kept;
+			idx = 0;
+		}
+		return prevails;
+	}
+
+	/**
+	 * Removes all entries. Must not be called while other threads use the table.
+	 */
+	public void clear()
+	{
+		for(int idx = 0; idx < slots.length(); ++idx)
+			slots.set(idx, 0);
+	}
+
+	/**
+	 * Gets the number of slots.
+	 *
+	 * @return The table's capacity
+	 */
+	public int getCapacity()
+	{
+		return mask + 1;
+	}
+
+	/**
+	 * Gets the number of bytes used by the table.
+	 *
+	 * @return The memory footprint, in bytes
+	 */
+	public long getMemoryFootprint()
+	{
+		return (long) getCapacity() * SLOT_SIZE;
+	}
+}
@@ -0,0 +1,90 @@
+package poo.demos.utils;
+
+/**
+ * Holder of the contracts of back-pressured producer/consumer pipelines. The contracts
+ * mirror the ones of Java 9's {@code java.util.concurrent.Flow} (i.e. the Reactive Streams
+ * specification), which is not available in the platform versions targeted by the project.
+ *
+ * A {@link Publisher} only delivers items to a {@link Subscriber} after they have been
+ * requested through the {@link Subscription}, which means that consumers control the
+ * pace at which items are produced.
+ */
+public final class Flow {
+
+	/**
+	 * Prevents instantiation.
+	 */
+	private Flow() { }
+
+	/**
+	 * Contract to be supported by producers of items.
+	 *
+	 * @param <T> The type of the produced items
+	 */
+	public static interface Publisher<T>
+	{
+		/**
+		 * Adds the given subscriber, whose {@link Subscriber#onSubscribe(Subscription)}
+		 * method is called before any other.
+		 *
+		 * @param subscriber The subscriber
+		 * @throws NullPointerException if the subscriber is {@code null}
+		 */
+		public void subscribe(Subscriber<? super T> subscriber);
+	}
+
+	/**
+	 * Contract to be supported by consumers of items. Methods are called in sequence,
+	 * never concurrently.
+	 *
+	 * @param <T> The type of the consumed items
+	 */
+	public static interface Subscriber<T>
+	{
+		/**
+		 * Called once the subscription is established. No items are delivered before
+		 * they are requested through the given subscription.
+		 *
+		 * @param subscription The subscription
+		 */
+		public void onSubscribe(Subscription subscription);
+
+		/**
+		 * Called with each of the requested items.
+		 *
+		 * @param item The item
+		 */
+		public void onNext(T item);
+
+		/**
+		 * Called if the production of items fails. No other methods are called afterwards.
+		 *
+		 * @param error The cause of the failure
+		 */
+		public void onError(Throwable error);
+
+		/**
+		 * Called once all items have been delivered. No other methods are called afterwards.
+		 */
+		public void onComplete();
+	}
+
+	/**
+	 * Contract to be supported by the links between publishers and subscribers.
+	 */
+	public static interface Subscription
+	{
+		/**
+		 * Requests the given number of additional items.
+		 *
+		 * @param count The number of items. A non-positive number signals an error
+		 * through {@link Subscriber#onError(Throwable)}.
+		 */
+		public void request(long count);
+
+		/**
+		 * Stops the delivery of items, eventually.
+		 */
+		public void cancel();
+	}
+}
@@ -0,0 +1,206 @@
+package poo.demos.utils;
+
+/**
+ * Class whose instances are maps from {@code long} keys to {@code int} values.
+ *
+ * Entries are stored in parallel primitive arrays using open addressing with linear
+ * probing, which means that neither keys nor values are ever boxed and that no
+ * allocation takes place other than when the map grows. Entries cannot be removed.
+ */
+public class LongIntHashMap {
+
+	/**
+	 * The default initial capacity.
+	 */
+	private static final int DEFAULT_CAPACITY = 1024;
+
+	/**
+	 * The key used to signal free slots. The entry with this key, if any, is stored apart.
+	 */
+	private static final long FREE_KEY = 0;
+
+	/**
+	 * Holds the keys, or {@link #FREE_KEY} for free slots.
+	 */
+	private long[] keys;
+
+	/**
+	 * Holds the values.
+	 */
+	private int[] values;
+
+	/**
+	 * Holds the mask used to map hash values to slots (i.e. capacity - 1).
+	 */
+	private int mask;
+
+	/**
+	 * The number of entries stored in the arrays.
+	 */
+	private int size;
+
+	/**
+	 * Holds a boolean value indicating whether an entry with {@link #FREE_KEY} exists.
+	 */
+	private boolean hasFreeKey;
+
+	/**
+	 * Holds the value of the entry with {@link #FREE_KEY}, if it exists.
+	 */
+	private int freeKeyValue;
+
+	/**
+	 * Helper method that computes the initial slot of the given key.
+	 *
+	 * @param key The key
+	 * @return The slot index
+	 */
+	private int slotOf(long key)
+	{
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+	/**
+	 * Helper method that doubles the map's capacity.
+	 */
+	private void grow()
+	{
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+
+		keys = new long[oldKeys.length * 2];
+		values = new int[oldKeys.length * 2];
+		mask = keys.length - 1;
+
+		for(int idx = 0; idx < oldKeys.length; ++idx)
+		{
+			if(oldKeys[idx] == FREE_KEY)
+				continue;
+
+			int slot = slotOf(oldKeys[idx]);
+			while(keys[slot] != FREE_KEY)
+				slot = (slot + 1) & mask;
+			keys[slot] = oldKeys[idx];
+			values[slot] = oldValues[idx];
+		}
+	}
+
+	/**
+	 * Initiates an empty map with the default capacity.
+	 */
+	public LongIntHashMap()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Initiates an empty map with the capacity required to hold the given number of entries
+	 * without growing.
+	 *
+	 * @param expectedSize The expected number of entries
+	 * @throws IllegalArgumentException if the expected size is negative
+	 */
+	public LongIntHashMap(int expectedSize)
+	{
+		if(expectedSize < 0)
+			throw new IllegalArgumentException();
+
+		int capacity = Integer.highestOneBit(Math.max(expectedSize * 2, 2) - 1) << 1;
+		keys = new long[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Gets the value associated to the given key.
+	 *
+	 * @param key The key
+	 * @param defaultValue The value to return if the key does not exist
+	 * @return The associated value, or {@code defaultValue} if the key does not exist
+	 */
+	public int get(long key, int defaultValue)
+	{
+		if(key == FREE_KEY)
+			return hasFreeKey ? freeKeyValue : defaultValue;
+
+		for(int slot = slotOf(key); keys[slot] != FREE_KEY; slot = (slot + 1) & mask)
+			if(keys[slot] == key)
+				return values[slot];
+
+		return defaultValue;
+	}
+
+	/**
+	 * Checks whether the given key exists.
+	 *
+	 * @param key The key
+	 * @return {@code true} if the key exists, {@code false} otherwise
+	 */
+	public boolean containsKey(long key)
+	{
+		if(key == FREE_KEY)
+			return hasFreeKey;
+
+		for(int slot = slotOf(key); keys[slot] != FREE_KEY; slot = (slot + 1) & mask)
+			if(keys[slot] == key)
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * Associates the given value to the given key, replacing the existing association, if any.
+	 *
+	 * @param key The key
+	 * @param value The value
+	 */
+	public void put(long key, int value)
+	{
+		if(key == FREE_KEY)
+		{
+			if(!hasFreeKey)
+				size += 1;
+			hasFreeKey = true;
+			freeKeyValue = value;
+			return;
+		}
+
+		int slot = slotOf(key);
+		for(; keys[slot] != FREE_KEY; slot = (slot + 1) & mask)
+		{
+			if(keys[slot] == key)
+			{
+				values[slot] = value;
+				return;
+			}
+		}
+
+		keys[slot] = key;
+		values[slot] = value;
+
+		// Keep the load factor at or below 1/2
+		if(++size * 2 > keys.length)
+			grow();
+	}
+
+	/**
+	 * Gets the number of entries.
+	 *
+	 * @return The number of entries
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Gets the number of bytes currently used by the map's arrays.
+	 *
+	 * @return The (approximate) memory footprint, in bytes
+	 */
+	public long getMemoryFootprint()
+	{
+		return (long) keys.length * (Long.SIZE + Integer.SIZE) / Byte.SIZE;
+	}
+}
@@ -0,0 +1,172 @@
+package poo.demos.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class whose instances are splittable pseudo-random number generators, based on the
+ * SplitMix64 algorithm (the one used by Java 8's {@code java.util.SplittableRandom}).
+ *
+ * Each generator produces its values from a 64-bit seed that is advanced by a fixed odd
+ * gamma. {@link #split()} produces a new generator whose stream is statistically independent
+ * from the original one, which means that parallel computations can each be given their own
+ * generator and still be reproducible from a single seed. Instances are not thread-safe.
+ */
+public final class SplitMix64 {
+
+	/**
+	 * The gamma of generators created from a seed (the odd integer closest to 2^64 / phi).
+	 */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * The source of seeds of generators created without one.
+	 */
+	private static final AtomicLong defaultSeeds = new AtomicLong(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()));
+
+	/**
+	 * The current seed, advanced by {@link #gamma} on each produced value.
+	 */
+	private long seed;
+
+	/**
+	 * The generator's gamma, which is always odd.
+	 */
+	private final long gamma;
+
+	/**
+	 * Mixes the bits of the given value to produce a 64-bit value. The function is a
+	 * bijection whose results are evenly distributed, even for consecutive arguments.
+	 *
+	 * @param value The value to be mixed
+	 * @return The mixed value
+	 */
+	public static long mix64(long value)
+	{
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
+	}
+
+	/**
+	 * Helper method that mixes the bits of the given value to produce a 32-bit value.
+	 *
+	 * @param value The value to be mixed
+	 * @return The mixed value
+	 */
+	private static int mix32(long value)
+	{
+		value = (value ^ (value >>> 33)) * 0x62A9D9ED799705F5L;
+		return (int) (((value ^ (value >>> 28)) * 0xCB24D0A5C88C35B3L) >>> 32);
+	}
+
+	/**
+	 * Helper method that mixes the bits of the given value to produce a gamma, that is,
+	 * an odd value with enough bit transitions.
+	 *
+	 * @param value The value to be mixed
+	 * @return The gamma
+	 */
+	private static long mixGamma(long value)
+	{
+		value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+		value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		value = (value ^ (value >>> 33)) | 1L;
+		return Long.bitCount(value ^ (value >>> 1)) < 24 ? value ^ 0xAAAAAAAAAAAAAAAAL : value;
+	}
+
+	/**
+	 * Initiates a generator with the given seed and gamma.
+	 *
+	 * @param seed The initial seed
+	 * @param gamma The gamma, which must be odd
+	 */
+	private SplitMix64(long seed, long gamma)
+	{
+		this.seed = seed;
+		this.gamma = gamma;
+	}
+
+	/**
+	 * Initiates a generator whose sequence of values is determined by the given seed.
+	 *
+	 * @param seed The initial seed
+	 */
+	public SplitMix64(long seed)
+	{
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Initiates a generator whose sequence of values is likely to differ from the ones
+	 * of every other generator created this way.
+	 */
+	public SplitMix64()
+	{
+		this(mix64(defaultSeeds.getAndAdd(2 * GOLDEN_GAMMA)));
+	}
+
+	/**
+	 * Helper method that advances the seed.
+	 *
+	 * @return The new seed
+	 */
+	private long nextSeed()
+	{
+		return seed += gamma;
+	}
+
+	/**
+	 * Produces a new generator that shares no state with this one. The new generator's
+	 * values are determined by this generator's current state.
+	 *
+	 * @return The new generator
+	 */
+	public SplitMix64 split()
+	{
+		return new SplitMix64(nextLong(), mixGamma(nextSeed()));
+	}
+
+	/**
+	 * Gets the next pseudo-random {@code long} value.
+	 *
+	 * @return The value
+	 */
+	public long nextLong()
+	{
+		return mix64(nextSeed());
+	}
+
+	/**
+	 * Gets the next pseudo-random {@code int} value.
+	 *
+	 * @return The value
+	 */
+	public int nextInt()
+	{
+		return mix32(nextSeed());
+	}
+
+	/**
+	 * Gets the next pseudo-random {@code int} value, uniformly distributed between zero
+	 * (inclusive) and the given bound (exclusive).
+	 *
+	 * @param bound The upper bound
+	 * @return The value
+	 * @throws IllegalArgumentException if the bound is not positive
+	 */
+	public int nextInt(int bound)
+	{
+		if(bound <= 0)
+			throw new IllegalArgumentException();
+
+		final int mask = bound - 1;
+		int value = nextInt();
+		if((bound & mask) == 0)
+			return value & mask;
+
+		// Reject values from the last, incomplete, range to keep the distribution uniform
+		for(int bits = value >>> 1; bits + mask - (value = bits % bound) < 0; bits = nextInt() >>> 1)
+			;
+		return value;
+	}
+}
@@ -1,7 +1,9 @@
 package poo.demos.puzzle;
 
 import poo.demos.common.views.TileView;
+import poo.demos.puzzle.model.Puzzle;
 import android.app.Activity;
+import android.app.FragmentManager;
 import android.os.Bundle;
 
 /**
@@ -10,15 +12,30 @@ import android.os.Bundle;
 public class PuzzleActivity extends Activity {
 
 	/**
-	 * The associated controller instance
+	 * The associated controller instance, or {@code null} while its model is being restored
 	 */
 	private PuzzleController puzzleController;
 	
+	/**
+	 * Holds the state being restored, which is saved again if the activity is stopped 
+	 * before the restore completes
+	 */
+	private Bundle pendingState;
+	
+	/**
+	 * Holds a boolean value indicating whether the activity has been destroyed
+	 */
+	private boolean destroyed;
+	
 	@Override
 	protected void onSaveInstanceState(Bundle outState) 
 	{
 		super.onSaveInstanceState(outState);
-		puzzleController.saveState(outState);
+		if(puzzleController == null)
+			PuzzleController.copyState(pendingState, outState);
+		// The model survives configuration changes in the retained fragment
+		else if(!isChangingConfigurations())
+			puzzleController.saveState(outState);
 	}
 
 	@Override
@@ -29,8 +46,52 @@ public class PuzzleActivity extends Activity {
 
 		TileView tileView = (TileView) findViewById(R.id.puzzleView);
 		
-		puzzleController = (savedInstanceState != null) ? 
-				PuzzleController.createController(tileView, savedInstanceState, this) :
-				PuzzleController.createController(tileView, true, this);
+		FragmentManager fragments = getFragmentManager();
+		RetainedModelFragment modelHolder = (RetainedModelFragment) fragments.findFragmentByTag(RetainedModelFragment.TAG);
+		if(modelHolder == null)
+		{
+			modelHolder = new RetainedModelFragment();
+			fragments.beginTransaction().add(modelHolder, RetainedModelFragment.TAG).commit();
+		}
+		
+		Puzzle retainedModel = modelHolder.getModel();
+		if(retainedModel != null)
+			setController(PuzzleController.createController(tileView, retainedModel, this), modelHolder);
+		else if(savedInstanceState == null)
+			setController(PuzzleController.createController(tileView, true, this), modelHolder);
+		else
+		{
+			// Large models are restored in the background, which onCreate does not wait for
+			final RetainedModelFragment holder = modelHolder;
+			pendingState = savedInstanceState;
+			PuzzleController.createController(tileView, savedInstanceState, this, new PuzzleController.OnControllerCreatedListener() {
+				@Override
+				public void onCreated(PuzzleController controller)
+				{
+					if(!destroyed)
+						setController(controller, holder);
+				}
+			});
+		}
+	}
+	
+	@Override
+	protected void onDestroy()
+	{
+		destroyed = true;
+		super.onDestroy();
+	}
+	
+	/**
+	 * Helper method that sets the activity's controller and retains its model.
+	 * 
+	 * @param controller The controller instance
+	 * @param modelHolder The fragment that retains the model
+	 */
+	private void setController(PuzzleController controller, RetainedModelFragment modelHolder)
+	{
+		puzzleController = controller;
+		pendingState = null;
+		modelHolder.setModel(controller.getModel());
 	}
 }
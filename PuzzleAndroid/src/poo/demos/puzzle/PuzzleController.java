@@ -1,11 +1,11 @@
 package poo.demos.puzzle;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
+import java.io.File;
+import java.io.IOException;
 
 import android.app.Activity;
 import android.graphics.RectF;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.os.Vibrator;
 import poo.demos.common.views.Animator;
@@ -17,6 +17,9 @@ import poo.demos.puzzle.BatchedAnimationQueue.PendingAnimation;
 import poo.demos.puzzle.model.Piece;
 import poo.demos.puzzle.model.Position;
 import poo.demos.puzzle.model.Puzzle;
+import poo.demos.puzzle.model.PuzzleCodec;
+import poo.demos.puzzle.model.Slide;
+import poo.demos.puzzle.model.journal.SnapshotStore;
 import poo.demos.puzzle.views.NumberPuzzleTileFactory;
 import poo.demos.puzzle.viewstate.PuzzleSurrogate;
 
@@ -26,6 +29,20 @@ import poo.demos.puzzle.viewstate.PuzzleSurrogate;
  */
 public class PuzzleController {
 	
+	/**
+	 * Interface that specifies the contract to receive the controllers whose model is 
+	 * restored in the background.
+	 */
+	public static interface OnControllerCreatedListener {
+
+		/**
+		 * Signals that the controller has been created. Called on the UI thread.
+		 * 
+		 * @param controller the controller instance
+		 */
+		public void onCreated(PuzzleController controller);
+	}
+	
 	private static boolean VIBRATE = true;
 	
 	private static final long VIBRATION_DURATION = 20;
@@ -35,6 +52,29 @@ public class PuzzleController {
 	 */
 	private static final String VIEW_STATE_KEY = "poo.demos.puzzle.model.Puzzle";
 	
+	/**
+	 * Constant strings used as keys for storing and retrieving the reference to the 
+	 * view's state, when it is kept in the snapshot store
+	 */
+	private static final String SNAPSHOT_KEY_KEY = "poo.demos.puzzle.model.Puzzle.snapshot";
+	private static final String SNAPSHOT_CHECKSUM_KEY = "poo.demos.puzzle.model.Puzzle.checksum";
+	
+	/**
+	 * The key of the puzzle's snapshot in the snapshot store
+	 */
+	private static final String SNAPSHOT_KEY = "puzzle";
+	
+	/**
+	 * The maximum size of encoded puzzles stored in bundles. Larger puzzles are kept in the
+	 * snapshot store, because bundles are limited by the size of the Binder transaction buffer.
+	 */
+	private static final int MAX_BUNDLED_PUZZLE_BYTES = 64 * 1024;
+	
+	/**
+	 * Holds the snapshot store, which is created on demand and shared by all controllers
+	 */
+	private static SnapshotStore snapshotStore;
+	
 	/**
 	 * Holds the current puzzle view
 	 */
@@ -169,41 +209,22 @@ public class PuzzleController {
 				if(!isSwipeAlignedWithEmptySpace(empty, evt))
 					return;
 				
-				// I must start at the piece that is adjacent to the empty space... 
-				List<Piece> movingPieces = new LinkedList<Piece>();
-				int currentColumn = evt.column, currentRow = evt.row;
-				Piece targetPiece = null;
-				while((targetPiece = model.getPieceAtPosition(Position.fromCoordinates(currentColumn, currentRow))) != null)
-				{
-					movingPieces.add(targetPiece);
-					// Adjust coordinates and continue. Again, ugly as hell...
-					switch(evt.swipeDirection)
-					{
-						case UP: currentRow -= 1; break;
-						case DOWN: currentRow += 1; break;
-						case LEFT: currentColumn -= 1; break;
-						case RIGHT: currentColumn += 1; break;
-					}
-				}
+				// Slide the whole line at once and prepare animation, starting at the 
+				// piece that was adjacent to the empty space
+				final Slide slide = model.slideLine(Position.fromCoordinates(evt.column, evt.row));
+				if(slide == null)
+					return;
 				
-				// Perform move and prepare animation
 				BatchedAnimationQueue.PendingAnimationBuilder builder = new BatchedAnimationQueue.PendingAnimationBuilder();
-				ListIterator<Piece> itr = movingPieces.listIterator(movingPieces.size());
-				while(itr.hasPrevious())
+				for(int idx = 0; idx < slide.count; ++idx)
 				{
-					targetPiece = itr.previous();
-					final Position origin = targetPiece.getPosition();
-					if(model.doMove(targetPiece))
-					{
-						// Move has been performed. Register it for animation
-						final Position destination = targetPiece.getPosition();
-						Animator.Move move = new Animator.Move(
-								(Moveable) view.getTileAt(origin.X, origin.Y), 
-								view.getBoundsForTileAt(origin.X, origin.Y),
-								view.getBoundsForTileAt(destination.X, destination.Y)
-						);
-						builder.add(move, origin, destination);
-					}
+					final Position origin = slide.getOrigin(idx), destination = slide.getDestination(idx);
+					Animator.Move move = new Animator.Move(
+							(Moveable) view.getTileAt(origin.X, origin.Y), 
+							view.getBoundsForTileAt(origin.X, origin.Y),
+							view.getBoundsForTileAt(destination.X, destination.Y)
+					);
+					builder.add(move, origin, destination);
 				}
 
 				vibrate();
@@ -235,15 +256,71 @@ public class PuzzleController {
 	}
 
 	/**
-	 * Saves the puzzle's state in the given bundle.
+	 * Gets the puzzle model.
+	 * 
+	 * @return The model instance
+	 */
+	public Puzzle getModel()
+	{
+		return model;
+	}
+	
+	/**
+	 * Gets the snapshot store, creating it if needed.
+	 * 
+	 * @param owner The activity whose files directory holds the store
+	 * @return The snapshot store
+	 * @throws IOException if the store's directory cannot be created
+	 */
+	private static synchronized SnapshotStore getSnapshotStore(Activity owner) throws IOException
+	{
+		if(snapshotStore == null)
+			snapshotStore = new SnapshotStore(new File(owner.getFilesDir(), "snapshots"));
+		return snapshotStore;
+	}
+	
+	/**
+	 * Saves the puzzle's state in the given bundle. The state of large puzzles is written 
+	 * to the snapshot store, in the background, and the bundle only holds its key and checksum.
 	 * 
 	 * @param stateBundle The bundle used to store the puzzle's state
 	 */
 	public void saveState(Bundle stateBundle)
 	{
+		if(PuzzleCodec.getEncodedSize(model.getSize()) > MAX_BUNDLED_PUZZLE_BYTES)
+		{
+			try {
+				stateBundle.putLong(SNAPSHOT_CHECKSUM_KEY, getSnapshotStore(activity).save(SNAPSHOT_KEY, model));
+				stateBundle.putString(SNAPSHOT_KEY_KEY, SNAPSHOT_KEY);
+				return;
+			}
+			catch(IOException storeUnavailable)
+			{
+				// Fall back to the bundle
+			}
+		}
 		stateBundle.putParcelable(VIEW_STATE_KEY, new PuzzleSurrogate(model));
 	}
 
+	/**
+	 * Copies the puzzle's state saved by {@link #saveState(Bundle)} from one bundle to another
+	 * (e.g. when the state is saved again before it has been restored).
+	 * 
+	 * @param savedState The bundle that holds the puzzle's state
+	 * @param stateBundle The bundle used to store the puzzle's state
+	 */
+	public static void copyState(Bundle savedState, Bundle stateBundle)
+	{
+		final String snapshotKey = savedState.getString(SNAPSHOT_KEY_KEY);
+		if(snapshotKey != null)
+		{
+			stateBundle.putString(SNAPSHOT_KEY_KEY, snapshotKey);
+			stateBundle.putLong(SNAPSHOT_CHECKSUM_KEY, savedState.getLong(SNAPSHOT_CHECKSUM_KEY));
+		}
+		else
+			stateBundle.putParcelable(VIEW_STATE_KEY, savedState.getParcelable(VIEW_STATE_KEY));
+	}
+
 	/**
 	 * Factory method that creates a controller instance with the given view and a newly 
 	 * instantiated model. 
@@ -262,17 +339,66 @@ public class PuzzleController {
 		);
 	}
 	
+	/**
+	 * Factory method that creates a controller instance with the given view and the given,
+	 * already existing, model (e.g. one retained across a configuration change). 
+	 * 
+	 * @param puzzleView The view instance 
+	 * @param model The model instance
+	 * @return The controller instance
+	 */
+	public static PuzzleController createController(TileView puzzleView, Puzzle model, Activity owner)
+	{
+		return new PuzzleController(puzzleView, model, owner);
+	}
+	
 	/**
 	 * Factory method that creates a controller instance with the given view and the model
-	 * retrieved from the received {@link Bundle} instance.
+	 * retrieved from the received {@link Bundle} instance. Models kept in the snapshot store
+	 * are loaded in the background, so that the UI thread never waits for the store, and the
+	 * view is only bound to the model once it has been loaded. Models held by the bundle 
+	 * are restored immediately, and the listener is notified before the method returns.
 	 * 
 	 * @param puzzleView The view instance 
 	 * @param modelState The model state
-	 * @return The controller instance
+	 * @param listener The listener that receives the controller instance
 	 */
-	public static PuzzleController createController(TileView puzzleView, Bundle modelState, Activity owner)
+	public static void createController(final TileView puzzleView, Bundle modelState, final Activity owner, 
+			final OnControllerCreatedListener listener)
 	{
+		final String snapshotKey = modelState.getString(SNAPSHOT_KEY_KEY);
+		if(snapshotKey != null)
+		{
+			final long checksum = modelState.getLong(SNAPSHOT_CHECKSUM_KEY);
+			new AsyncTask<Void, Void, Puzzle>() {
+				@Override
+				protected Puzzle doInBackground(Void... none)
+				{
+					try {
+						return new Puzzle(getSnapshotStore(owner).load(snapshotKey, checksum));
+					}
+					catch(IOException snapshotLost)
+					{
+						return null;
+					}
+				}
+				
+				@Override
+				protected void onPostExecute(Puzzle model)
+				{
+					// The snapshot is no longer available: start a new game
+					listener.onCreated(model != null ? 
+							new PuzzleController(puzzleView, model, owner) : 
+							createController(puzzleView, true, owner));
+				}
+			}.execute();
+			return;
+		}
+		
 		PuzzleSurrogate modelSurrogate = (PuzzleSurrogate) modelState.getParcelable(VIEW_STATE_KEY);
-		return new PuzzleController(puzzleView, modelSurrogate.getPuzzle(), owner);
+		// States saved during configuration changes hold no model (see RetainedModelFragment)
+		listener.onCreated(modelSurrogate != null ? 
+				new PuzzleController(puzzleView, modelSurrogate.getPuzzle(), owner) : 
+				createController(puzzleView, true, owner));
 	}
 }
@@ -0,0 +1,52 @@
+package poo.demos.puzzle;
+
+import poo.demos.puzzle.model.Puzzle;
+import android.app.Fragment;
+import android.os.Bundle;
+
+/**
+ * Headless fragment whose instances keep the puzzle model alive across configuration 
+ * changes (e.g. rotations). The fragment has no view and is retained, which means that the 
+ * same instance is handed to the recreated activity: the model is neither serialized nor 
+ * rebuilt, and only the views are recreated. The model's state is only saved to the 
+ * activity's bundle when the process may actually be destroyed.
+ */
+public class RetainedModelFragment extends Fragment {
+
+	/**
+	 * The tag that identifies the fragment in its activity's fragment manager.
+	 */
+	public static final String TAG = "poo.demos.puzzle.RetainedModelFragment";
+	
+	/**
+	 * Holds the retained puzzle model, or {@code null} if none has been set yet.
+	 */
+	private Puzzle model;
+	
+	@Override
+	public void onCreate(Bundle savedInstanceState)
+	{
+		super.onCreate(savedInstanceState);
+		setRetainInstance(true);
+	}
+	
+	/**
+	 * Gets the retained puzzle model.
+	 * 
+	 * @return The puzzle model, or {@code null} if none has been retained
+	 */
+	public Puzzle getModel()
+	{
+		return model;
+	}
+	
+	/**
+	 * Sets the puzzle model to be retained.
+	 * 
+	 * @param model The puzzle model
+	 */
+	public void setModel(Puzzle model)
+	{
+		this.model = model;
+	}
+}
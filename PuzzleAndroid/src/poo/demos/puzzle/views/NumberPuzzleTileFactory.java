@@ -31,7 +31,7 @@ public class NumberPuzzleTileFactory implements TileFactory {
 	@Override
 	public Tile createTile(int row, int column, TileView parent, RectF tileBounds) 
 	{
-		Piece piece = puzzle.getPieceAtPosition(Position.fromCoordinates(column, row));
+		Piece piece = puzzle.getPieceAtPosition(column, row);
 		if(piece == null)
 			return new EmptyTile(parent, tileBounds);
 		
@@ -1,18 +1,17 @@
 package poo.demos.puzzle.viewstate;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import poo.demos.puzzle.model.Grid;
-import poo.demos.puzzle.model.Piece;
-import poo.demos.puzzle.model.Position;
 import poo.demos.puzzle.model.Puzzle;
+import poo.demos.puzzle.model.PuzzleCodec;
 import android.os.Parcel;
 import android.os.Parcelable;
 
 /**
  * Class whose instances are used as puzzle model surrogates (for serialization purposes). 
  * The idea is not have dependencies to Android's framework in the model subsystem.
+ * 
+ * The puzzle is stored as a single byte array, produced by {@link PuzzleCodec}, which means
+ * that saving and restoring it amounts to one array copy and one pass over its positions.
+ * Pieces are identified by their tiles, so their initial positions are preserved.
  */
 public class PuzzleSurrogate implements Parcelable {
 
@@ -46,41 +45,8 @@ public class PuzzleSurrogate implements Parcelable {
      */
     private PuzzleSurrogate(Parcel in) 
     {
-	    	int side = in.readInt();
-	    	Position emptySpace = readPositionFromParcel(in);
-	    	
-	    	final int PIECE_COUNT = side * side - 1;
-	    	List<Piece> pieces = new ArrayList<Piece>(PIECE_COUNT);
-	    	for(int i = 0; i < PIECE_COUNT; ++i)
-	    		pieces.add(PieceSurrogate.CREATOR.createFromParcel(in));
-	    	
-	    	puzzle = new Puzzle(Grid.createPuzzle(pieces, emptySpace));
+	    	puzzle = new Puzzle(PuzzleCodec.decode(in.createByteArray()));
     }
-		
-	/**
-	 * Helper method that stores the given {@link Position} to the {@link Parcel} instance
-	 * received as an argument.
-	 * 
-	 * @param position the {@link Position} instance to be stored
-	 * @param out the parcel used to store the information
-	 */
-	private void writePositionToParcel(Position position, Parcel out)
-	{
-		out.writeInt(position.X);
-		out.writeInt(position.Y);
-	}
-	
-	/**
-	 * Helper method that stores the given {@link Position} to the {@link Parcel} instance
-	 * received as an argument.
-	 * 
-	 * @param position the {@link Position} instance to be stored
-	 * @param dest the parcel used to store the information
-	 */
-	private Position readPositionFromParcel(Parcel in)
-	{
-		return Position.fromCoordinates(in.readInt(), in.readInt());
-	}
 
 	/**
 	 * Initiates the surrogate with the given puzzle instance.
@@ -111,12 +77,6 @@ public class PuzzleSurrogate implements Parcelable {
 	@Override
 	public void writeToParcel(Parcel out, int flags) 
 	{
-		int side = puzzle.getSize();
-		out.writeInt(side);
-		
-		writePositionToParcel(puzzle.getEmptySpacePosition(), out);
-				
-		for(Piece piece : puzzle)
-			new PieceSurrogate(piece).writeToParcel(out, flags);
+		out.writeByteArray(PuzzleCodec.encode(puzzle));
 	}
 }
@@ -0,0 +1,205 @@
+package poo.demos.puzzle.model.corpus.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.corpus.CorpusFile;
+import poo.demos.puzzle.model.corpus.CorpusGenerator;
+import poo.demos.utils.Flow;
+
+public class CorpusGeneratorTests {
+	
+	/**
+	 * Subscriber that requests one board at a time and collects them.
+	 */
+	private static class CollectingSubscriber implements Flow.Subscriber<Board>
+	{
+		final List<Board> boards = new ArrayList<Board>();
+		Flow.Subscription subscription;
+		boolean completed;
+		Throwable error;
+		
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) { this.subscription = subscription; }
+		
+		@Override
+		public void onNext(Board item)
+		{
+			boards.add(item);
+			subscription.request(1);
+		}
+		
+		@Override
+		public void onError(Throwable error) { this.error = error; }
+		
+		@Override
+		public void onComplete() { completed = true; }
+	}
+	
+	private static File createTempFile() throws IOException
+	{
+		File file = File.createTempFile("corpus", ".bin");
+		file.deleteOnExit();
+		return file;
+	}
+	
+	private static byte[] readAll(File file) throws IOException
+	{
+		byte[] contents = new byte[(int) file.length()];
+		InputStream in = new FileInputStream(file);
+		try {
+			int read = 0;
+			while(read < contents.length)
+				read += in.read(contents, read, contents.length - read);
+		}
+		finally {
+			in.close();
+		}
+		return contents;
+	}
+	
+	@Test
+	public void write_sameSeedWithDifferentParallelism_producesSameFile() throws IOException
+	{
+		File first = createTempFile(), second = createTempFile();
+		new CorpusGenerator(4, 42, 1).write(first, 3000);
+		new CorpusGenerator(4, 42, 3).write(second, 3000);
+		
+		assertThat(Arrays.equals(readAll(first), readAll(second)), is(true));
+	}
+	
+	@Test
+	public void open_writtenFile_recordsAreSolvableBoards() throws IOException
+	{
+		for(int size : new int[] { 3, 4, 17 })
+		{
+			File file = createTempFile();
+			new CorpusGenerator(size, 7).write(file, 50);
+			
+			CorpusFile corpus = CorpusFile.open(file);
+			try {
+				assertThat(corpus.getSize(), is(equalTo(size)));
+				assertThat(corpus.getCount(), is(equalTo(50L)));
+				assertThat(corpus.getSeed(), is(equalTo(7L)));
+				assertThat(file.length(), is(equalTo(CorpusFile.HEADER_SIZE + 50L * CorpusFile.getRecordSize(size))));
+				for(long index = 49; index >= 0; --index)
+				{
+					Board board = corpus.read(index);
+					assertThat(board.isSolvable(), is(true));
+					assertThat(board.get(board.getCellCount() - 1), is(equalTo(Board.EMPTY)));
+				}
+			}
+			finally {
+				corpus.close();
+			}
+		}
+	}
+	
+	@Test
+	public void publish_withSingleRequests_deliversSameBoardsAsFile() throws IOException
+	{
+		CorpusGenerator generator = new CorpusGenerator(4, 99, 2);
+		File file = createTempFile();
+		generator.write(file, CorpusGenerator.CHUNK_SIZE + 10);
+		
+		CollectingSubscriber subscriber = new CollectingSubscriber();
+		generator.publish(CorpusGenerator.CHUNK_SIZE + 10).subscribe(subscriber);
+		assertThat(subscriber.boards.size(), is(equalTo(0)));
+		
+		subscriber.subscription.request(1);
+		assertThat(subscriber.completed, is(true));
+		assertThat(subscriber.error, is(nullValue()));
+		assertThat(subscriber.boards.size(), is(equalTo(CorpusGenerator.CHUNK_SIZE + 10)));
+		
+		CorpusFile corpus = CorpusFile.open(file);
+		try {
+			for(int index = 0; index < subscriber.boards.size(); ++index)
+				assertThat(subscriber.boards.get(index), is(equalTo(corpus.read(index))));
+		}
+		finally {
+			corpus.close();
+		}
+	}
+	
+	@Test
+	public void publish_emptyCorpus_completesWithoutRequests()
+	{
+		CollectingSubscriber subscriber = new CollectingSubscriber();
+		new CorpusGenerator(4, 1).publish(0).subscribe(subscriber);
+		assertThat(subscriber.completed, is(true));
+	}
+	
+	@Test
+	public void request_withNonPositiveCount_signalsError()
+	{
+		CollectingSubscriber subscriber = new CollectingSubscriber();
+		new CorpusGenerator(4, 1).publish(10).subscribe(subscriber);
+		subscriber.subscription.request(0);
+		
+		assertThat(subscriber.error, is(instanceOf(IllegalArgumentException.class)));
+		assertThat(subscriber.boards.size(), is(equalTo(0)));
+	}
+	
+	@Test
+	public void getChunkSize_largeBoards_keepsChunksWithinByteBudget()
+	{
+		assertThat(new CorpusGenerator(4, 1, 1).getChunkSize(), is(equalTo(CorpusGenerator.CHUNK_SIZE)));
+		for(int size : new int[] { 64, 725, 2048 })
+		{
+			CorpusGenerator generator = new CorpusGenerator(size, 1, 1);
+			long chunkBytes = (long) generator.getChunkSize() * CorpusFile.getRecordSize(size);
+			assertThat(generator.getChunkSize() >= 1, is(true));
+			assertThat(chunkBytes <= Math.max(CorpusGenerator.CHUNK_BYTES, CorpusFile.getRecordSize(size)), is(true));
+			generator.close();
+		}
+	}
+	
+	@Test
+	public void publish_afterClose_signalsError()
+	{
+		CorpusGenerator generator = new CorpusGenerator(4, 1, 1);
+		generator.close();
+		CollectingSubscriber subscriber = new CollectingSubscriber();
+		generator.publish(10).subscribe(subscriber);
+		subscriber.subscription.request(1);
+		
+		assertThat(subscriber.error, is(notNullValue()));
+		assertThat(subscriber.boards.size(), is(equalTo(0)));
+	}
+	
+	@Test(expected = IOException.class)
+	public void open_fileWithUnknownFormat_exceptionThrown() throws IOException
+	{
+		CorpusFile.open(createTempFile());
+	}
+	
+	@Test(expected = IOException.class)
+	public void open_headerWithOverflowingCount_exceptionThrown() throws IOException
+	{
+		File file = createTempFile();
+		new CorpusGenerator(4, 7).write(file, 10);
+		
+		// Overwrite the header's count (at offset 16) with one whose data length overflows
+		RandomAccessFile corrupter = new RandomAccessFile(file, "rw");
+		try {
+			corrupter.seek(16);
+			corrupter.writeLong(Long.MAX_VALUE / CorpusFile.getRecordSize(4) + 1);
+		}
+		finally {
+			corrupter.close();
+		}
+		CorpusFile.open(file).close();
+	}
+}
@@ -0,0 +1,138 @@
+package poo.demos.puzzle.model.journal.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Test;
+
+import poo.demos.puzzle.model.Grid;
+import poo.demos.puzzle.model.Move;
+import poo.demos.puzzle.model.journal.MoveJournal;
+import poo.demos.utils.SplitMix64;
+
+public class MoveJournalTests {
+	
+	private static File createTempFile() throws IOException
+	{
+		File file = File.createTempFile("journal", ".bin");
+		file.deleteOnExit();
+		return file;
+	}
+	
+	/**
+	 * Does the given number of random legal moves in the journal's grid, recording them.
+	 */
+	private static void doRandomMoves(MoveJournal journal, int count, SplitMix64 random) throws IOException
+	{
+		Move.Delta[] deltas = Move.Delta.values();
+		for(int done = 0; done < count; )
+		{
+			Move.Delta delta = deltas[random.nextInt(deltas.length)];
+			if(journal.getGrid().applyDelta(delta))
+			{
+				journal.append(delta);
+				done += 1;
+			}
+		}
+	}
+	
+	@Test
+	public void recover_movesAfterLatestSnapshot_restoresGridAndMoveCount() throws IOException
+	{
+		File file = createTempFile();
+		MoveJournal journal = MoveJournal.create(file, Grid.createRandomPuzzle(4, new SplitMix64(5)), 64, 16);
+		doRandomMoves(journal, 1000, new SplitMix64(9));
+		Grid expected = journal.getGrid().copy();
+		journal.close();
+		
+		MoveJournal recovered = MoveJournal.recover(file, 16);
+		try {
+			assertThat(recovered.getGrid(), is(equalTo(expected)));
+			assertThat(recovered.getMoveCount(), is(equalTo(1000L)));
+			assertThat(recovered.getSnapshotInterval(), is(equalTo(64)));
+		}
+		finally {
+			recovered.close();
+		}
+	}
+	
+	@Test
+	public void recover_appendAfterRecovery_continuesJournal() throws IOException
+	{
+		File file = createTempFile();
+		MoveJournal journal = MoveJournal.create(file, Grid.createPuzzle(5), 10, 1);
+		doRandomMoves(journal, 25, new SplitMix64(3));
+		journal.close();
+		
+		journal = MoveJournal.recover(file, 1);
+		doRandomMoves(journal, 17, new SplitMix64(4));
+		Grid expected = journal.getGrid().copy();
+		journal.close();
+		
+		MoveJournal recovered = MoveJournal.recover(file, 1);
+		try {
+			assertThat(recovered.getGrid(), is(equalTo(expected)));
+			assertThat(recovered.getMoveCount(), is(equalTo(42L)));
+		}
+		finally {
+			recovered.close();
+		}
+	}
+	
+	@Test
+	public void recover_manyMovesAcrossRegions_restoresGrid() throws IOException
+	{
+		File file = createTempFile();
+		MoveJournal journal = MoveJournal.create(file, Grid.createPuzzle(3), 1000, 4096);
+		doRandomMoves(journal, 3 * (1 << 20), new SplitMix64(21));
+		Grid expected = journal.getGrid().copy();
+		journal.close();
+		
+		MoveJournal recovered = MoveJournal.recover(file, 4096);
+		try {
+			assertThat(recovered.getGrid(), is(equalTo(expected)));
+		}
+		finally {
+			recovered.close();
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void append_moveNotDone_throws() throws IOException
+	{
+		MoveJournal journal = MoveJournal.create(createTempFile(), Grid.createPuzzle(4), 10, 10);
+		try {
+			journal.append(Move.Delta.getInstanceFromCoordinates(1, 0));
+		}
+		finally {
+			journal.close();
+		}
+	}
+	
+	@Test(expected = IOException.class)
+	public void recover_notAJournal_throws() throws IOException
+	{
+		File file = createTempFile();
+		RandomAccessFile contents = new RandomAccessFile(file, "rw");
+		contents.writeLong(0x0123456789ABCDEFL);
+		contents.setLength(64);
+		contents.close();
+		MoveJournal.recover(file, 1);
+	}
+	
+	@Test(expected = IOException.class)
+	public void recover_sizeAboveMax_throws() throws IOException
+	{
+		File file = createTempFile();
+		MoveJournal.create(file, Grid.createPuzzle(4), 10, 10).close();
+		RandomAccessFile contents = new RandomAccessFile(file, "rw");
+		contents.seek(8);
+		contents.writeInt(46340);
+		contents.close();
+		MoveJournal.recover(file, 1);
+	}
+}
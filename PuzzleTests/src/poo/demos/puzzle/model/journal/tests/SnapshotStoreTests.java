@@ -0,0 +1,99 @@
+package poo.demos.puzzle.model.journal.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import poo.demos.puzzle.model.Grid;
+import poo.demos.puzzle.model.Puzzle;
+import poo.demos.puzzle.model.journal.SnapshotStore;
+import poo.demos.utils.SplitMix64;
+
+public class SnapshotStoreTests {
+	
+	private File directory;
+	private SnapshotStore store;
+	
+	@Before
+	public void createStore() throws IOException
+	{
+		directory = File.createTempFile("snapshots", "");
+		directory.delete();
+		store = new SnapshotStore(directory);
+	}
+	
+	@After
+	public void removeStore() throws IOException
+	{
+		store.close();
+		for(File file : directory.listFiles())
+			file.delete();
+		directory.delete();
+	}
+	
+	@Test
+	public void load_savedLargeGrid_producesEquivalentGrid() throws IOException
+	{
+		Grid grid = Grid.createRandomPuzzle(300, new SplitMix64(1));
+		long checksum = store.save("large", grid);
+		assertThat(store.load("large", checksum), is(equalTo(grid)));
+	}
+	
+	@Test
+	public void load_gridMovedAfterSave_producesSavedState() throws IOException
+	{
+		Grid grid = Grid.createPuzzle(4);
+		Grid saved = grid.copy();
+		long checksum = store.save("small", grid);
+		grid.doMove(grid.getPieceAtPosition(3, 2));
+		assertThat(store.load("small", checksum), is(equalTo(saved)));
+	}
+	
+	@Test
+	public void load_replacedSnapshot_producesLatestState() throws IOException
+	{
+		Puzzle puzzle = new Puzzle(5, true);
+		store.save("puzzle", Grid.createPuzzle(5));
+		long checksum = store.save("puzzle", puzzle);
+		assertThat(store.load("puzzle", checksum).getZobristHash(), is(equalTo(puzzle.getZobristHash())));
+	}
+	
+	@Test(expected = IOException.class)
+	public void load_wrongChecksum_throws() throws IOException
+	{
+		long checksum = store.save("grid", Grid.createPuzzle(4));
+		store.load("grid", checksum + 1);
+	}
+	
+	@Test(expected = IOException.class)
+	public void load_truncatedFile_throws() throws IOException
+	{
+		long checksum = store.save("grid", Grid.createPuzzle(10));
+		store.close();
+		RandomAccessFile file = new RandomAccessFile(new File(directory, "grid.snapshot"), "rw");
+		file.setLength(file.length() - 1);
+		file.close();
+		store.load("grid", checksum);
+	}
+	
+	@Test(expected = IOException.class)
+	public void load_deletedSnapshot_throws() throws IOException
+	{
+		long checksum = store.save("grid", Grid.createPuzzle(4));
+		store.delete("grid");
+		store.load("grid", checksum);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void save_keyWithPathSeparator_throws()
+	{
+		store.save("../grid", Grid.createPuzzle(4));
+	}
+}
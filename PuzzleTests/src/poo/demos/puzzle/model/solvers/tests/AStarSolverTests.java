@@ -0,0 +1,91 @@
+package poo.demos.puzzle.model.solvers.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.Grid;
+import poo.demos.puzzle.model.Move;
+import poo.demos.puzzle.model.Piece;
+import poo.demos.puzzle.model.Position;
+import poo.demos.puzzle.model.solvers.AStarSolver;
+import poo.demos.puzzle.model.solvers.ManhattanHeuristic;
+import poo.demos.puzzle.model.solvers.Solution;
+
+public class AStarSolverTests {
+
+	/**
+	 * One of the hardest 3x3 instances, whose optimal solution has 31 moves.
+	 */
+	static final int[] HARDEST_3X3 = { 8, 6, 7, 2, 5, 4, 3, 0, 1 };
+	
+	static Board createBoard(int side, int[] tiles)
+	{
+		Board board = Board.create(side);
+		for(int index = 0; index < tiles.length; ++index)
+			board.set(index, tiles[index]);
+		return board;
+	}
+	
+	static void applySolution(Grid grid, Solution solution)
+	{
+		for(Move.Delta delta : solution.getMoves())
+		{
+			Position empty = grid.getEmptySpacePosition();
+			Piece piece = grid.getPieceAtPosition(empty.X - delta.X, empty.Y - delta.Y);
+			assertThat(grid.doMove(piece), is(true));
+		}
+	}
+	
+	static void assertSolved(Grid grid)
+	{
+		assertThat(grid.toBoard(), is(equalTo(Board.createSolved(grid.getSize()))));
+	}
+	
+	@Test
+	public void solve_solvedPuzzle_returnsEmptySolution()
+	{
+		Solution solution = new AStarSolver().solve(Grid.createPuzzle(3));
+		assertThat(solution.getLength(), is(equalTo(0)));
+	}
+	
+	@Test
+	public void solve_hardest3x3Instance_returnsOptimalSolution()
+	{
+		Grid grid = Grid.createPuzzle(createBoard(3, HARDEST_3X3));
+		Solution solution = new AStarSolver().solve(grid);
+		
+		assertThat(solution.getLength(), is(equalTo(31)));
+		assertThat(solution.getExpandedNodes() > 0, is(true));
+		assertThat(solution.getPeakMemory() > 0, is(true));
+		applySolution(grid, solution);
+		assertSolved(grid);
+	}
+	
+	@Test
+	public void solve_easy4x4Instance_returnsSolutionThatSolvesTheGrid()
+	{
+		Board board = createBoard(4, new int[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 0, 11, 13, 14, 15, 12 });
+		Grid grid = Grid.createPuzzle(board);
+		Solution solution = new AStarSolver().solve(grid);
+		
+		assertThat(solution.getLength(), is(equalTo(2)));
+		applySolution(grid, solution);
+		assertSolved(grid);
+	}
+	
+	@Test
+	public void solve_withExhaustedNodeBudget_returnsNull()
+	{
+		Grid grid = Grid.createPuzzle(createBoard(3, HARDEST_3X3));
+		assertThat(new AStarSolver(new ManhattanHeuristic(), 100).solve(grid), is(nullValue()));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void solve_withBoardLargerThan4x4_exceptionThrown()
+	{
+		new AStarSolver().solve(Grid.createPuzzle(5));
+	}
+}
@@ -0,0 +1,60 @@
+package poo.demos.puzzle.model.solvers.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import poo.demos.puzzle.model.Grid;
+import poo.demos.puzzle.model.solvers.AStarSolver;
+import poo.demos.puzzle.model.solvers.BidirectionalSolver;
+import poo.demos.puzzle.model.solvers.Solution;
+
+public class BidirectionalSolverTests {
+	
+	@Test
+	public void solve_solvedPuzzle_returnsEmptySolution()
+	{
+		Solution solution = new BidirectionalSolver().solve(Grid.createPuzzle(4));
+		assertThat(solution.getLength(), is(equalTo(0)));
+	}
+	
+	@Test
+	public void solve_hardest3x3Instance_returnsOptimalSolution()
+	{
+		Grid grid = Grid.createPuzzle(AStarSolverTests.createBoard(3, AStarSolverTests.HARDEST_3X3));
+		Solution solution = new BidirectionalSolver().solve(grid);
+		
+		assertThat(solution.getLength(), is(equalTo(31)));
+		AStarSolverTests.applySolution(grid, solution);
+		AStarSolverTests.assertSolved(grid);
+	}
+	
+	@Test
+	public void solve_scrambled4x4Instances_returnsSameLengthAsAStar()
+	{
+		for(long seed = 1; seed <= 5; ++seed)
+		{
+			Grid grid = IdaStarSolverTests.createScrambledGrid(4, 24, seed);
+			Solution expected = new AStarSolver().solve(grid);
+			Solution solution = new BidirectionalSolver().solve(grid);
+			
+			assertThat(solution.getLength(), is(equalTo(expected.getLength())));
+			AStarSolverTests.applySolution(grid, solution);
+			AStarSolverTests.assertSolved(grid);
+		}
+	}
+	
+	@Test
+	public void solve_withInsufficientNodes_returnsNull()
+	{
+		Grid grid = Grid.createPuzzle(AStarSolverTests.createBoard(3, AStarSolverTests.HARDEST_3X3));
+		assertThat(new BidirectionalSolver(100).solve(grid), is(nullValue()));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void solve_boardLargerThan4x4_exceptionThrown()
+	{
+		new BidirectionalSolver().solve(Grid.createPuzzle(5));
+	}
+}
@@ -0,0 +1,122 @@
+package poo.demos.puzzle.model.solvers.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.Grid;
+import poo.demos.puzzle.model.Move;
+import poo.demos.puzzle.model.Piece;
+import poo.demos.puzzle.model.Position;
+import poo.demos.puzzle.model.solvers.AStarSolver;
+import poo.demos.puzzle.model.solvers.IdaStarSolver;
+import poo.demos.puzzle.model.solvers.LinearConflictHeuristic;
+import poo.demos.puzzle.model.solvers.ManhattanHeuristic;
+import poo.demos.puzzle.model.solvers.Solution;
+
+public class IdaStarSolverTests {
+
+	/**
+	 * Produces a solvable grid by applying the given number of random moves to a solved one.
+	 */
+	static Grid createScrambledGrid(int side, int moveCount, long seed)
+	{
+		Grid grid = Grid.createPuzzle(side);
+		Random random = new Random(seed);
+		Move.Delta[] deltas = Move.Delta.values();
+		while(moveCount > 0)
+		{
+			Move.Delta delta = deltas[random.nextInt(deltas.length)];
+			Position empty = grid.getEmptySpacePosition();
+			int x = empty.X - delta.X, y = empty.Y - delta.Y;
+			if(x < 0 || y < 0 || x >= side || y >= side)
+				continue;
+			
+			Piece piece = grid.getPieceAtPosition(x, y);
+			grid.doMove(piece);
+			moveCount -= 1;
+		}
+		return grid;
+	}
+	
+	@Test
+	public void solve_hardest3x3Instance_returnsOptimalSolution()
+	{
+		Grid grid = Grid.createPuzzle(AStarSolverTests.createBoard(3, AStarSolverTests.HARDEST_3X3));
+		Solution solution = new IdaStarSolver().solve(grid);
+		
+		assertThat(solution.getLength(), is(equalTo(31)));
+		AStarSolverTests.applySolution(grid, solution);
+		AStarSolverTests.assertSolved(grid);
+	}
+	
+	@Test
+	public void solve_scrambled4x4Instances_returnsSameLengthAsAStar()
+	{
+		for(long seed = 1; seed <= 5; ++seed)
+		{
+			Grid grid = createScrambledGrid(4, 40, seed);
+			Solution expected = new AStarSolver().solve(grid);
+			Solution solution = new IdaStarSolver().solve(grid);
+			
+			assertThat(solution.getLength(), is(equalTo(expected.getLength())));
+			AStarSolverTests.applySolution(grid, solution);
+			AStarSolverTests.assertSolved(grid);
+		}
+	}
+	
+	@Test
+	public void estimate_withLinearConflicts_isGreaterThanManhattanDistance()
+	{
+		// Tiles 2 and 1 are in their correct row, but in reverse order 
+		Board board = AStarSolverTests.createBoard(3, new int[] { 2, 1, 3, 4, 5, 6, 7, 8, 0 });
+		assertThat(new ManhattanHeuristic().estimate(board), is(equalTo(2)));
+		assertThat(new LinearConflictHeuristic().estimate(board), is(equalTo(4)));
+	}
+	
+	@Test
+	public void update_afterEachMove_matchesFullEstimate()
+	{
+		LinearConflictHeuristic heuristic = new LinearConflictHeuristic();
+		Board board = createScrambledGrid(4, 60, 7).toBoard();
+		int estimate = heuristic.estimate(board);
+		
+		Grid grid = Grid.createPuzzle(board);
+		Random random = new Random(11);
+		for(int step = 0; step < 200; ++step)
+		{
+			Position empty = grid.getEmptySpacePosition();
+			int x = empty.X + random.nextInt(3) - 1, y = empty.Y;
+			if(x == empty.X)
+				y += random.nextInt(3) - 1;
+			if(x < 0 || y < 0 || x >= 4 || y >= 4 || (x == empty.X && y == empty.Y))
+				continue;
+			
+			int from = y * 4 + x, to = empty.Y * 4 + empty.X, tile = board.get(from);
+			board.move(from, to);
+			grid.doMove(grid.getPieceAtPosition(x, y));
+			estimate = heuristic.update(board, estimate, tile, from, to);
+			assertThat(estimate, is(equalTo(heuristic.estimate(board))));
+		}
+	}
+	
+	@Test
+	public void solve_withExhaustedNodeBudget_returnsNull()
+	{
+		Grid grid = Grid.createPuzzle(AStarSolverTests.createBoard(3, AStarSolverTests.HARDEST_3X3));
+		assertThat(new IdaStarSolver(new LinearConflictHeuristic(), 100).solve(grid), is(nullValue()));
+	}
+	
+	@Test
+	public void solve_unsolvablePuzzle_returnsNull()
+	{
+		Board board = Board.createSolved(4);
+		board.set(0, 2);
+		board.set(1, 1);
+		assertThat(new IdaStarSolver().solve(board), is(nullValue()));
+	}
+}
@@ -0,0 +1,113 @@
+package poo.demos.puzzle.model.solvers.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import poo.demos.puzzle.model.Grid;
+import poo.demos.puzzle.model.solvers.IdaStarSolver;
+import poo.demos.puzzle.model.solvers.LinearConflictHeuristic;
+import poo.demos.puzzle.model.solvers.ParallelIdaStarSolver;
+import poo.demos.puzzle.model.solvers.Solution;
+
+public class ParallelIdaStarSolverTests {
+	
+	@Test
+	public void solve_hardest3x3Instance_returnsOptimalSolution()
+	{
+		Grid grid = Grid.createPuzzle(AStarSolverTests.createBoard(3, AStarSolverTests.HARDEST_3X3));
+		Solution solution = new ParallelIdaStarSolver().solve(grid);
+		
+		assertThat(solution.getLength(), is(equalTo(31)));
+		AStarSolverTests.applySolution(grid, solution);
+		AStarSolverTests.assertSolved(grid);
+	}
+	
+	@Test
+	public void solve_scrambled4x4Instances_returnsSameLengthAsIdaStar()
+	{
+		ParallelIdaStarSolver solver = new ParallelIdaStarSolver(new LinearConflictHeuristic(), 4, 256);
+		for(long seed = 1; seed <= 5; ++seed)
+		{
+			Grid grid = IdaStarSolverTests.createScrambledGrid(4, 60, seed);
+			Solution expected = new IdaStarSolver().solve(grid);
+			Solution solution = solver.solve(grid);
+			
+			assertThat(solution.getLength(), is(equalTo(expected.getLength())));
+			AStarSolverTests.applySolution(grid, solution);
+			AStarSolverTests.assertSolved(grid);
+		}
+	}
+	
+	@Test
+	public void solve_solutionShorterThanFrontierDepth_returnsOptimalSolution()
+	{
+		Grid grid = IdaStarSolverTests.createScrambledGrid(4, 3, 7);
+		Solution expected = new IdaStarSolver().solve(grid);
+		Solution solution = new ParallelIdaStarSolver().solve(grid);
+		
+		assertThat(solution.getLength(), is(equalTo(expected.getLength())));
+	}
+	
+	@Test
+	public void solve_2x2Instance_returnsOptimalSolution()
+	{
+		Grid grid = IdaStarSolverTests.createScrambledGrid(2, 5, 3);
+		Solution expected = new IdaStarSolver().solve(grid);
+		Solution solution = new ParallelIdaStarSolver().solve(grid);
+		
+		assertThat(solution.getLength(), is(equalTo(expected.getLength())));
+		AStarSolverTests.applySolution(grid, solution);
+		AStarSolverTests.assertSolved(grid);
+	}
+	
+	@Test
+	public void getWorkerExpandedNodes_afterSearch_sumEqualsExpandedNodes()
+	{
+		Grid grid = IdaStarSolverTests.createScrambledGrid(4, 60, 11);
+		Solution solution = new ParallelIdaStarSolver(new LinearConflictHeuristic(), 2, 64).solve(grid);
+		
+		long total = 0;
+		for(long workerNodes : solution.getWorkerExpandedNodes())
+			total += workerNodes;
+		assertThat(total, is(equalTo(solution.getExpandedNodes())));
+	}
+	
+	@Test
+	public void shutdown_solverWithSuppliedPool_leavesPoolRunning()
+	{
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			ParallelIdaStarSolver solver = new ParallelIdaStarSolver(new LinearConflictHeuristic(), pool, 64);
+			Grid grid = IdaStarSolverTests.createScrambledGrid(4, 30, 5);
+			Solution expected = new IdaStarSolver().solve(grid);
+			assertThat(solver.solve(grid).getLength(), is(equalTo(expected.getLength())));
+			
+			solver.shutdown();
+			assertThat(pool.isShutdown(), is(false));
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+	
+	@Test
+	public void getPeakMemory_afterSearch_coversEachSubtreeSearch()
+	{
+		Grid grid = IdaStarSolverTests.createScrambledGrid(4, 60, 11);
+		ParallelIdaStarSolver solver = new ParallelIdaStarSolver(new LinearConflictHeuristic(), 2, 64);
+		Solution solution = solver.solve(grid);
+		solver.shutdown();
+		
+		assertThat(solution.getPeakMemory() >= 64L * 128, is(true));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void createSolver_withNonPositiveParallelism_exceptionThrown()
+	{
+		new ParallelIdaStarSolver(new LinearConflictHeuristic(), 0, ParallelIdaStarSolver.DEFAULT_FRONTIER_SIZE);
+	}
+}
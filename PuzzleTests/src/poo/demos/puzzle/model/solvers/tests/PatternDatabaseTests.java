@@ -0,0 +1,129 @@
+package poo.demos.puzzle.model.solvers.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.Grid;
+import poo.demos.puzzle.model.solvers.AdditivePatternHeuristic;
+import poo.demos.puzzle.model.solvers.IdaStarSolver;
+import poo.demos.puzzle.model.solvers.ManhattanHeuristic;
+import poo.demos.puzzle.model.solvers.PatternDatabase;
+import poo.demos.puzzle.model.solvers.Solution;
+
+public class PatternDatabaseTests {
+	
+	/**
+	 * A partition of the 3x3 board's tiles, small enough to be built quickly.
+	 */
+	private static final int[][] PARTITION_3X3 = { { 1, 2, 3, 4 }, { 5, 6, 7, 8 } };
+	
+	@Test
+	public void lookup_solvedBoard_returnsZero()
+	{
+		PatternDatabase database = PatternDatabase.build(3, PARTITION_3X3[0]);
+		assertThat(database.lookup(Board.createSolved(3)), is(equalTo(0)));
+	}
+	
+	@Test
+	public void estimate_scrambledBoards_isAtLeastManhattanDistance()
+	{
+		AdditivePatternHeuristic heuristic = AdditivePatternHeuristic.build(3, PARTITION_3X3);
+		ManhattanHeuristic manhattan = new ManhattanHeuristic();
+		for(long seed = 1; seed <= 20; ++seed)
+		{
+			Board board = IdaStarSolverTests.createScrambledGrid(3, 30, seed).toBoard();
+			assertThat(heuristic.estimate(board) >= manhattan.estimate(board), is(true));
+		}
+	}
+	
+	@Test
+	public void update_afterEachMove_equalsEstimate()
+	{
+		AdditivePatternHeuristic heuristic = AdditivePatternHeuristic.build(3, PARTITION_3X3);
+		Board board = AStarSolverTests.createBoard(3, AStarSolverTests.HARDEST_3X3);
+		int estimate = heuristic.estimate(board);
+		for(int step = 0; step < 50; ++step)
+		{
+			int blank = board.indexOf(Board.EMPTY);
+			int origin = (step % 3 == 0 && blank % 3 > 0) ? blank - 1 : (blank >= 3 ? blank - 3 : blank + 3);
+			int tile = board.get(origin);
+			board.move(origin, blank);
+			estimate = heuristic.update(board, estimate, tile, origin, blank);
+			assertThat(estimate, is(equalTo(heuristic.estimate(board))));
+		}
+	}
+	
+	@Test
+	public void solve_hardest3x3InstanceWithPatternDatabases_returnsOptimalSolution()
+	{
+		AdditivePatternHeuristic heuristic = AdditivePatternHeuristic.build(3, PARTITION_3X3);
+		Grid grid = Grid.createPuzzle(AStarSolverTests.createBoard(3, AStarSolverTests.HARDEST_3X3));
+		Solution solution = new IdaStarSolver(heuristic, Long.MAX_VALUE).solve(grid);
+		
+		assertThat(solution.getLength(), is(equalTo(31)));
+		AStarSolverTests.applySolution(grid, solution);
+		AStarSolverTests.assertSolved(grid);
+	}
+	
+	@Test
+	public void read_afterWrite_returnsEquivalentDatabase() throws IOException
+	{
+		PatternDatabase database = PatternDatabase.build(3, PARTITION_3X3[1]);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		database.write(out);
+		PatternDatabase copy = PatternDatabase.read(new ByteArrayInputStream(out.toByteArray()));
+		
+		assertThat(copy.getSize(), is(equalTo(3)));
+		assertThat(copy.getTiles(), is(equalTo(PARTITION_3X3[1])));
+		for(long seed = 1; seed <= 20; ++seed)
+		{
+			Board board = IdaStarSolverTests.createScrambledGrid(3, 30, seed).toBoard();
+			assertThat(copy.lookup(board), is(equalTo(database.lookup(board))));
+		}
+	}
+	
+	@Test(expected = IOException.class)
+	public void read_withUnknownFormat_exceptionThrown() throws IOException
+	{
+		PatternDatabase.read(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+	}
+	
+	/**
+	 * Helper method that produces the persisted form of a 3x3 database, with the given
+	 * {@code int} value replacing the one at the given offset.
+	 */
+	private static byte[] writeDatabaseWith(int offset, int value) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PatternDatabase.build(3, PARTITION_3X3[0]).write(out);
+		byte[] data = out.toByteArray();
+		ByteBuffer.wrap(data).putInt(offset, value);
+		return data;
+	}
+	
+	@Test(expected = IOException.class)
+	public void read_withHugeTileCount_exceptionThrown() throws IOException
+	{
+		PatternDatabase.read(new ByteArrayInputStream(writeDatabaseWith(12, Integer.MAX_VALUE)));
+	}
+	
+	@Test(expected = IOException.class)
+	public void read_withHugePlacementCount_exceptionThrown() throws IOException
+	{
+		PatternDatabase.read(new ByteArrayInputStream(writeDatabaseWith(16 + 4 * PARTITION_3X3[0].length, Integer.MAX_VALUE)));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void createHeuristic_withOverlappingPatterns_exceptionThrown()
+	{
+		new AdditivePatternHeuristic(PatternDatabase.build(3, new int[] { 1, 2 }), PatternDatabase.build(3, new int[] { 2, 3 }));
+	}
+}
@@ -0,0 +1,194 @@
+package poo.demos.puzzle.model.solvers.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.Move;
+import poo.demos.puzzle.model.solvers.TranspositionTable;
+import poo.demos.puzzle.model.solvers.TranspositionTable.ReplacementPolicy;
+
+public class TranspositionTableTests {
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void create_nonPositiveBudget_exceptionThrown()
+	{
+		new TranspositionTable(0, ReplacementPolicy.DEPTH_PREFERRED);
+	}
+	
+	@Test
+	public void create_budget_fitsCapacityInBudget()
+	{
+		TranspositionTable table = new TranspositionTable(3, ReplacementPolicy.DEPTH_PREFERRED);
+		assertThat(table.getMemoryFootprint() <= 3 << 20, is(true));
+		assertThat(Integer.bitCount(table.getCapacity()), is(equalTo(1)));
+	}
+	
+	@Test
+	public void probe_emptyTable_misses()
+	{
+		TranspositionTable table = new TranspositionTable(1, ReplacementPolicy.DEPTH_PREFERRED);
+		assertThat(table.probe(Board.createSolved(4).getPackedValue()), is(equalTo(TranspositionTable.MISS)));
+	}
+	
+	@Test
+	public void probe_storedKey_returnsStoredValues()
+	{
+		TranspositionTable table = new TranspositionTable(1, ReplacementPolicy.DEPTH_PREFERRED);
+		long key = Board.createSolved(4).getPackedValue();
+		assertThat(table.store(key, 12, 34, 5, Move.Delta.STEP_LEFT), is(true));
+		
+		long entry = table.probe(key);
+		assertThat(TranspositionTable.getCost(entry), is(equalTo(12)));
+		assertThat(TranspositionTable.getEstimate(entry), is(equalTo(34)));
+		assertThat(TranspositionTable.getDepth(entry), is(equalTo(5)));
+		assertThat(TranspositionTable.getNextMove(entry), is(equalTo(Move.Delta.STEP_LEFT)));
+	}
+	
+	@Test
+	public void probe_zeroKeyAndNoMove_returnsStoredValues()
+	{
+		TranspositionTable table = new TranspositionTable(1, ReplacementPolicy.ALWAYS_REPLACE);
+		table.store(0, 0, 0, 0, null);
+		long entry = table.probe(0);
+		assertThat(entry, is(not(equalTo(TranspositionTable.MISS))));
+		assertThat(TranspositionTable.getNextMove(entry), is(nullValue()));
+	}
+	
+	@Test
+	public void store_shallowerEntryWithDepthPreferred_isRejected()
+	{
+		TranspositionTable table = new TranspositionTable(1, ReplacementPolicy.DEPTH_PREFERRED);
+		table.store(42, 1, 2, 10, Move.Delta.STEP_UP);
+		assertThat(table.store(42, 3, 4, 9, Move.Delta.STEP_DOWN), is(false));
+		assertThat(TranspositionTable.getDepth(table.probe(42)), is(equalTo(10)));
+		assertThat(table.store(42, 3, 4, 11, Move.Delta.STEP_DOWN), is(true));
+		assertThat(TranspositionTable.getDepth(table.probe(42)), is(equalTo(11)));
+	}
+	
+	@Test
+	public void store_shallowerEntryWithAlwaysReplace_replaces()
+	{
+		TranspositionTable table = new TranspositionTable(1, ReplacementPolicy.ALWAYS_REPLACE);
+		table.store(42, 1, 2, 10, Move.Delta.STEP_UP);
+		assertThat(table.store(42, 3, 4, 9, Move.Delta.STEP_DOWN), is(true));
+		assertThat(TranspositionTable.getNextMove(table.probe(42)), is(equalTo(Move.Delta.STEP_DOWN)));
+	}
+	
+	@Test
+	public void store_moreKeysThanCapacity_keepsTableConsistent()
+	{
+		TranspositionTable table = new TranspositionTable(1, ReplacementPolicy.ALWAYS_REPLACE);
+		int count = table.getCapacity() * 2;
+		for(int key = 0; key < count; ++key)
+			table.store(key, key & TranspositionTable.MAX_VALUE, 0, 0, null);
+		
+		int hits = 0;
+		for(int key = 0; key < count; ++key)
+		{
+			long entry = table.probe(key);
+			if(entry != TranspositionTable.MISS)
+			{
+				assertThat(TranspositionTable.getCost(entry), is(equalTo(key & TranspositionTable.MAX_VALUE)));
+				++hits;
+			}
+		}
+		assertThat(hits > table.getCapacity() / 2, is(true));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void store_valueOutOfRange_exceptionThrown()
+	{
+		new TranspositionTable(1, ReplacementPolicy.ALWAYS_REPLACE).store(1, TranspositionTable.MAX_VALUE + 1, 0, 0, null);
+	}
+	
+	@Test
+	public void store_concurrentWriters_neverReturnsTornEntries() throws InterruptedException
+	{
+		final TranspositionTable table = new TranspositionTable(1, ReplacementPolicy.DEPTH_PREFERRED);
+		final int threadCount = 4, keyCount = 1 << 15;
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] threads = new Thread[threadCount];
+		for(int idx = 0; idx < threadCount; ++idx)
+		{
+			final int depth = idx;
+			threads[idx] = new Thread() {
+				@Override
+				public void run()
+				{
+					try {
+						start.await();
+					}
+					catch(InterruptedException interrupted)
+					{
+						return;
+					}
+					// Each entry's fields are derived from its key, so any mix-up is detectable
+					for(int key = 0; key < keyCount; ++key)
+						table.store(key, key & 0xFF, key >>> 8, depth, Move.Delta.values()[key & 3]);
+				}
+			};
+			threads[idx].start();
+		}
+		start.countDown();
+		for(Thread thread : threads)
+			thread.join();
+		
+		for(int key = 0; key < keyCount; ++key)
+		{
+			long entry = table.probe(key);
+			if(entry == TranspositionTable.MISS)
+				continue;
+			assertThat(TranspositionTable.getCost(entry), is(equalTo(key & 0xFF)));
+			assertThat(TranspositionTable.getEstimate(entry), is(equalTo(key >>> 8)));
+			assertThat(TranspositionTable.getNextMove(entry), is(equalTo(Move.Delta.values()[key & 3])));
+		}
+	}
+	
+	@Test
+	public void store_concurrentWritersOfSameKeys_probeReturnsDeepestEntry() throws InterruptedException
+	{
+		final TranspositionTable table = new TranspositionTable(1, ReplacementPolicy.DEPTH_PREFERRED);
+		final int threadCount = 8, keyCount = 1 << 10;
+		for(int round = 0; round < 16; ++round)
+		{
+			table.clear();
+			final CountDownLatch start = new CountDownLatch(1);
+			final Thread[] threads = new Thread[threadCount];
+			for(int idx = 0; idx < threadCount; ++idx)
+			{
+				final int depth = idx;
+				threads[idx] = new Thread() {
+					@Override
+					public void run()
+					{
+						try {
+							start.await();
+						}
+						catch(InterruptedException interrupted)
+						{
+							return;
+						}
+						// Half of the threads go backwards, so that writers of each key meet
+						for(int count = 0; count < keyCount; ++count)
+						{
+							int key = depth % 2 == 0 ? count : keyCount - 1 - count;
+							table.store(key, key & 0xFF, 0, depth, null);
+						}
+					}
+				};
+				threads[idx].start();
+			}
+			start.countDown();
+			for(Thread thread : threads)
+				thread.join();
+			
+			for(int key = 0; key < keyCount; ++key)
+				assertThat(TranspositionTable.getDepth(table.probe(key)), is(equalTo(threadCount - 1)));
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package poo.demos.puzzle.model.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import poo.demos.puzzle.model.Board;
+import poo.demos.puzzle.model.Grid;
+import poo.demos.puzzle.model.Piece;
+
+public class BoardTests {
+
+	/**
+	 * Sizes that exercise each of the existing packed representations.
+	 */
+	private static final int[] SIDES = { 2, 4, 5, 16, 17, 257 };
+
+	@Test
+	public void createSolved_withEverySupportedRepresentation_tilesAreAtCorrectPositions()
+	{
+		for(int side : SIDES)
+		{
+			Board board = Board.createSolved(side);
+			for(int index = 0; index < board.getCellCount() - 1; ++index)
+				assertThat(board.get(index), is(equalTo(index + 1)));
+			assertThat(board.get(board.getCellCount() - 1), is(equalTo(Board.EMPTY)));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void create_withSizeEqualToOne_exceptionThrown()
+	{
+		Board.create(1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void set_withOutOfRangeTile_exceptionThrown()
+	{
+		Board board = Board.create(4);
+		board.set(0, board.getCellCount());
+	}
+
+	@Test
+	public void get_withOutOfRangeIndex_everyRepresentationThrows()
+	{
+		for(int side : SIDES)
+		{
+			Board board = Board.createSolved(side);
+			for(int index : new int[] { -1, board.getCellCount(), 16 })
+			{
+				if(index == 16 && board.getCellCount() > 16)
+					continue;
+				try {
+					board.get(index);
+					fail();
+				}
+				catch(ArrayIndexOutOfBoundsException expected) { }
+			}
+		}
+	}
+	
+	@Test(expected = ArrayIndexOutOfBoundsException.class)
+	public void set_withOutOfRangeIndexInLongPackedBoard_exceptionThrown()
+	{
+		Board.create(3).set(9, 1);
+	}
+
+	@Test
+	public void move_withEverySupportedRepresentation_tileIsMovedAndOriginIsEmpty()
+	{
+		for(int side : SIDES)
+		{
+			Board board = Board.createSolved(side);
+			final int empty = board.getCellCount() - 1, tile = board.get(empty - 1);
+			board.move(empty - 1, empty);
+			assertThat(board.get(empty), is(equalTo(tile)));
+			assertThat(board.get(empty - 1), is(equalTo(Board.EMPTY)));
+			assertThat(board.indexOf(tile), is(equalTo(empty)));
+		}
+	}
+
+	@Test
+	public void copy_thenMoveOriginal_copyIsNotAffected()
+	{
+		for(int side : SIDES)
+		{
+			Board board = Board.createSolved(side);
+			Board copy = board.copy();
+			assertThat(copy, is(equalTo(board)));
+			assertThat(copy.hashCode(), is(equalTo(board.hashCode())));
+
+			board.move(board.getCellCount() - 2, board.getCellCount() - 1);
+			assertThat(copy, is(not(equalTo(board))));
+
+			copy.copyFrom(board);
+			assertThat(copy, is(equalTo(board)));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void copyFrom_withBoardOfDifferentSize_exceptionThrown()
+	{
+		Board.create(4).copyFrom(Board.create(3));
+	}
+
+	@Test
+	public void createPuzzle_withBoard_gridReflectsBoardContents()
+	{
+		Board board = Board.createSolved(3);
+		board.move(7, 8);
+		Grid grid = Grid.createPuzzle(board);
+
+		Piece piece = grid.getPieceAtPosition(2, 2);
+		assertThat(piece.getInitialPosition().X, is(equalTo(1)));
+		assertThat(piece.getInitialPosition().Y, is(equalTo(2)));
+		assertThat(grid.getEmptySpacePosition().X, is(equalTo(1)));
+		assertThat(grid.toBoard(), is(equalTo(board)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void createPuzzle_withBoardWithRepeatedTiles_exceptionThrown()
+	{
+		Board board = Board.createSolved(3);
+		board.set(0, 2);
+		Grid.createPuzzle(board);
+	}
+}
@@ -4,15 +4,26 @@ import static org.hamcrest.CoreMatchers.*;
 import static org.junit.matchers.JUnitMatchers.*;
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import poo.demos.puzzle.model.Board;
 import poo.demos.puzzle.model.Grid;
+import poo.demos.puzzle.model.IntTileConsumer;
+import poo.demos.puzzle.model.Move;
 import poo.demos.puzzle.model.Piece;
 import poo.demos.puzzle.model.Position;
+import poo.demos.puzzle.model.Slide;
+import poo.demos.puzzle.model.TileSpliterator;
+import poo.demos.utils.SplitMix64;
 
 /**
  * Note to students:
@@ -172,4 +183,451 @@ public class GridTests {
 
 		assertThat(occupiedPositions, not(hasItem(puzzle.getEmptySpacePosition())));
 	}
+	
+	@Test
+	public void createRandomPuzzle_repeatedly_puzzlesAreSolvable()
+	{
+		for(int count = 0; count < 100; ++count)
+			assertThat(Grid.createRandomPuzzle(SIDE).isSolvable(), is(true));
+	}
+	
+	@Test
+	public void createRandomPuzzle_withHugeSize_puzzleIsSolvable()
+	{
+		assertThat(Grid.createRandomPuzzle(1000).isSolvable(), is(true));
+	}
+	
+	@Test
+	public void isSolvable_withTwoPiecesSwapped_returnsFalse()
+	{
+		Board board = Board.createSolved(SIDE);
+		board.set(0, 2);
+		board.set(1, 1);
+		assertThat(Grid.createPuzzle(board).isSolvable(), is(false));
+	}
+	
+	@Test
+	public void isSolvable_afterMoves_returnsTrue()
+	{
+		Grid grid = Grid.createPuzzle(SIDE);
+		grid.doMove(grid.getPieceAtPosition(SIDE - 2, SIDE - 1));
+		grid.doMove(grid.getPieceAtPosition(SIDE - 2, SIDE - 2));
+		assertThat(grid.isSolvable(), is(true));
+	}
+	
+	@Test
+	public void isSolved_unshuffledPuzzle_returnsTrue()
+	{
+		Grid grid = Grid.createPuzzle(SIDE);
+		assertThat(grid.isSolved(), is(true));
+		assertThat(grid.getManhattanDistance(), is(equalTo(0L)));
+		assertThat(grid.getMisplacedCount(), is(equalTo(0)));
+	}
+	
+	@Test
+	public void isSolved_afterMoveAndItsReversal_returnsTrue()
+	{
+		Grid grid = Grid.createPuzzle(SIDE);
+		Piece piece = grid.getPieceAtPosition(SIDE - 1, SIDE - 2);
+		grid.doMove(piece);
+		assertThat(grid.isSolved(), is(false));
+		assertThat(grid.getManhattanDistance(), is(equalTo(1L)));
+		assertThat(grid.getMisplacedCount(), is(equalTo(1)));
+		
+		grid.doMove(piece);
+		assertThat(grid.isSolved(), is(true));
+	}
+	
+	@Test
+	public void getManhattanDistance_afterRandomMoves_equalsFullScan()
+	{
+		Grid grid = Grid.createRandomPuzzle(SIDE);
+		Random random = new Random(5);
+		for(int count = 0; count < 200; ++count)
+		{
+			Position empty = grid.getEmptySpacePosition();
+			int x = empty.X + random.nextInt(3) - 1, y = empty.Y;
+			if(x == empty.X)
+				y += random.nextBoolean() ? 1 : -1;
+			if(x < 0 || y < 0 || x >= SIDE || y >= SIDE)
+				continue;
+			grid.doMove(grid.getPieceAtPosition(x, y));
+			
+			long distance = 0;
+			int misplaced = 0;
+			for(Piece piece : grid)
+			{
+				distance += Math.abs(piece.getPosition().X - piece.getInitialPosition().X)
+						+ Math.abs(piece.getPosition().Y - piece.getInitialPosition().Y);
+				if(!piece.isAtCorrectPosition())
+					misplaced += 1;
+			}
+			assertThat(grid.getManhattanDistance(), is(equalTo(distance)));
+			assertThat(grid.getMisplacedCount(), is(equalTo(misplaced)));
+			assertThat(grid.isSolved(), is(equalTo(misplaced == 0)));
+		}
+	}
+	
+	@Test
+	public void getZobristHash_afterMoves_equalsBoardHash()
+	{
+		Grid grid = Grid.createRandomPuzzle(SIDE);
+		long initialHash = grid.getZobristHash();
+		assertThat(initialHash, is(equalTo(grid.toBoard().computeZobristHash())));
+		
+		Position empty = grid.getEmptySpacePosition();
+		Piece piece = grid.getPieceAtPosition(empty.X - 1, empty.Y);
+		grid.doMove(piece);
+		assertThat(grid.getZobristHash(), is(not(equalTo(initialHash))));
+		assertThat(grid.getZobristHash(), is(equalTo(grid.toBoard().computeZobristHash())));
+		
+		grid.doMove(piece);
+		assertThat(grid.getZobristHash(), is(equalTo(initialHash)));
+	}
+	
+	@Test
+	public void equals_gridsWithSameArrangement_areEqualAndHaveSameHashCode()
+	{
+		Grid grid = Grid.createRandomPuzzle(SIDE);
+		Grid other = Grid.createPuzzle(grid.toBoard());
+		assertThat(other, is(equalTo(grid)));
+		assertThat(other.hashCode(), is(equalTo(grid.hashCode())));
+		
+		Position empty = other.getEmptySpacePosition();
+		other.doMove(other.getPieceAtPosition(empty.X, empty.Y - 1));
+		assertThat(other, is(not(equalTo(grid))));
+	}
+	
+	@Test
+	public void getMove_samePositionAndDelta_returnsSameInstance()
+	{
+		Grid grid = Grid.createRandomPuzzle(SIDE);
+		Position position = Position.fromCoordinates(1, 2);
+		Move move = grid.getMove(position, Move.Delta.STEP_LEFT);
+		assertThat(move, is(sameInstance(grid.getMove(position, Move.Delta.STEP_LEFT))));
+		assertThat(move.delta, is(sameInstance(Move.Delta.STEP_LEFT)));
+		assertThat(move.target, is(sameInstance(grid.getMove(position, Move.Delta.STEP_UP).target)));
+	}
+	
+	@Test
+	public void getMove_targetOfMove_standsForPieceAtPosition()
+	{
+		Grid grid = Grid.createRandomPuzzle(SIDE);
+		Position empty = grid.getEmptySpacePosition();
+		Position origin = Position.fromCoordinates(empty.X - 1, empty.Y);
+		Move move = grid.getMove(origin, Move.Delta.STEP_RIGHT);
+		assertThat(move.target, is(equalTo(grid.getPieceAtPosition(origin))));
+		assertThat(new Move(Move.Delta.STEP_RIGHT, grid.getPieceAtPosition(origin)), is(equalTo(move)));
+		
+		assertThat(grid.doMove(move.target), is(true));
+		assertThat(grid.getEmptySpacePosition(), is(equalTo(origin)));
+	}
+	
+	@Test
+	public void getMove_afterGridChanges_keepsEqualityAndHashCode()
+	{
+		Grid grid = Grid.createPuzzle(SIDE);
+		Position origin = Position.fromCoordinates(SIDE - 2, SIDE - 1);
+		Move move = grid.getMove(origin, Move.Delta.STEP_RIGHT);
+		Set<Move> moves = new HashSet<Move>();
+		moves.add(move);
+		int hashCode = move.hashCode();
+		
+		assertThat(grid.doMove(move.target), is(true));
+		assertThat(move.hashCode(), is(equalTo(hashCode)));
+		assertThat(moves.contains(move), is(true));
+		assertThat(moves.contains(grid.getMove(grid.getEmptySpacePosition(), Move.Delta.STEP_RIGHT)), is(false));
+		assertThat(grid.getMove(move.target.getPosition(), Move.Delta.STEP_RIGHT), is(sameInstance(move)));
+	}
+	
+	@Test
+	public void getMove_emptyPosition_returnsNull()
+	{
+		Grid grid = Grid.createRandomPuzzle(SIDE);
+		assertThat(grid.getMove(grid.getEmptySpacePosition(), Move.Delta.STEP_LEFT), is(nullValue()));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void getMove_positionOutOfBounds_throws()
+	{
+		Grid.createPuzzle(SIDE).getMove(Position.fromCoordinates(SIDE, 0), Move.Delta.STEP_LEFT);
+	}
+	
+	@Test
+	public void forEachTile_randomGrid_deliversBoardTilesInOrder()
+	{
+		Grid grid = Grid.createRandomPuzzle(SIDE);
+		final Board board = grid.toBoard();
+		final int[] count = { 0 };
+		grid.forEachTile(new IntTileConsumer() {
+			@Override
+			public void accept(int index, int tile)
+			{
+				assertThat(index, is(equalTo(count[0]++)));
+				assertThat(tile, is(equalTo(board.get(index))));
+			}
+		});
+		assertThat(count[0], is(equalTo(SIDE * SIDE)));
+	}
+	
+	/**
+	 * Fork/join task that sums the distances of the tiles of a range to their initial positions.
+	 */
+	@SuppressWarnings("serial")
+	private static class DistanceTask extends RecursiveTask<Long>
+	{
+		private final TileSpliterator tiles;
+		private final int size;
+		
+		DistanceTask(TileSpliterator tiles, int size)
+		{
+			this.tiles = tiles;
+			this.size = size;
+		}
+		
+		@Override
+		protected Long compute()
+		{
+			TileSpliterator half = tiles.estimateSize() > 1024 ? tiles.trySplit() : null;
+			if(half != null)
+			{
+				DistanceTask first = new DistanceTask(half, size);
+				first.fork();
+				return new DistanceTask(tiles, size).compute() + first.join();
+			}
+			
+			final long[] distance = { 0 };
+			tiles.forEachRemaining(new IntTileConsumer() {
+				@Override
+				public void accept(int index, int tile)
+				{
+					if(tile != Board.EMPTY)
+						distance[0] += Math.abs(index % size - (tile - 1) % size) + Math.abs(index / size - (tile - 1) / size);
+				}
+			});
+			return distance[0];
+		}
+	}
+	
+	@Test
+	public void tileSpliterator_splitInParallel_coversAllTiles()
+	{
+		Grid grid = Grid.createRandomPuzzle(300);
+		long distance = new ForkJoinPool().invoke(new DistanceTask(grid.tileSpliterator(), grid.getSize()));
+		assertThat(distance, is(equalTo(grid.getManhattanDistance())));
+	}
+	
+	@Test
+	public void tileSpliterator_splitUntilSingleTiles_deliversEachTileOnce()
+	{
+		Grid grid = Grid.createPuzzle(SIDE);
+		TileSpliterator tiles = grid.tileSpliterator();
+		assertThat(tiles.estimateSize(), is(equalTo((long) SIDE * SIDE)));
+		
+		final boolean[] seen = new boolean[SIDE * SIDE];
+		IntTileConsumer marker = new IntTileConsumer() {
+			@Override
+			public void accept(int index, int tile)
+			{
+				assertThat(seen[index], is(false));
+				seen[index] = true;
+			}
+		};
+		for(TileSpliterator half = tiles.trySplit(); half != null; half = tiles.trySplit())
+			while(half.tryAdvance(marker))
+				;
+		assertThat(tiles.tryAdvance(marker), is(true));
+		assertThat(tiles.tryAdvance(marker), is(false));
+		for(boolean flag : seen)
+			assertThat(flag, is(true));
+	}
+	
+	@Test
+	public void getPieceAtPosition_repeatedLookups_returnSameInstance()
+	{
+		Grid grid = Grid.createRandomPuzzle(SIDE);
+		Position empty = grid.getEmptySpacePosition();
+		Piece piece = grid.getPieceAtPosition(empty.X, empty.Y - 1);
+		assertThat(piece, is(sameInstance(grid.getPieceAtPosition(Position.fromCoordinates(empty.X, empty.Y - 1)))));
+		
+		grid.doMove(piece);
+		assertThat(grid.getPieceAtPosition(empty.X, empty.Y), is(sameInstance(piece)));
+		assertThat(grid.getPieceAtPosition(empty.X, empty.Y - 1), is(nullValue()));
+	}
+	
+	@Test
+	public void iterator_pieces_areTheLookedUpInstances()
+	{
+		Grid grid = Grid.createRandomPuzzle(SIDE);
+		for(Piece piece : grid)
+			assertThat(grid.getPieceAtPosition(piece.getPosition().X, piece.getPosition().Y), is(sameInstance(piece)));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void getPieceAtPosition_coordinatesOutOfBounds_throws()
+	{
+		Grid.createPuzzle(SIDE).getPieceAtPosition(-1, 0);
+	}
+	
+	@Test
+	public void doMove_largeGrid_keepsPiecesAndPositionsConsistent()
+	{
+		final int side = 1000;
+		Grid grid = Grid.createRandomPuzzle(side, new SplitMix64(17));
+		Piece first = grid.getPieceAtPosition(0, 0);
+		assertThat(grid.getPieceAtPosition(0, 0), is(sameInstance(first)));
+		
+		SplitMix64 random = new SplitMix64(3);
+		for(int step = 0; step < 100000; ++step)
+		{
+			Position empty = grid.getEmptySpacePosition();
+			Move.Delta delta = Move.Delta.values()[random.nextInt(4)];
+			int x = empty.X - delta.X, y = empty.Y - delta.Y;
+			if(x < 0 || y < 0 || x >= side || y >= side)
+				continue;
+			
+			Piece piece = grid.getPieceAtPosition(x, y);
+			assertThat(piece.getPosition(), is(equalTo(Position.fromCoordinates(x, y))));
+			assertThat(grid.doMove(piece), is(true));
+			assertThat(piece.getPosition(), is(equalTo(empty)));
+		}
+		assertThat(grid.getZobristHash(), is(equalTo(grid.toBoard().computeZobristHash())));
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void createPuzzle_boardWithRepeatedTile_throws()
+	{
+		Board board = Board.createSolved(SIDE);
+		board.set(1, 1);
+		Grid.createPuzzle(board);
+	}
+	
+	@Test
+	public void slideLine_alignedPosition_slidesWholeLine()
+	{
+		Grid grid = Grid.createPuzzle(SIDE);
+		Piece[] row = new Piece[SIDE - 1];
+		for(int x = 0; x < SIDE - 1; ++x)
+			row[x] = grid.getPieceAtPosition(x, SIDE - 1);
+		
+		Slide slide = grid.slideLine(Position.fromCoordinates(0, SIDE - 1));
+		assertThat(slide.count, is(equalTo(SIDE - 1)));
+		assertThat(slide.delta, is(sameInstance(Move.Delta.STEP_RIGHT)));
+		assertThat(grid.getEmptySpacePosition(), is(equalTo(Position.fromCoordinates(0, SIDE - 1))));
+		for(int order = 0; order < slide.count; ++order)
+		{
+			Piece piece = row[SIDE - 2 - order];
+			assertThat(slide.getOrigin(order), is(equalTo(piece.getInitialPosition())));
+			assertThat(slide.getDestination(order), is(equalTo(piece.getPosition())));
+		}
+		assertThat(grid.getMisplacedCount(), is(equalTo(SIDE - 1)));
+		assertThat(grid.getZobristHash(), is(equalTo(grid.toBoard().computeZobristHash())));
+	}
+	
+	@Test
+	public void slideLine_slidesBackAndForth_restoresGrid()
+	{
+		Grid grid = Grid.createRandomPuzzle(SIDE);
+		Grid initial = Grid.createPuzzle(grid.toBoard());
+		Position empty = grid.getEmptySpacePosition();
+		
+		Slide up = grid.slideLine(Position.fromCoordinates(empty.X, 0));
+		Slide down = grid.slideLine(empty);
+		if(up == null)
+			assertThat(down, is(nullValue()));
+		else
+			assertThat(down.delta, is(sameInstance(up.delta.getReverse())));
+		assertThat(grid, is(equalTo(initial)));
+		assertThat(grid.getManhattanDistance(), is(equalTo(initial.getManhattanDistance())));
+	}
+	
+	@Test
+	public void slideLine_notAlignedPosition_returnsNullAndMovesNothing()
+	{
+		Grid grid = Grid.createPuzzle(SIDE);
+		assertThat(grid.slideLine(Position.fromCoordinates(0, 0)), is(nullValue()));
+		assertThat(grid.slideLine(grid.getEmptySpacePosition()), is(nullValue()));
+		assertThat(grid.isSolved(), is(true));
+	}
+	
+	@Test
+	public void legalMoveMask_solvedGrid_allowsMovesFromLeftAndAbove()
+	{
+		Grid grid = Grid.createPuzzle(SIDE);
+		int expected = (1 << Move.Delta.STEP_DOWN.ordinal()) | (1 << Move.Delta.STEP_RIGHT.ordinal());
+		assertThat(grid.legalMoveMask(), is(equalTo(expected)));
+	}
+	
+	@Test
+	public void applyDelta_legalAndIllegalMoves_movesOnlyLegalOnes()
+	{
+		Grid grid = Grid.createPuzzle(SIDE);
+		Piece piece = grid.getPieceAtPosition(SIDE - 1, SIDE - 2);
+		assertThat(grid.applyDelta(Move.Delta.STEP_UP), is(false));
+		assertThat(grid.applyDelta(Move.Delta.STEP_DOWN), is(true));
+		assertThat(piece.getPosition(), is(equalTo(Position.fromCoordinates(SIDE - 1, SIDE - 1))));
+		assertThat(grid.legalMoveMask(), is(equalTo(0xF & ~(1 << Move.Delta.STEP_LEFT.ordinal()))));
+		assertThat(grid.applyDelta(Move.Delta.STEP_UP), is(true));
+		assertThat(grid.isSolved(), is(true));
+	}
+	
+	@Test
+	public void copy_movedCopy_leavesOriginalUnchanged()
+	{
+		Grid grid = Grid.createRandomPuzzle(SIDE, new SplitMix64(7));
+		Grid copy = grid.copy();
+		assertThat(copy, is(equalTo(grid)));
+		assertThat(copy.getManhattanDistance(), is(equalTo(grid.getManhattanDistance())));
+		
+		Board before = grid.toBoard();
+		copy.applyDelta(Move.Delta.getInstanceFromCoordinates(0, 1));
+		copy.applyDelta(Move.Delta.getInstanceFromCoordinates(1, 0));
+		assertThat(grid.toBoard(), is(equalTo(before)));
+		assertThat(copy.getZobristHash(), is(equalTo(copy.toBoard().computeZobristHash())));
+		assertThat(copy.getPieceAtPosition(0, 0), is(not(sameInstance(grid.getPieceAtPosition(0, 0)))));
+	}
+	
+	@Test
+	public void restoreFrom_snapshotAfterMoves_restoresStateAndPieces()
+	{
+		Grid grid = Grid.createRandomPuzzle(SIDE, new SplitMix64(11));
+		Grid.Snapshot snapshot = grid.snapshot();
+		Board before = grid.toBoard();
+		long distance = grid.getManhattanDistance();
+		int misplaced = grid.getMisplacedCount();
+		Position emptySpace = grid.getEmptySpacePosition();
+		
+		SplitMix64 random = new SplitMix64(13);
+		for(int idx = 0; idx < 100; ++idx)
+			grid.applyDelta(Move.Delta.values()[random.nextInt(Move.Delta.values().length)]);
+		
+		grid.restoreFrom(snapshot);
+		assertThat(grid.toBoard(), is(equalTo(before)));
+		assertThat(grid.getManhattanDistance(), is(equalTo(distance)));
+		assertThat(grid.getMisplacedCount(), is(equalTo(misplaced)));
+		assertThat(grid.getEmptySpacePosition(), is(equalTo(emptySpace)));
+		assertThat(grid.getZobristHash(), is(equalTo(snapshot.getZobristHash())));
+		for(Piece piece : grid)
+			assertThat(grid.getPieceAtPosition(piece.getPosition()), is(sameInstance(piece)));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void restoreFrom_snapshotOfDifferentSize_throws()
+	{
+		Grid.createPuzzle(SIDE).restoreFrom(Grid.createPuzzle(SIDE + 1).snapshot());
+	}
+	
+	@Test
+	public void createPuzzle_piecesOfShuffledGrid_preservesInitialPositions()
+	{
+		Grid grid = Grid.createRandomPuzzle(SIDE, new SplitMix64(23));
+		List<Piece> pieces = new ArrayList<Piece>();
+		for(Piece piece : grid)
+			pieces.add(piece);
+		
+		Grid restored = Grid.createPuzzle(pieces, grid.getEmptySpacePosition());
+		assertThat(restored, is(equalTo(grid)));
+		for(Piece piece : pieces)
+			assertThat(restored.getPieceAtPosition(piece.getPosition()).getInitialPosition(), is(equalTo(piece.getInitialPosition())));
+	}
 }
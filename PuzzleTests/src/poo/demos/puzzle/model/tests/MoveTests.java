@@ -157,4 +157,21 @@ public class MoveTests {
 		assertThat(Move.Delta.getInstanceFromCoordinates(-1, -1), is(nullValue()));
 		assertThat(Move.Delta.getInstanceFromCoordinates(-1, 1), is(nullValue()));
 	}
+	
+	@Test
+	public void getInstanceFromCoordinates_withOutOfRangeCoordinates_returnsNull()
+	{
+		assertThat(Move.Delta.getInstanceFromCoordinates(2, 0), is(nullValue()));
+		assertThat(Move.Delta.getInstanceFromCoordinates(0, -2), is(nullValue()));
+		assertThat(Move.Delta.getInstanceFromCoordinates(2, -1), is(nullValue()));
+	}
+	
+	@Test
+	public void equals_movesOfDistinctEquivalentPieces_returnsTrue()
+	{
+		Move one = new Move(Move.Delta.STEP_UP, new MockPiece(1, 2));
+		Move other = new Move(Move.Delta.STEP_UP, new MockPiece(1, 2));
+		assertThat(one, is(equalTo(other)));
+		assertThat(one.hashCode(), is(equalTo(other.hashCode())));
+	}
 }
@@ -2,17 +2,67 @@ package poo.demos.puzzle.model.tests;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
 import org.junit.Test;
 
+import poo.demos.puzzle.model.Grid;
 import poo.demos.puzzle.model.Move;
 import poo.demos.puzzle.model.Move.Delta;
 import poo.demos.puzzle.model.MovesStack;
 import poo.demos.puzzle.model.Piece;
+import poo.demos.puzzle.model.Position;
 import poo.demos.puzzle.model.tests.mocks.MockPiece;
 
 public class MovesStackTests {
 
-	// TODO: Elaborate when MovesStack is redone 
+	/**
+	 * Helper method that does the given move in the given grid.
+	 * 
+	 * @return The move, or {@code null} if the delta cannot be applied
+	 */
+	private static Move doMove(Grid grid, Delta delta)
+	{
+		Position empty = grid.getEmptySpacePosition();
+		int x = empty.X - delta.X, y = empty.Y - delta.Y;
+		if(x < 0 || y < 0 || x >= grid.getSize() || y >= grid.getSize())
+			return null;
+		
+		Move move = new Move(delta, grid.getPieceAtPosition(x, y));
+		assertTrue(grid.doMove(move.target));
+		return move;
+	}
+	
+	/**
+	 * Helper method that does a sequence of moves in the given grid, recording them in
+	 * the given stack. Moves never undo the previous one.
+	 */
+	private static List<Move> doMoves(Grid grid, MovesStack moves, int count)
+	{
+		List<Move> done = new ArrayList<Move>();
+		Delta previous = null;
+		for(int step = 0; done.size() < count; ++step)
+		{
+			Delta delta = Delta.values()[(step * 7 + step / 3) % 4];
+			if(previous != null && delta == previous.getReverse())
+				continue;
+			Move move = doMove(grid, delta);
+			if(move == null)
+				continue;
+			moves.push(move);
+			done.add(move);
+			previous = delta;
+		}
+		return done;
+	}
+	
+	private static void assertEquivalent(Move expected, Move actual)
+	{
+		assertSame(expected.delta, actual.delta);
+		assertEquals(expected.target, actual.target);
+	}
 	
 	@Test
 	public void testCorrectInitiation() 
@@ -54,4 +104,194 @@ public class MovesStackTests {
 		assertSame(secondMove, moves.pop());
 		assertSame(firstMove, moves.pop());
 	}
+	
+	@Test
+	public void getRedoMove_unboundStack_producesPoppedInstances()
+	{
+		MovesStack moves = new MovesStack();
+		Piece piece = new MockPiece(0, 0);
+		Move firstMove = new Move(Delta.STEP_DOWN, piece);
+		Move secondMove = new Move(Delta.STEP_RIGHT, piece);
+		moves.push(firstMove);
+		moves.push(secondMove);
+		moves.pop();
+		moves.pop();
+		assertSame(firstMove, moves.getRedoMove());
+		
+		moves.push(firstMove);
+		assertSame(secondMove, moves.getRedoMove());
+		moves.push(new Move(Delta.STEP_UP, piece));
+		assertNull(moves.getRedoMove());
+		
+		Iterator<Move> iterator = moves.iterator();
+		assertEquals(Delta.STEP_UP, iterator.next().delta);
+		assertSame(firstMove, iterator.next());
+		assertFalse(iterator.hasNext());
+	}
+	
+	@Test
+	public void testCorrectInitiationOfBoundStack() 
+	{
+		MovesStack moves = new MovesStack(Grid.createPuzzle(3));
+		assertTrue(moves.isEmpty());
+		assertNull(moves.top());
+		assertNull(moves.getRedoMove());
+	}
+	
+	@Test
+	public void testSinglePushAndSinglePopOfBoundStack()
+	{
+		Grid grid = Grid.createPuzzle(3);
+		MovesStack moves = new MovesStack(grid);
+		assertTrue(moves.isEmpty());
+		Move someMove = doMove(grid, Delta.STEP_DOWN);
+		moves.push(someMove);
+		assertFalse(moves.isEmpty());
+		Move removedMove = moves.pop();
+		assertEquivalent(someMove, removedMove);
+		assertTrue(moves.isEmpty());
+	}
+	
+	@Test
+	public void testFILODisciplineOfBoundStack()
+	{
+		Grid grid = Grid.createPuzzle(3);
+		MovesStack moves = new MovesStack(grid);
+		// Doing moves and adding them to the stack
+		Move firstMove = doMove(grid, Delta.STEP_DOWN);
+		moves.push(firstMove);
+		Move secondMove = doMove(grid, Delta.STEP_RIGHT);
+		moves.push(secondMove);
+		Move thirdMove = doMove(grid, Delta.STEP_DOWN);
+		moves.push(thirdMove);
+		// Check for correctness of current stack state
+		assertEquals(3, moves.getSize());
+		assertEquivalent(thirdMove, moves.top());
+		// Pop elements, undoing them, while checking FILO discipline
+		assertEquivalent(thirdMove, moves.pop());
+		grid.doMove(thirdMove.target);
+		assertEquivalent(secondMove, moves.pop());
+		grid.doMove(secondMove.target);
+		assertEquivalent(firstMove, moves.pop());
+		grid.doMove(firstMove.target);
+		assertTrue(grid.isSolved());
+	}
+	
+	@Test(expected=IllegalArgumentException.class)
+	public void push_deltaInconsistentWithGrid_throws()
+	{
+		Grid grid = Grid.createPuzzle(3);
+		new MovesStack(grid).push(new Move(Delta.STEP_DOWN, grid.getPieceAtPosition(2, 1)));
+	}
+	
+	@Test
+	public void iterator_manyMoves_yieldsMovesFromTopToBottom()
+	{
+		Grid grid = Grid.createPuzzle(4);
+		MovesStack moves = new MovesStack(grid);
+		List<Move> done = doMoves(grid, moves, 1000);
+		assertEquals(1000, moves.getSize());
+		
+		Iterator<Move> iterator = moves.iterator();
+		for(int idx = done.size() - 1; idx >= 0; --idx)
+			assertEquivalent(done.get(idx), iterator.next());
+		assertFalse(iterator.hasNext());
+	}
+	
+	@Test
+	public void pop_allMoves_restoresInitialGrid()
+	{
+		Grid grid = Grid.createPuzzle(5);
+		MovesStack moves = new MovesStack(grid);
+		doMoves(grid, moves, 10000);
+		assertFalse(grid.isSolved());
+		
+		while(!moves.isEmpty())
+			assertTrue(grid.doMove(moves.pop().target));
+		assertTrue(grid.isSolved());
+		assertEquals(10000, moves.getRedoSize());
+	}
+	
+	@Test
+	public void push_beyondCapacity_discardsOldestMoves()
+	{
+		Grid grid = Grid.createPuzzle(4);
+		MovesStack moves = new MovesStack(grid, 50);
+		List<Move> done = doMoves(grid, moves, 175);
+		assertEquals(50, moves.getSize());
+		
+		Iterator<Move> iterator = moves.iterator();
+		for(int idx = done.size() - 1; idx >= done.size() - 50; --idx)
+			assertEquivalent(done.get(idx), iterator.next());
+		assertFalse(iterator.hasNext());
+	}
+	
+	@Test
+	public void getRedoMove_afterUndo_redoesPoppedMoves()
+	{
+		Grid grid = Grid.createPuzzle(3);
+		MovesStack moves = new MovesStack(grid);
+		List<Move> done = doMoves(grid, moves, 40);
+		for(int idx = 0; idx < 10; ++idx)
+			grid.doMove(moves.pop().target);
+		assertEquals(30, moves.getSize());
+		
+		for(int idx = 30; idx < 40; ++idx)
+		{
+			Move redo = moves.getRedoMove();
+			assertEquivalent(done.get(idx), redo);
+			grid.doMove(redo.target);
+			moves.push(redo);
+		}
+		assertNull(moves.getRedoMove());
+		assertEquivalent(done.get(39), moves.top());
+	}
+	
+	@Test
+	public void push_otherMoveAfterPop_clearsRedoStack()
+	{
+		Grid grid = Grid.createPuzzle(3);
+		MovesStack moves = new MovesStack(grid);
+		moves.push(doMove(grid, Delta.STEP_DOWN));
+		moves.push(doMove(grid, Delta.STEP_RIGHT));
+		grid.doMove(moves.pop().target);
+		assertEquals(1, moves.getRedoSize());
+		
+		moves.push(doMove(grid, Delta.STEP_DOWN));
+		assertEquals(0, moves.getRedoSize());
+		assertNull(moves.getRedoMove());
+	}
+	
+	@Test
+	public void pop_boundStackAfterUndo_producesMovesOfActualPieces()
+	{
+		Grid grid = Grid.createPuzzle(3);
+		MovesStack moves = new MovesStack(grid);
+		Move firstMove = doMove(grid, Delta.STEP_DOWN);
+		moves.push(firstMove);
+		Move secondMove = doMove(grid, Delta.STEP_RIGHT);
+		moves.push(secondMove);
+		
+		Move popped = moves.pop();
+		assertSame(secondMove.target, popped.target);
+		assertTrue(grid.doMove(popped.target));
+		assertSame(secondMove.target, popped.target);
+		assertFalse(grid.getEmptySpacePosition().equals(popped.target.getPosition()));
+		
+		popped = moves.pop();
+		assertSame(firstMove.target, popped.target);
+		assertTrue(grid.doMove(popped.target));
+		assertTrue(grid.isSolved());
+	}
+	
+	@Test(expected=IllegalStateException.class)
+	public void pop_boundStackWithPoppedMoveNotUndone_throws()
+	{
+		Grid grid = Grid.createPuzzle(3);
+		MovesStack moves = new MovesStack(grid);
+		moves.push(doMove(grid, Delta.STEP_DOWN));
+		moves.push(doMove(grid, Delta.STEP_RIGHT));
+		moves.pop();
+		moves.pop();
+	}
 }
@@ -0,0 +1,104 @@
+package poo.demos.puzzle.model.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import poo.demos.puzzle.model.Move;
+import poo.demos.puzzle.model.Position;
+import poo.demos.puzzle.model.PositionTable;
+
+public class PositionTableTests {
+
+	private static final int SIDE = 4;
+
+	@Test
+	public void fromCoordinates_sameCoordinates_returnsSameInstance()
+	{
+		assertThat(Position.fromCoordinates(2, 3), is(sameInstance(Position.fromCoordinates(2, 3))));
+		assertThat(Position.fromCoordinates(1000, 999), is(sameInstance(Position.fromCoordinates(1000, 999))));
+	}
+
+	@Test
+	public void forSize_sameSize_returnsSameInstance()
+	{
+		assertThat(PositionTable.forSize(SIDE), is(sameInstance(PositionTable.forSize(SIDE))));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void forSize_withNonPositiveSize_exceptionThrown()
+	{
+		PositionTable.forSize(0);
+	}
+
+	@Test
+	public void getPosition_withEveryIndex_returnsInternedPositionWithMatchingIndex()
+	{
+		PositionTable table = PositionTable.forSize(SIDE);
+		for(int index = 0; index < table.getCellCount(); ++index)
+		{
+			Position position = table.getPosition(index);
+			assertThat(position, is(sameInstance(Position.fromCoordinates(index % SIDE, index / SIDE))));
+			assertThat(table.indexOf(position), is(equalTo(index)));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void indexOf_withOutOfBoundsCoordinates_exceptionThrown()
+	{
+		PositionTable.forSize(SIDE).indexOf(SIDE, 0);
+	}
+
+	@Test
+	public void getNeighbor_atCorner_returnsOnlyExistingNeighbors()
+	{
+		PositionTable table = PositionTable.forSize(SIDE);
+		assertThat(table.getNeighbor(0, Move.Delta.STEP_UP), is(equalTo(PositionTable.NONE)));
+		assertThat(table.getNeighbor(0, Move.Delta.STEP_LEFT), is(equalTo(PositionTable.NONE)));
+		assertThat(table.getNeighbor(0, Move.Delta.STEP_DOWN), is(equalTo(SIDE)));
+		assertThat(table.getNeighbor(0, Move.Delta.STEP_RIGHT), is(equalTo(1)));
+	}
+
+	@Test
+	public void getNeighbor_onLargeGrid_returnsSameValuesAsSmallGrid()
+	{
+		final int largeSide = 300;
+		PositionTable table = PositionTable.forSize(largeSide);
+		int corner = table.getCellCount() - 1;
+		assertThat(table.getNeighbor(corner, Move.Delta.STEP_DOWN), is(equalTo(PositionTable.NONE)));
+		assertThat(table.getNeighbor(corner, Move.Delta.STEP_RIGHT), is(equalTo(PositionTable.NONE)));
+		assertThat(table.getNeighbor(corner, Move.Delta.STEP_UP), is(equalTo(corner - largeSide)));
+		assertThat(table.getNeighbor(corner, Move.Delta.STEP_LEFT), is(equalTo(corner - 1)));
+	}
+
+	@Test
+	public void getDistance_betweenOppositeCorners_returnsManhattanDistance()
+	{
+		PositionTable table = PositionTable.forSize(SIDE);
+		assertThat(table.getDistance(0, table.getCellCount() - 1), is(equalTo(2 * (SIDE - 1))));
+		assertThat(table.getDistance(5, 5), is(equalTo(0)));
+		assertThat(table.areAdjacent(5, 6), is(true));
+		assertThat(table.areAdjacent(3, 4), is(false));
+	}
+
+	@Test
+	public void getMoveMask_emptySpaceAtCorner_allowsMovesFromNeighborsOnly()
+	{
+		PositionTable table = PositionTable.forSize(SIDE);
+		int expected = (1 << Move.Delta.STEP_UP.ordinal()) | (1 << Move.Delta.STEP_LEFT.ordinal());
+		assertThat(table.getMoveMask(0), is(equalTo(expected)));
+		assertThat(table.getMoveOrigin(0, Move.Delta.STEP_UP), is(equalTo(SIDE)));
+		assertThat(table.getMoveOrigin(0, Move.Delta.STEP_DOWN), is(equalTo(PositionTable.NONE)));
+		assertThat(table.getMoveMask(SIDE + 1), is(equalTo(0xF)));
+	}
+
+	@Test
+	public void getMoveMask_onLargeGrid_returnsSameValuesAsSmallGrid()
+	{
+		PositionTable table = PositionTable.forSize(300);
+		int expected = (1 << Move.Delta.STEP_UP.ordinal()) | (1 << Move.Delta.STEP_LEFT.ordinal());
+		assertThat(table.getMoveMask(0), is(equalTo(expected)));
+		assertThat(table.getMoveMask(301), is(equalTo(0xF)));
+	}
+}
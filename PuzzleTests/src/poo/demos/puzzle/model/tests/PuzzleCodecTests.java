@@ -0,0 +1,126 @@
+package poo.demos.puzzle.model.tests;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import poo.demos.puzzle.model.Grid;
+import poo.demos.puzzle.model.Piece;
+import poo.demos.puzzle.model.Position;
+import poo.demos.puzzle.model.PuzzleCodec;
+import poo.demos.utils.SplitMix64;
+
+public class PuzzleCodecTests {
+	
+	@Test
+	public void getEncodedSize_variousSizes_usesSmallestTileWidth()
+	{
+		assertThat(PuzzleCodec.getEncodedSize(3), is(equalTo(4 + 5)));
+		assertThat(PuzzleCodec.getEncodedSize(4), is(equalTo(4 + 8)));
+		assertThat(PuzzleCodec.getEncodedSize(16), is(equalTo(4 + 256)));
+		assertThat(PuzzleCodec.getEncodedSize(17), is(equalTo(4 + 289 * 2)));
+		assertThat(PuzzleCodec.getEncodedSize(300), is(equalTo(4 + 90000 * 4)));
+	}
+	
+	@Test
+	public void decode_encodedRandomGrids_producesEquivalentGrids()
+	{
+		SplitMix64 random = new SplitMix64(17);
+		for(int size : new int[] { 2, 3, 4, 5, 16, 17, 256, 257 })
+		{
+			Grid grid = Grid.createRandomPuzzle(size, random);
+			Grid decoded = PuzzleCodec.decode(PuzzleCodec.encode(grid));
+			assertThat(decoded, is(equalTo(grid)));
+			assertThat(decoded.getManhattanDistance(), is(equalTo(grid.getManhattanDistance())));
+		}
+	}
+	
+	@Test
+	public void read_littleEndianBuffer_preservesBufferOrderAndContents()
+	{
+		Grid grid = Grid.createRandomPuzzle(20, new SplitMix64(3));
+		ByteBuffer buffer = ByteBuffer.allocateDirect(PuzzleCodec.getEncodedSize(20)).order(ByteOrder.LITTLE_ENDIAN);
+		PuzzleCodec.write(grid, buffer);
+		assertThat(buffer.hasRemaining(), is(false));
+		
+		buffer.flip();
+		assertThat(PuzzleCodec.read(buffer), is(equalTo(grid)));
+		assertThat(buffer.order(), is(equalTo(ByteOrder.LITTLE_ENDIAN)));
+		assertThat(ByteBuffer.wrap(PuzzleCodec.encode(grid)).equals(buffer.rewind()), is(true));
+	}
+	
+	@Test
+	public void read_dataInput_preservesInitialPositions() throws IOException
+	{
+		Grid grid = Grid.createRandomPuzzle(4, new SplitMix64(8));
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PuzzleCodec.write(grid, new DataOutputStream(bytes));
+		
+		Grid decoded = PuzzleCodec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		for(Piece piece : grid)
+		{
+			Piece other = decoded.getPieceAtPosition(piece.getPosition());
+			assertThat(other.getInitialPosition(), is(equalTo(piece.getInitialPosition())));
+		}
+		assertThat(decoded.getEmptySpacePosition(), is(equalTo(grid.getEmptySpacePosition())));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void decode_repeatedTile_throws()
+	{
+		byte[] data = PuzzleCodec.encode(Grid.createPuzzle(4));
+		data[PuzzleCodec.HEADER_SIZE] = 0x11;
+		PuzzleCodec.decode(data);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void decode_tileOutOfRange_throws()
+	{
+		byte[] data = PuzzleCodec.encode(Grid.createPuzzle(3));
+		data[PuzzleCodec.HEADER_SIZE] = 0x2F;
+		PuzzleCodec.decode(data);
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void decode_truncatedData_throws()
+	{
+		byte[] data = PuzzleCodec.encode(Grid.createPuzzle(5));
+		PuzzleCodec.decode(Arrays.copyOf(data, data.length - 1));
+	}
+	
+	@Test
+	public void readGrid_solvedGrid_hasEmptySpaceAtLastPosition()
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(PuzzleCodec.getTilesSize(5));
+		PuzzleCodec.writeTiles(Grid.createPuzzle(5), buffer);
+		buffer.flip();
+		Grid grid = PuzzleCodec.readGrid(5, buffer);
+		assertThat(grid.isSolved(), is(true));
+		assertThat(grid.getEmptySpacePosition(), is(equalTo(Position.fromCoordinates(4, 4))));
+	}
+	
+	@Test
+	public void getEncodedSize_maxSize_fitsArray()
+	{
+		long cellCount = (long) PuzzleCodec.MAX_SIZE * PuzzleCodec.MAX_SIZE;
+		assertThat((long) PuzzleCodec.getEncodedSize(PuzzleCodec.MAX_SIZE), is(equalTo(PuzzleCodec.HEADER_SIZE + 4 * cellCount)));
+	}
+	
+	@Test(expected = IOException.class)
+	public void read_dataInputWithSizeAboveMax_throws() throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new DataOutputStream(bytes).writeInt(PuzzleCodec.MAX_SIZE + 1);
+		PuzzleCodec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+	}
+}